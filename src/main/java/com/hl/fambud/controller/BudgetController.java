@@ -1,9 +1,18 @@
 package com.hl.fambud.controller;
 
 import com.hl.fambud.dto.BudgetDto;
+import com.hl.fambud.dto.reporting.ConsolidatedSummaryDto;
 import com.hl.fambud.dto.reporting.PeriodSummaryDto;
+import com.hl.fambud.dto.reporting.RecurringTransactionDto;
+import com.hl.fambud.dto.reporting.RollupVerificationDto;
+import com.hl.fambud.dto.reporting.SummaryCacheStatsDto;
 import com.hl.fambud.exception.InvalidPathVariableException;
+import com.hl.fambud.model.SummaryBucket;
 import com.hl.fambud.service.BudgetService;
+import com.hl.fambud.service.DailyRollupService;
+import com.hl.fambud.service.PeriodSummaryCache;
+import com.hl.fambud.service.RecurringTransactionDetector;
+import com.hl.fambud.service.ReportService;
 import com.hl.fambud.service.TransactionCategoriser;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
@@ -17,6 +26,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.List;
 
 import static com.hl.fambud.util.BudgetUtil.INVALID_BUDGET_ID;
 
@@ -28,6 +38,11 @@ public class BudgetController {
     private static final Logger log = LoggerFactory.getLogger(BudgetController.class);
     private final BudgetService budgetService;
     private final TransactionCategoriser transactionCategoriser;
+    private final RecurringTransactionDetector recurringTransactionDetector;
+    private final DailyRollupService dailyRollupService;
+    private final PeriodSummaryCache periodSummaryCache;
+
+    private final ReportService reportService;
 
     @PostMapping
     public Mono<ResponseEntity<BudgetDto>> createBudget(@Valid @RequestBody BudgetDto budgetDto) {
@@ -61,9 +76,12 @@ public class BudgetController {
     public Mono<ResponseEntity<PeriodSummaryDto>> getPeriodSummaries(
         @PathVariable Long budgetId,
         @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
-        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate) {
-        log.info("getting period summary " + budgetId + " " + startDate + " " + endDate);
-        return transactionCategoriser.getBudgetPeriodSummary(budgetId, startDate, endDate)
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate,
+        @RequestParam(value = "compare", defaultValue = "false") boolean compare) {
+        log.info("getting period summary " + budgetId + " " + startDate + " " + endDate + " " + compare);
+        return (compare
+            ? transactionCategoriser.getBudgetPeriodComparison(budgetId, startDate, endDate)
+            : transactionCategoriser.getBudgetPeriodSummary(budgetId, startDate, endDate))
             .map(summary -> new ResponseEntity<>(summary, HttpStatus.OK))
             .onErrorResume(exception -> {
                 log.error("Error while getting period summary", exception);
@@ -71,6 +89,66 @@ public class BudgetController {
             });
     }
 
+    @GetMapping("/{budgetId}/summaries/trend")
+    public Mono<ResponseEntity<List<PeriodSummaryDto>>> getPeriodSummaryTrend(
+        @PathVariable Long budgetId,
+        @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate,
+        @RequestParam(value = "bucket", defaultValue = "MONTH") SummaryBucket bucket) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        log.info("getting period summary trend " + budgetId + " " + startDate + " " + endDate + " " + bucket);
+        return transactionCategoriser.getBudgetPeriodSummaries(budgetId, startDate, endDate, bucket)
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/summaries/consolidated")
+    public Mono<ResponseEntity<ConsolidatedSummaryDto>> getConsolidatedSummary(
+        @RequestParam("budgetIds") List<Long> budgetIds,
+        @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate) {
+        log.info("getting consolidated summary " + budgetIds + " " + startDate + " " + endDate);
+        return reportService.getConsolidatedSummary(budgetIds, startDate, endDate)
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/summaries/cache")
+    public Mono<SummaryCacheStatsDto> getSummaryCacheStats() {
+        return Mono.fromSupplier(periodSummaryCache::getStats);
+    }
+
+    @GetMapping("/{budgetId}/recurring")
+    public Mono<ResponseEntity<List<RecurringTransactionDto>>> getRecurringTransactions(@PathVariable Long budgetId) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        log.info("getting recurring transactions " + budgetId);
+        return recurringTransactionDetector.findRecurringTransactions(budgetId)
+            .map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/{budgetId}/daily-totals/rebuild")
+    public Mono<ResponseEntity<RollupVerificationDto>> rebuildDailyTotals(@PathVariable Long budgetId) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        log.info("rebuilding daily totals " + budgetId);
+        return dailyRollupService.rebuild(budgetId)
+            .then(dailyRollupService.verify(budgetId))
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{budgetId}/daily-totals/verification")
+    public Mono<ResponseEntity<RollupVerificationDto>> verifyDailyTotals(@PathVariable Long budgetId) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        log.info("verifying daily totals " + budgetId);
+        return dailyRollupService.verify(budgetId)
+            .map(ResponseEntity::ok);
+    }
+
     @PutMapping("/{budgetId}")
     public Mono<ResponseEntity<BudgetDto>> updateBudget(
         @PathVariable Long budgetId, @Valid @RequestBody BudgetDto budgetDto) {
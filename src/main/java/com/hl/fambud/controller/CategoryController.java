@@ -1,16 +1,22 @@
 package com.hl.fambud.controller;
 
 import com.hl.fambud.dto.CategoryDto;
+import com.hl.fambud.dto.reporting.CategoryLimitsDto;
 import com.hl.fambud.exception.InvalidPathVariableException;
+import com.hl.fambud.service.CategoryLimitService;
 import com.hl.fambud.service.CategoryService;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
+import static com.hl.fambud.util.BudgetUtil.INVALID_BUDGET_ID;
 import static com.hl.fambud.util.BudgetUtil.INVALID_CATEGORY_ID;
 
 @RestController
@@ -20,6 +26,8 @@ public class CategoryController {
 
     private final CategoryService categoryService;
 
+    private final CategoryLimitService categoryLimitService;
+
     @PostMapping
     public Mono<ResponseEntity<CategoryDto>> createCategory(@PathVariable Long budgetId, @Valid @RequestBody CategoryDto categoryDto) {
         categoryDto.setBudgetId(budgetId);
@@ -39,6 +47,18 @@ public class CategoryController {
         return categoryService.getAllCategoriesForBudget(budgetId);
     }
 
+    @GetMapping("/limits")
+    public Mono<ResponseEntity<CategoryLimitsDto>> getLimits(
+        @PathVariable Long budgetId,
+        @RequestParam(value = "asOfDate", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy")
+        LocalDate asOfDate) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        return categoryLimitService.getLimits(budgetId, asOfDate == null ? LocalDate.now() : asOfDate)
+            .map(ResponseEntity::ok);
+    }
+
     @PutMapping("/{categoryId}")
     public Mono<ResponseEntity<CategoryDto>> updateCategory(
         @PathVariable Long categoryId, @Valid @RequestBody CategoryDto categoryDto) {
@@ -0,0 +1,75 @@
+package com.hl.fambud.controller;
+
+import com.hl.fambud.dto.CategoryRuleDto;
+import com.hl.fambud.exception.InvalidPathVariableException;
+import com.hl.fambud.service.CategoryRuleService;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static com.hl.fambud.util.BudgetUtil.INVALID_CATEGORY_RULE_ID;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("${app.base-url}/{budgetId}/categories/rules")
+@Slf4j
+public class CategoryRuleController {
+
+    private final CategoryRuleService categoryRuleService;
+
+    @PostMapping
+    public Mono<ResponseEntity<CategoryRuleDto>> createRule(
+        @PathVariable Long budgetId, @Valid @RequestBody CategoryRuleDto categoryRuleDto) {
+        categoryRuleDto.setBudgetId(budgetId);
+        return categoryRuleService.createRule(categoryRuleDto)
+            .map(rule -> new ResponseEntity<>(rule, HttpStatus.CREATED));
+    }
+
+    @GetMapping("/{ruleId}")
+    public Mono<ResponseEntity<CategoryRuleDto>> getRule(@PathVariable Long budgetId, @PathVariable Long ruleId) {
+        return categoryRuleService.getRule(budgetId, ruleId)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping
+    public Flux<CategoryRuleDto> getAllRules(@PathVariable Long budgetId) {
+        return categoryRuleService.getAllRulesForBudget(budgetId);
+    }
+
+    @PutMapping("/{ruleId}")
+    public Mono<ResponseEntity<CategoryRuleDto>> updateRule(
+        @PathVariable Long budgetId, @PathVariable Long ruleId, @Valid @RequestBody CategoryRuleDto categoryRuleDto) {
+        if (ruleId == null || ruleId <= 0) {
+            throw new InvalidPathVariableException(INVALID_CATEGORY_RULE_ID + ruleId);
+        }
+        categoryRuleDto.setBudgetId(budgetId);
+        return categoryRuleService.updateRule(budgetId, ruleId, categoryRuleDto)
+            .map(ResponseEntity::ok)
+            .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{ruleId}")
+    public Mono<ResponseEntity<Void>> deleteRule(@PathVariable Long budgetId, @PathVariable Long ruleId) {
+        if (ruleId == null || ruleId <= 0) {
+            throw new InvalidPathVariableException(INVALID_CATEGORY_RULE_ID + ": " + ruleId);
+        }
+        return categoryRuleService.deleteRule(budgetId, ruleId)
+            .then(Mono.just(new ResponseEntity<Void>(HttpStatus.NO_CONTENT)))
+            .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PostMapping("/import")
+    public Mono<ResponseEntity<Long>> importRules(
+        @PathVariable Long budgetId, @RequestPart("file") FilePart filePart) {
+        log.debug("category rule import for budgetId " + budgetId);
+        return categoryRuleService.importRules(budgetId, filePart)
+            .map(count -> new ResponseEntity<>(count, HttpStatus.CREATED));
+    }
+}
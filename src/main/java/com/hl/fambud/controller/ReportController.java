@@ -0,0 +1,117 @@
+package com.hl.fambud.controller;
+
+import com.hl.fambud.dto.reporting.AmountDistributionDto;
+import com.hl.fambud.dto.reporting.AnomalyDto;
+import com.hl.fambud.dto.reporting.CashFlowDto;
+import com.hl.fambud.dto.reporting.CrossTabReportDto;
+import com.hl.fambud.dto.reporting.MonthForecastDto;
+import com.hl.fambud.dto.reporting.TopMerchantsDto;
+import com.hl.fambud.exception.InvalidPathVariableException;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.service.ReportService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.hl.fambud.util.BudgetUtil.INVALID_BUDGET_ID;
+
+@RestController
+@AllArgsConstructor
+@Slf4j
+@RequestMapping("${app.base-url}/{budgetId}/reports")
+public class ReportController {
+
+    private final ReportService reportService;
+
+    @GetMapping("/transactors-by-category")
+    public Mono<ResponseEntity<CrossTabReportDto>> getTransactorCategoryCrossTab(
+        @PathVariable Long budgetId,
+        @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate,
+        @RequestParam(value = "type", defaultValue = "EXPENSE") TransactionType type) {
+        checkBudgetId(budgetId);
+        log.info("getting transactor category cross tab " + budgetId + " " + startDate + " " + endDate + " " + type);
+        return reportService.getTransactorCategoryCrossTab(budgetId, startDate, endDate, type)
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/top-merchants")
+    public Mono<ResponseEntity<TopMerchantsDto>> getTopMerchants(
+        @PathVariable Long budgetId,
+        @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate,
+        @RequestParam(value = "type", defaultValue = "EXPENSE") TransactionType type,
+        @RequestParam(value = "limit", defaultValue = "20") int limit,
+        @RequestParam(value = "exact", defaultValue = "false") boolean exact) {
+        checkBudgetId(budgetId);
+        log.info("getting top merchants " + budgetId + " " + startDate + " " + endDate + " " + type + " " + limit
+            + " " + exact);
+        return reportService.getTopMerchants(budgetId, startDate, endDate, type, limit, exact)
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/amount-distribution")
+    public Mono<ResponseEntity<AmountDistributionDto>> getAmountDistribution(
+        @PathVariable Long budgetId,
+        @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate,
+        @RequestParam(value = "type", defaultValue = "EXPENSE") TransactionType type) {
+        checkBudgetId(budgetId);
+        log.info("getting amount distribution " + budgetId + " " + startDate + " " + endDate + " " + type);
+        return reportService.getAmountDistribution(budgetId, startDate, endDate, type)
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/cash-flow")
+    public Mono<ResponseEntity<CashFlowDto>> getCashFlow(
+        @PathVariable Long budgetId,
+        @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate,
+        @RequestParam(value = "openingBalance", required = false) BigDecimal openingBalance) {
+        checkBudgetId(budgetId);
+        log.info("getting cash flow " + budgetId + " " + startDate + " " + endDate + " " + openingBalance);
+        return reportService.getCashFlow(budgetId, startDate, endDate, openingBalance)
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/anomalies")
+    public Mono<ResponseEntity<List<AnomalyDto>>> getAnomalies(
+        @PathVariable Long budgetId,
+        @RequestParam("startDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate startDate,
+        @RequestParam("endDate") @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate endDate,
+        @RequestParam(value = "threshold", defaultValue = "3") double threshold) {
+        checkBudgetId(budgetId);
+        log.info("getting anomalies " + budgetId + " " + startDate + " " + endDate + " " + threshold);
+        return reportService.getAnomalies(budgetId, startDate, endDate, threshold)
+            .map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/forecast")
+    public Mono<ResponseEntity<MonthForecastDto>> getMonthForecast(
+        @PathVariable Long budgetId,
+        @RequestParam(value = "asOfDate", required = false) @DateTimeFormat(pattern = "dd-MM-yyyy")
+        LocalDate asOfDate) {
+        checkBudgetId(budgetId);
+        LocalDate forecastDate = asOfDate == null ? LocalDate.now() : asOfDate;
+        log.info("getting month forecast " + budgetId + " " + forecastDate);
+        return reportService.getMonthForecast(budgetId, forecastDate)
+            .map(ResponseEntity::ok);
+    }
+
+    private static void checkBudgetId(Long budgetId) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package com.hl.fambud.controller;
 
+import com.hl.fambud.dto.CategorisationJobDto;
+import com.hl.fambud.dto.CategorisationSimulationDto;
+import com.hl.fambud.dto.CategoryRuleDto;
+import com.hl.fambud.dto.CategorySuggestionDto;
+import com.hl.fambud.dto.ImportOptionsDto;
 import com.hl.fambud.dto.TransactionDto;
 import com.hl.fambud.exception.InvalidPathVariableException;
+import com.hl.fambud.service.CategorisationJobService;
 import com.hl.fambud.service.TransactionCategoriser;
 import com.hl.fambud.service.TransactionService;
 import jakarta.validation.Valid;
@@ -14,6 +20,8 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import static com.hl.fambud.util.BudgetUtil.INVALID_BUDGET_ID;
 import static com.hl.fambud.util.BudgetUtil.INVALID_TRANSACTION_ID;
 
@@ -27,6 +35,8 @@ public class TransactionController {
 
     private final TransactionCategoriser transactionCategoriser;
 
+    private final CategorisationJobService categorisationJobService;
+
     @PostMapping
     public Mono<ResponseEntity<TransactionDto>> createTransaction(
         @PathVariable Long budgetId, @Valid @RequestBody TransactionDto transactionDto) {
@@ -43,6 +53,31 @@ public class TransactionController {
             .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
+    // Suggest categories for a transaction from the budget's categorised transactions
+    @GetMapping("/{transactionId}/category-suggestions")
+    public Mono<ResponseEntity<List<CategorySuggestionDto>>> suggestTransactionCategories(
+        @PathVariable Long budgetId, @PathVariable Long transactionId, @RequestParam(defaultValue = "5") int limit) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        if (transactionId == null || transactionId <= 0) {
+            throw new InvalidPathVariableException(INVALID_TRANSACTION_ID + transactionId);
+        }
+        return transactionService.suggestCategories(budgetId, transactionId, limit)
+            .map(ResponseEntity::ok);
+    }
+
+    // Suggest categories for a description that has not been saved as a transaction yet
+    @GetMapping("/category-suggestions")
+    public Mono<ResponseEntity<List<CategorySuggestionDto>>> suggestCategories(
+        @PathVariable Long budgetId, @RequestParam String description, @RequestParam(defaultValue = "5") int limit) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        return transactionService.suggestCategories(budgetId, description, limit)
+            .map(ResponseEntity::ok);
+    }
+
     // Get all transactions
     @GetMapping
     public Flux<TransactionDto> getAllTransactions() {
@@ -74,25 +109,74 @@ public class TransactionController {
 
     @PostMapping(value = "/import")
     public Mono<ResponseEntity<String>> startCsvImport(
-        @PathVariable Long budgetId, @RequestPart("file") FilePart filePart) {
-        log.debug("file import for budgetId " + budgetId);
-        return transactionService.startCsvImport(budgetId, filePart)
+        @PathVariable Long budgetId, @RequestPart("file") FilePart filePart,
+        @RequestParam(defaultValue = "false") boolean categorise, @RequestParam(defaultValue = "false") boolean fuzzy,
+        @RequestParam(defaultValue = "2") int dateToleranceDays) {
+        log.debug("file import for budgetId " + budgetId + " categorise " + categorise + " fuzzy " + fuzzy);
+        ImportOptionsDto importOptions = ImportOptionsDto.builder()
+            .categorise(categorise)
+            .fuzzy(fuzzy)
+            .dateToleranceDays(dateToleranceDays)
+            .build();
+        return transactionService.startCsvImport(budgetId, filePart, importOptions)
             .map(importJobId -> new ResponseEntity<>(importJobId, HttpStatus.ACCEPTED))
             .onErrorResume(e -> Mono.just(new ResponseEntity<>("Failed to initiate import", HttpStatus.BAD_REQUEST)));
     }
 
+    // Start categorising the budget's transactions in the background
     @PutMapping("/categories")
-    public Mono<ResponseEntity<Void>> updateTransactionCategories(@PathVariable Long budgetId) {
-        log.debug("Updating categories for transactions under budgetId: {}", budgetId);
+    public Mono<ResponseEntity<CategorisationJobDto>> updateTransactionCategories(
+        @PathVariable Long budgetId, @RequestParam(defaultValue = "false") boolean full) {
+        log.debug("Updating categories for transactions under budgetId: {} full: {}", budgetId, full);
         if (budgetId == null || budgetId <= 0) {
             log.error("invalid budget id " + budgetId);
             throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
         }
-        return transactionCategoriser.categorise(budgetId)
-            .then(Mono.just(new ResponseEntity<Void>(HttpStatus.OK)))
+        return categorisationJobService.startJob(budgetId, full)
+            .map(categorisationJobDto -> new ResponseEntity<>(categorisationJobDto, HttpStatus.ACCEPTED))
             .onErrorResume(e -> {
-                log.error("Failed to update categories for transactions under budgetId: {}", budgetId, e);
+                log.error("Failed to start categorising transactions under budgetId: {}", budgetId, e);
                 return Mono.just(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
             });
     }
+
+    // Get the progress of a categorisation job
+    @GetMapping("/categories/jobs/{jobId}")
+    public Mono<ResponseEntity<CategorisationJobDto>> getCategorisationJob(
+        @PathVariable Long budgetId, @PathVariable String jobId) {
+        return categorisationJobService.getJob(budgetId, jobId)
+            .map(ResponseEntity::ok);
+    }
+
+    // Cancel a queued or running categorisation job
+    @DeleteMapping("/categories/jobs/{jobId}")
+    public Mono<ResponseEntity<CategorisationJobDto>> cancelCategorisationJob(
+        @PathVariable Long budgetId, @PathVariable String jobId) {
+        return categorisationJobService.cancelJob(budgetId, jobId)
+            .map(ResponseEntity::ok);
+    }
+
+    // Preview what categorising with the budget's current rules would do
+    @GetMapping("/categories/simulation")
+    public Mono<ResponseEntity<CategorisationSimulationDto>> simulateCategorisation(
+        @PathVariable Long budgetId, @RequestParam(defaultValue = "20") int limit) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        return transactionCategoriser.simulate(budgetId, null, limit)
+            .map(ResponseEntity::ok);
+    }
+
+    // Preview what categorising with proposed rules, instead of the current ones, would do
+    @PostMapping("/categories/simulation")
+    public Mono<ResponseEntity<CategorisationSimulationDto>> simulateCategorisation(
+        @PathVariable Long budgetId, @RequestParam(defaultValue = "20") int limit,
+        @RequestBody List<@Valid CategoryRuleDto> proposedRuleDtos) {
+        if (budgetId == null || budgetId <= 0) {
+            throw new InvalidPathVariableException(INVALID_BUDGET_ID + budgetId);
+        }
+        proposedRuleDtos.forEach(categoryRuleDto -> categoryRuleDto.setBudgetId(budgetId));
+        return transactionCategoriser.simulate(budgetId, proposedRuleDtos, limit)
+            .map(ResponseEntity::ok);
+    }
 }
@@ -0,0 +1,42 @@
+package com.hl.fambud.dto;
+
+import com.hl.fambud.model.CategorisationJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CategorisationJobDto {
+
+    private String jobId;
+
+    private Long budgetId;
+
+    private Boolean fullRun;
+
+    private CategorisationJobStatus status;
+
+    // transactions evaluated against the rules
+    private Long processed;
+
+    // transactions a rule assigned a different category to
+    private Long matched;
+
+    // matched transactions whose new category was committed
+    private Long written;
+
+    // matched transactions whose new category could not be committed
+    private Long failed;
+
+    private String error;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
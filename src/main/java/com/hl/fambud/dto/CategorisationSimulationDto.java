@@ -0,0 +1,35 @@
+package com.hl.fambud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CategorisationSimulationDto {
+
+    private Long budgetId;
+
+    private Long processed;
+
+    // transactions any rule matches
+    private Long matched;
+
+    // matched transactions a full run would move to another category
+    private Long changed;
+
+    // changed transactions that are uncategorised today, the ones an incremental run would categorise
+    private Long newlyCategorised;
+
+    private Long unmatched;
+
+    private List<RuleHitDto> ruleHits;
+
+    // the most frequent descriptions no rule matches, with digits stripped so that they group by merchant
+    private List<DescriptionCountDto> topUnmatched;
+}
@@ -1,12 +1,16 @@
 package com.hl.fambud.dto;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -20,4 +24,8 @@ public class CategoryDto {
     @NotBlank
     @Size(max = 200)
     private String name;
+
+    @Positive
+    @Digits(integer = 13, fraction = 2)
+    private BigDecimal monthlyLimit;
 }
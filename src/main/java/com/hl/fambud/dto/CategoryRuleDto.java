@@ -0,0 +1,27 @@
+package com.hl.fambud.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CategoryRuleDto {
+
+    private Long ruleId;
+
+    private Long budgetId;
+
+    @NotNull
+    private Long categoryId;
+
+    @NotBlank
+    @Size(max = 200)
+    private String keyword;
+}
@@ -0,0 +1,18 @@
+package com.hl.fambud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CategorySuggestionDto {
+
+    private Long categoryId;
+
+    // share of the description's evidence pointing at the category, between 0 and 1
+    private double score;
+}
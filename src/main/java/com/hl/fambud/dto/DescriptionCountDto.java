@@ -0,0 +1,20 @@
+package com.hl.fambud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DescriptionCountDto {
+
+    private String description;
+
+    private Long count;
+
+    // the count may exceed the true number of transactions by up to this much
+    private Long maxOverCount;
+}
@@ -0,0 +1,23 @@
+package com.hl.fambud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportOptionsDto {
+
+    // apply the budget's category rules to the imported transactions
+    private boolean categorise;
+
+    // also skip transactions that are probably already in the budget under a slightly different description
+    private boolean fuzzy;
+
+    // how many days apart the dates of near duplicates may be
+    @Builder.Default
+    private int dateToleranceDays = 2;
+}
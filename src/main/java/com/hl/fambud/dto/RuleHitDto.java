@@ -0,0 +1,22 @@
+package com.hl.fambud.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RuleHitDto {
+
+    private Long ruleId;
+
+    private Long categoryId;
+
+    private String keyword;
+
+    // transactions the rule was the preferred match for
+    private Long hits;
+}
@@ -1,6 +1,7 @@
 package com.hl.fambud.dto;
 
 import com.hl.fambud.model.TransactionType;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -31,6 +32,7 @@ public class TransactionDto {
     private String description;
 
     @NotNull
+    @Digits(integer = 13, fraction = 2)
     private BigDecimal amount;
 
     @NotNull
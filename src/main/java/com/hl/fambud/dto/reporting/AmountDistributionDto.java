@@ -0,0 +1,24 @@
+package com.hl.fambud.dto.reporting;
+
+import com.hl.fambud.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AmountDistributionDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private TransactionType type;
+    // quantiles are within this fraction of the true amounts
+    private double relativeAccuracy;
+    private List<CategoryAmountDistributionDto> categories;
+}
@@ -0,0 +1,20 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AmountHistogramBinDto {
+
+    private BigDecimal lowerBound;
+    // null for the last bin
+    private BigDecimal upperBound;
+    private Long count;
+}
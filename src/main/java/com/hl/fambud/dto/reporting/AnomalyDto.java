@@ -0,0 +1,30 @@
+package com.hl.fambud.dto.reporting;
+
+import com.hl.fambud.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnomalyDto {
+
+    private Long transactionId;
+    private LocalDate date;
+    private String description;
+    private TransactionType type;
+    private BigDecimal amount;
+    private Long categoryId;
+    private String categoryName;
+    private BigDecimal categoryMean;
+    private BigDecimal categoryStandardDeviation;
+    private Long categoryTransactionCount;
+    // standard deviations from the category mean
+    private BigDecimal zScore;
+}
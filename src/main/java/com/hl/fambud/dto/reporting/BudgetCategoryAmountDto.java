@@ -0,0 +1,20 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BudgetCategoryAmountDto {
+
+    private Long budgetId;
+    private Long categoryId;
+    private BigDecimal amount;
+    private Long transactionCount;
+}
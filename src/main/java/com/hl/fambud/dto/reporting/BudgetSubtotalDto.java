@@ -0,0 +1,21 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BudgetSubtotalDto {
+
+    private Long budgetId;
+    private String budgetName;
+    private BigDecimal totalExpenses;
+    private BigDecimal totalIncome;
+    private BigDecimal surplus;
+}
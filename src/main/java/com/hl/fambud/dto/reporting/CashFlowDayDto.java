@@ -0,0 +1,23 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CashFlowDayDto {
+
+    private LocalDate date;
+    private BigDecimal income;
+    private BigDecimal expenses;
+    private BigDecimal netFlow;
+    // at the end of the day
+    private BigDecimal balance;
+}
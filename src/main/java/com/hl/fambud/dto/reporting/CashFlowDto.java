@@ -0,0 +1,27 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CashFlowDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal openingBalance;
+    private BigDecimal closingBalance;
+    private BigDecimal totalIncome;
+    private BigDecimal totalExpenses;
+    private BigDecimal netFlow;
+    // days with transactions only, the balance is unchanged in between
+    private List<CashFlowDayDto> days;
+}
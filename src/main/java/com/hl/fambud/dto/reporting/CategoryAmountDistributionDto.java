@@ -0,0 +1,24 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryAmountDistributionDto {
+
+    private Long categoryId;
+    private String name;
+    private Long transactionCount;
+    private BigDecimal p50;
+    private BigDecimal p90;
+    private BigDecimal p99;
+    private List<AmountHistogramBinDto> histogram;
+}
@@ -0,0 +1,29 @@
+package com.hl.fambud.dto.reporting;
+
+import com.hl.fambud.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryComparisonDto {
+
+    private Long categoryId;
+    private String categoryName;
+    private TransactionType type;
+    private BigDecimal amount;
+    private BigDecimal previousPeriodAmount;
+    private BigDecimal previousPeriodChange;
+    // null when the previous period amount is zero
+    private BigDecimal previousPeriodChangePercent;
+    private BigDecimal lastYearAmount;
+    private BigDecimal lastYearChange;
+    // null when the last year amount is zero
+    private BigDecimal lastYearChangePercent;
+}
@@ -0,0 +1,25 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryForecastDto {
+
+    private Long categoryId;
+    private String categoryName;
+    private BigDecimal monthToDate;
+    // typically spent over the rest of the month in the months of the history
+    private BigDecimal historicalRemaining;
+    // recurring payments expected over the rest of the month
+    private BigDecimal recurringRemaining;
+    private BigDecimal projectedRemaining;
+    private BigDecimal projectedTotal;
+}
@@ -0,0 +1,25 @@
+package com.hl.fambud.dto.reporting;
+
+import com.hl.fambud.model.LimitStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryLimitDto {
+
+    private Long categoryId;
+    private String categoryName;
+    private BigDecimal monthlyLimit;
+    private BigDecimal spent;
+    // negative once the limit is exceeded
+    private BigDecimal remaining;
+    private BigDecimal percentUsed;
+    private LimitStatus status;
+}
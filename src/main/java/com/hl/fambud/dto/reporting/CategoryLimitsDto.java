@@ -0,0 +1,21 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CategoryLimitsDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    // categories with a monthly limit only, the most used first
+    private List<CategoryLimitDto> categories;
+}
@@ -14,4 +14,5 @@ public class CategorySummaryDto {
     private Long categoryId;
     private String categoryName;
     private BigDecimal amount;
+    private Long transactionCount;
 }
@@ -0,0 +1,21 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConsolidatedCategoryDto {
+
+    private String categoryName;
+    private BigDecimal amount;
+    private Long transactionCount;
+    private List<BudgetCategoryAmountDto> budgets;
+}
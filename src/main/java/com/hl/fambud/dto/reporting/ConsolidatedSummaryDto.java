@@ -0,0 +1,26 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConsolidatedSummaryDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal totalExpenses;
+    private BigDecimal totalIncome;
+    private BigDecimal surplus;
+    private List<ConsolidatedCategoryDto> expenseCategories;
+    private List<ConsolidatedCategoryDto> incomeCategories;
+    private List<BudgetSubtotalDto> budgets;
+}
@@ -0,0 +1,35 @@
+package com.hl.fambud.dto.reporting;
+
+import com.hl.fambud.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Totals of transactions with transactors as rows and categories as columns. Cells are indexed by row then column.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CrossTabReportDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private TransactionType type;
+    private List<ReportLabelDto> rows;
+    private List<ReportLabelDto> columns;
+    private List<List<BigDecimal>> amounts;
+    private List<List<Long>> counts;
+    private List<BigDecimal> rowAmounts;
+    private List<Long> rowCounts;
+    private List<BigDecimal> columnAmounts;
+    private List<Long> columnCounts;
+    private BigDecimal totalAmount;
+    private Long totalCount;
+}
@@ -0,0 +1,22 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MerchantSpendDto {
+
+    private String merchant;
+
+    private BigDecimal amount;
+
+    // the amount may exceed the true amount by up to this much
+    private BigDecimal maxOverAmount;
+}
@@ -0,0 +1,29 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MonthForecastDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private LocalDate asOfDate;
+    // null when the budget has no expenses before the month
+    private LocalDate historyStartDate;
+    private Integer historyMonths;
+    private BigDecimal monthToDate;
+    private BigDecimal projectedRemaining;
+    private BigDecimal projectedTotal;
+    private List<CategoryForecastDto> categories;
+    private List<RecurringTransactionDto> upcomingRecurring;
+}
@@ -0,0 +1,19 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PeriodComparisonDto {
+
+    private PeriodSummaryDto previousPeriod;
+    private PeriodSummaryDto lastYear;
+    private List<CategoryComparisonDto> categories;
+}
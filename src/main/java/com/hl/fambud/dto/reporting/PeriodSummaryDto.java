@@ -22,4 +22,6 @@ public class PeriodSummaryDto {
     private BigDecimal surplus;
     private List<CategorySummaryDto> expenseCategories;
     private List<CategorySummaryDto> incomeCategories;
+    // only when a comparison was requested
+    private PeriodComparisonDto comparison;
 }
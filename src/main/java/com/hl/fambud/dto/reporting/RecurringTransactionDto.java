@@ -0,0 +1,27 @@
+package com.hl.fambud.dto.reporting;
+
+import com.hl.fambud.model.RecurrencePeriod;
+import com.hl.fambud.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecurringTransactionDto {
+
+    private String merchant;
+    private TransactionType type;
+    private Long categoryId;
+    private RecurrencePeriod period;
+    private BigDecimal typicalAmount;
+    private Long occurrences;
+    private LocalDate lastDate;
+    private LocalDate nextExpectedDate;
+}
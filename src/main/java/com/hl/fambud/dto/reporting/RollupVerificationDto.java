@@ -0,0 +1,22 @@
+package com.hl.fambud.dto.reporting;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RollupVerificationDto {
+
+    private Long budgetId;
+    private boolean consistent;
+    private int rollupRows;
+    private int expectedRows;
+    private List<LocalDate> mismatchedDays;
+}
@@ -0,0 +1,28 @@
+package com.hl.fambud.dto.reporting;
+
+import com.hl.fambud.dto.DescriptionCountDto;
+import com.hl.fambud.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopMerchantsDto {
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private TransactionType type;
+    private boolean exact;
+    private Long transactionCount;
+    private BigDecimal totalAmount;
+    private List<MerchantSpendDto> bySpend;
+    private List<DescriptionCountDto> byFrequency;
+}
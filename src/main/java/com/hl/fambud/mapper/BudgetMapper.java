@@ -1,10 +1,14 @@
 package com.hl.fambud.mapper;
 
 import com.hl.fambud.dto.BudgetDto;
+import com.hl.fambud.dto.CategorisationJobDto;
 import com.hl.fambud.dto.CategoryDto;
+import com.hl.fambud.dto.CategoryRuleDto;
 import com.hl.fambud.dto.TransactionDto;
 import com.hl.fambud.model.Budget;
+import com.hl.fambud.model.CategorisationJob;
 import com.hl.fambud.model.Category;
+import com.hl.fambud.model.CategoryRule;
 import com.hl.fambud.model.Transaction;
 import org.mapstruct.Mapper;
 import org.mapstruct.MappingTarget;
@@ -31,6 +35,14 @@ public interface BudgetMapper {
 
     List<Category> categoryDtoListToCategoryList(List<CategoryDto> list);
 
+    CategoryRuleDto categoryRuleToCategoryRuleDto(CategoryRule categoryRule);
+
+    CategoryRule toCategoryRule(CategoryRuleDto categoryRuleDto);
+
+    void updateCategoryRuleFromDto(CategoryRuleDto categoryRuleDto, @MappingTarget CategoryRule categoryRule);
+
+    CategorisationJobDto categorisationJobToCategorisationJobDto(CategorisationJob categorisationJob);
+
     TransactionDto transactionToTransactionDto(Transaction transaction);
 
     Transaction toTransaction(TransactionDto transactionDto);
@@ -0,0 +1,47 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "categorisation_jobs")
+public class CategorisationJob {
+
+    @Id
+    private String jobId;
+
+    private Long budgetId;
+
+    private Boolean fullRun;
+
+    private CategorisationJobStatus status;
+
+    private Long processed;
+
+    private Long matched;
+
+    private Long written;
+
+    private Long failed;
+
+    private String error;
+
+    private Boolean cancelRequested;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private Long activeBudgetId;
+
+    private LocalDateTime heartbeatAt;
+}
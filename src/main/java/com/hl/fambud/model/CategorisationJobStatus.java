@@ -0,0 +1,9 @@
+package com.hl.fambud.model;
+
+public enum CategorisationJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -10,6 +10,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
 
+import java.math.BigDecimal;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -25,4 +27,7 @@ public class Category {
     private Long budgetId;
 
     private String name;
+
+    // expenses per month above which the category is over its limit, none when null
+    private BigDecimal monthlyLimit;
 }
@@ -0,0 +1,23 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Number of a budget's transactions of one category whose amounts fall in one bucket of an
+ * {@link com.hl.fambud.util.AmountSketch}, as aggregated by the database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryAmountBucket {
+
+    private Long categoryId;
+
+    private Integer bucket;
+
+    private Long transactionCount;
+}
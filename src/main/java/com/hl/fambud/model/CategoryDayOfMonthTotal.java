@@ -0,0 +1,27 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Total amount in cents of a budget's expenses of one category on one day of the month, over the months of a
+ * forecast's history, or month to date for day 0, as aggregated by the database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryDayOfMonthTotal {
+
+    private Long categoryId;
+
+    private Integer dayOfMonth;
+
+    private Long amountCents;
+
+    private LocalDate firstDate;
+}
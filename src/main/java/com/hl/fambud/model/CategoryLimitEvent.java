@@ -0,0 +1,36 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Published when a committed write takes a category's expenses in the current month closer to or over its monthly
+ * limit than before.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryLimitEvent {
+
+    private Long budgetId;
+
+    private Long categoryId;
+
+    private String categoryName;
+
+    private LocalDate monthStart;
+
+    private BigDecimal monthlyLimit;
+
+    private BigDecimal spent;
+
+    private LimitStatus previousStatus;
+
+    private LimitStatus status;
+}
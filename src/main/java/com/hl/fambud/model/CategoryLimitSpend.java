@@ -0,0 +1,26 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Monthly limit of a budget's category and its expenses in cents in one month, as read for checking the limit.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryLimitSpend {
+
+    private Long categoryId;
+
+    private String name;
+
+    private BigDecimal monthlyLimit;
+
+    private Long amountCents;
+}
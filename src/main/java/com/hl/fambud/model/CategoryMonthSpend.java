@@ -0,0 +1,31 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Total amount in cents and number of a budget's expenses of one category in the month starting on the month start
+ * date, as kept for checking spending limits. Also used for changes to such a total.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "category_month_spend")
+public class CategoryMonthSpend {
+
+    private Long budgetId;
+
+    private LocalDate monthStart;
+
+    private Long categoryId;
+
+    private Long amountCents;
+
+    private Long txCount;
+}
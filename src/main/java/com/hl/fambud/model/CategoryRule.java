@@ -0,0 +1,30 @@
+package com.hl.fambud.model;
+
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.SequenceGenerator;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "category_rules")
+public class CategoryRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "category_rule_sequence")
+    @SequenceGenerator(name = "category_rule_sequence", sequenceName = "category_rule_sequence", allocationSize = 1)
+    private Long ruleId;
+
+    private Long budgetId;
+
+    private Long categoryId;
+
+    private String keyword;
+}
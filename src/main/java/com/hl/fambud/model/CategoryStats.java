@@ -0,0 +1,29 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Table;
+
+/**
+ * Running statistics of the amounts in cents of a budget's transactions of one category, as persisted from a
+ * {@link com.hl.fambud.util.RunningStats}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "category_stats")
+public class CategoryStats {
+
+    private Long budgetId;
+
+    private Long categoryId;
+
+    private Long txCount;
+
+    private Double meanCents;
+
+    private Double m2;
+}
@@ -0,0 +1,25 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total amount in cents and number of a budget's transactions of one category and type, as aggregated by the
+ * database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryTypeTotal {
+
+    private Long categoryId;
+
+    private TransactionType type;
+
+    private Long amountCents;
+
+    private Long transactionCount;
+}
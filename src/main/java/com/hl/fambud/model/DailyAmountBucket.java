@@ -0,0 +1,33 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Number of a budget's categorised transactions of one type on one day whose amounts fall in one bucket of an
+ * {@link com.hl.fambud.util.AmountSketch}, as kept in the daily rollup. Also used for changes to such a count.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "daily_category_amount_buckets")
+public class DailyAmountBucket {
+
+    private Long budgetId;
+
+    private LocalDate date;
+
+    private Long categoryId;
+
+    private TransactionType type;
+
+    private Integer bucket;
+
+    private Long txCount;
+}
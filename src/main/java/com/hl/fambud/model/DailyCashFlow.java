@@ -0,0 +1,24 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Income and expenses in cents of a budget's transactions on one day, as aggregated by the database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyCashFlow {
+
+    private LocalDate date;
+
+    private Long incomeCents;
+
+    private Long expenseCents;
+}
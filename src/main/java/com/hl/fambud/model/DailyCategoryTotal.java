@@ -0,0 +1,33 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * Total amount in cents and number of a budget's categorised transactions of one type on one day, as kept in the
+ * daily rollup. Also used for changes to such a total.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "daily_category_totals")
+public class DailyCategoryTotal {
+
+    private Long budgetId;
+
+    private LocalDate date;
+
+    private Long categoryId;
+
+    private TransactionType type;
+
+    private Long amountCents;
+
+    private Long txCount;
+}
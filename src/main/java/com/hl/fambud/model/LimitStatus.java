@@ -0,0 +1,7 @@
+package com.hl.fambud.model;
+
+public enum LimitStatus {
+    UNDER,
+    APPROACHING,
+    EXCEEDED
+}
@@ -0,0 +1,27 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total amount in cents and number of a budget's transactions of one category and type in one of several compared
+ * periods, identified by its index, as aggregated by the database.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PeriodCategoryTypeTotal {
+
+    private Integer period;
+
+    private Long categoryId;
+
+    private TransactionType type;
+
+    private Long amountCents;
+
+    private Long transactionCount;
+}
@@ -0,0 +1,42 @@
+package com.hl.fambud.model;
+
+import java.time.LocalDate;
+
+public enum RecurrencePeriod {
+    WEEKLY(7, 1),
+    FORTNIGHTLY(14, 2),
+    MONTHLY(30, 3),
+    QUARTERLY(91, 7),
+    YEARLY(365, 10);
+
+    private final int days;
+    // banks shift payments around weekends and months differ in length
+    private final int toleranceDays;
+
+    RecurrencePeriod(int days, int toleranceDays) {
+        this.days = days;
+        this.toleranceDays = toleranceDays;
+    }
+
+    public boolean matches(long intervalDays) {
+        return Math.abs(intervalDays - days) <= toleranceDays;
+    }
+
+    public LocalDate next(LocalDate date) {
+        return switch (this) {
+            case WEEKLY -> date.plusWeeks(1);
+            case FORTNIGHTLY -> date.plusWeeks(2);
+            case MONTHLY -> date.plusMonths(1);
+            case QUARTERLY -> date.plusMonths(3);
+            case YEARLY -> date.plusYears(1);
+        };
+    }
+
+    public static RecurrencePeriod of(long intervalDays) {
+        for (RecurrencePeriod period : values()) {
+            if (period.matches(intervalDays))
+                return period;
+        }
+        return null;
+    }
+}
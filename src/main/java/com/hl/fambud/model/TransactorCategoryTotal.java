@@ -0,0 +1,25 @@
+package com.hl.fambud.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Total amount in cents and number of a budget's transactions of one transactor and category, as aggregated by the
+ * database. Either id is null for transactions without one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactorCategoryTotal {
+
+    private Long transactorId;
+
+    private Long categoryId;
+
+    private Long amountCents;
+
+    private Long transactionCount;
+}
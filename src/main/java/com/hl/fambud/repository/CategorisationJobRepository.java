@@ -0,0 +1,62 @@
+package com.hl.fambud.repository;
+
+import com.hl.fambud.model.CategorisationJob;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface CategorisationJobRepository extends ReactiveCrudRepository<CategorisationJob, String> {
+
+    /**
+     * Inserts a queued job unless the budget already has an active one, in which case nothing is inserted.
+     */
+    @Modifying
+    @Query("INSERT INTO categorisation_jobs (job_id, budget_id, full_run, status, processed, matched, written, failed, "
+        + "cancel_requested, started_at, active_budget_id, heartbeat_at) "
+        + "VALUES (:jobId, :budgetId, :fullRun, 'QUEUED', 0, 0, 0, 0, FALSE, :startedAt, :budgetId, :startedAt) "
+        + "ON CONFLICT DO NOTHING")
+    Mono<Integer> insertJob(String jobId, Long budgetId, Boolean fullRun, LocalDateTime startedAt);
+
+    Mono<CategorisationJob> findByActiveBudgetId(Long activeBudgetId);
+
+    @Modifying
+    @Query("UPDATE categorisation_jobs SET status = :status, processed = :processed, matched = :matched, "
+        + "written = :written, failed = :failed, heartbeat_at = :heartbeatAt WHERE job_id = :jobId")
+    Mono<Integer> updateProgress(String jobId, String status, Long processed, Long matched, Long written, Long failed,
+                                 LocalDateTime heartbeatAt);
+
+    @Modifying
+    @Query("UPDATE categorisation_jobs SET heartbeat_at = :heartbeatAt WHERE job_id IN (:jobIds)")
+    Mono<Integer> updateHeartbeats(Collection<String> jobIds, LocalDateTime heartbeatAt);
+
+    /**
+     * Fails the queued and running jobs whose instance has not reported them alive since the given time.
+     */
+    @Modifying
+    @Query("UPDATE categorisation_jobs SET status = 'FAILED', error = :error, finished_at = :finishedAt, "
+        + "active_budget_id = NULL WHERE status IN ('QUEUED', 'RUNNING') AND heartbeat_at < :heartbeatBefore")
+    Mono<Integer> failAbandoned(LocalDateTime heartbeatBefore, String error, LocalDateTime finishedAt);
+
+    @Modifying
+    @Query("UPDATE categorisation_jobs SET status = :status, processed = :processed, matched = :matched, "
+        + "written = :written, failed = :failed, error = :error, finished_at = :finishedAt, "
+        + "active_budget_id = NULL WHERE job_id = :jobId")
+    Mono<Integer> finishJob(String jobId, String status, Long processed, Long matched, Long written, Long failed,
+                            String error, LocalDateTime finishedAt);
+
+    @Modifying
+    @Query("UPDATE categorisation_jobs SET cancel_requested = TRUE "
+        + "WHERE job_id = :jobId AND status IN ('QUEUED', 'RUNNING')")
+    Mono<Integer> requestCancel(String jobId);
+
+    @Query("SELECT cancel_requested FROM categorisation_jobs WHERE job_id = :jobId")
+    Mono<Boolean> findCancelRequestedByJobId(String jobId);
+
+    @Modifying
+    @Query("DELETE FROM categorisation_jobs WHERE finished_at < :finishedBefore")
+    Mono<Integer> deleteFinishedBefore(LocalDateTime finishedBefore);
+}
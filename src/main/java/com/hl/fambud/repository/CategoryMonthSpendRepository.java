@@ -0,0 +1,51 @@
+package com.hl.fambud.repository;
+
+import com.hl.fambud.model.CategoryLimitSpend;
+import com.hl.fambud.model.CategoryMonthSpend;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+public interface CategoryMonthSpendRepository extends Repository<CategoryMonthSpend, Long> {
+
+    /**
+     * Returns the budget's categories with a monthly limit and their expenses in the month starting on the date.
+     */
+    @Query("SELECT c.category_id, c.name, c.monthly_limit, COALESCE(s.amount_cents, 0) AS amount_cents "
+        + "FROM categories c LEFT JOIN category_month_spend s ON s.budget_id = c.budget_id "
+        + "AND s.category_id = c.category_id AND s.month_start = :monthStart "
+        + "WHERE c.budget_id = :budgetId AND c.monthly_limit IS NOT NULL")
+    Flux<CategoryLimitSpend> findLimitSpend(Long budgetId, LocalDate monthStart);
+
+    @Query("SELECT * FROM category_month_spend WHERE budget_id = :budgetId AND tx_count <> 0")
+    Flux<CategoryMonthSpend> findByBudgetId(Long budgetId);
+
+    @Modifying
+    @Query("UPDATE category_month_spend SET amount_cents = amount_cents + :amountCents, "
+        + "tx_count = tx_count + :txCount "
+        + "WHERE budget_id = :budgetId AND month_start = :monthStart AND category_id = :categoryId")
+    Mono<Integer> addToSpend(Long budgetId, LocalDate monthStart, Long categoryId, Long amountCents, Long txCount);
+
+    @Modifying
+    @Query("INSERT INTO category_month_spend (budget_id, month_start, category_id, amount_cents, tx_count) "
+        + "VALUES (:budgetId, :monthStart, :categoryId, :amountCents, :txCount) ON CONFLICT DO NOTHING")
+    Mono<Integer> insertSpend(Long budgetId, LocalDate monthStart, Long categoryId, Long amountCents, Long txCount);
+
+    /**
+     * Totals the budget's expenses per month and category from its daily totals.
+     */
+    @Modifying
+    @Query("INSERT INTO category_month_spend (budget_id, month_start, category_id, amount_cents, tx_count) "
+        + "SELECT budget_id, CAST(DATE_TRUNC('month', date) AS DATE), category_id, SUM(amount_cents), "
+        + "SUM(tx_count) FROM daily_category_totals WHERE budget_id = :budgetId AND type = 'EXPENSE' "
+        + "GROUP BY budget_id, CAST(DATE_TRUNC('month', date) AS DATE), category_id")
+    Mono<Integer> insertFromDailyTotals(Long budgetId);
+
+    @Modifying
+    @Query("DELETE FROM category_month_spend WHERE budget_id = :budgetId")
+    Mono<Integer> deleteByBudgetId(Long budgetId);
+}
@@ -0,0 +1,15 @@
+package com.hl.fambud.repository;
+
+import com.hl.fambud.model.CategoryRule;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CategoryRuleRepository extends ReactiveCrudRepository<CategoryRule, Long> {
+
+    Flux<CategoryRule> findByBudgetId(Long budgetId);
+
+    Mono<Void> deleteByBudgetId(Long budgetId);
+
+    Mono<Void> deleteByCategoryId(Long categoryId);
+}
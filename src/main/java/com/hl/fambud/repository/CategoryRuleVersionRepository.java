@@ -0,0 +1,27 @@
+package com.hl.fambud.repository;
+
+import com.hl.fambud.model.CategoryRuleVersion;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CategoryRuleVersionRepository extends ReactiveCrudRepository<CategoryRuleVersion, Long> {
+
+    @Query("SELECT version FROM category_rule_versions WHERE budget_id = :budgetId")
+    Mono<Long> findVersionByBudgetId(Long budgetId);
+
+    @Modifying
+    @Query("UPDATE category_rule_versions SET version = version + 1 WHERE budget_id = :budgetId")
+    Mono<Integer> incrementVersion(Long budgetId);
+
+    @Modifying
+    @Query("INSERT INTO category_rule_versions (budget_id, version) VALUES (:budgetId, 1) ON CONFLICT DO NOTHING")
+    Mono<Integer> insertFirstVersion(Long budgetId);
+
+    @Query("SELECT budget_id FROM budgets WHERE budget_id NOT IN (SELECT budget_id FROM category_rule_versions)")
+    Flux<Long> findUnversionedBudgetIds();
+
+    Mono<Void> deleteByBudgetId(Long budgetId);
+}
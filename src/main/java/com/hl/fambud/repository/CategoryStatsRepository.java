@@ -0,0 +1,42 @@
+package com.hl.fambud.repository;
+
+import com.hl.fambud.model.CategoryStats;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface CategoryStatsRepository extends Repository<CategoryStats, Long> {
+
+    @Query("SELECT * FROM category_stats WHERE budget_id = :budgetId")
+    Flux<CategoryStats> findByBudgetId(Long budgetId);
+
+    @Query("SELECT * FROM category_stats WHERE budget_id = :budgetId AND category_id = :categoryId FOR UPDATE")
+    Mono<CategoryStats> findForUpdate(Long budgetId, Long categoryId);
+
+    @Modifying
+    @Query("UPDATE category_stats SET tx_count = :txCount, mean_cents = :meanCents, m2 = :m2 "
+        + "WHERE budget_id = :budgetId AND category_id = :categoryId")
+    Mono<Integer> updateStats(Long budgetId, Long categoryId, Long txCount, Double meanCents, Double m2);
+
+    @Modifying
+    @Query("INSERT INTO category_stats (budget_id, category_id, tx_count, mean_cents, m2) "
+        + "VALUES (:budgetId, :categoryId, :txCount, :meanCents, :m2)")
+    Mono<Integer> insertStats(Long budgetId, Long categoryId, Long txCount, Double meanCents, Double m2);
+
+    /**
+     * Computes the statistics of the budget's categorised income and expenses from its transactions.
+     */
+    @Modifying
+    @Query("INSERT INTO category_stats (budget_id, category_id, tx_count, mean_cents, m2) "
+        + "SELECT budget_id, category_id, COUNT(*), CAST(AVG(amount * 100) AS DOUBLE PRECISION), "
+        + "CAST(COALESCE(VAR_POP(amount * 100), 0) * COUNT(*) AS DOUBLE PRECISION) "
+        + "FROM transactions WHERE budget_id = :budgetId AND category_id IS NOT NULL "
+        + "AND type IN ('EXPENSE', 'INCOME') GROUP BY budget_id, category_id")
+    Mono<Integer> insertFromTransactions(Long budgetId);
+
+    @Modifying
+    @Query("DELETE FROM category_stats WHERE budget_id = :budgetId")
+    Mono<Integer> deleteByBudgetId(Long budgetId);
+}
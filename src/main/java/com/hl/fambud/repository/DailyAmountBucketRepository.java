@@ -0,0 +1,47 @@
+package com.hl.fambud.repository;
+
+import com.hl.fambud.model.CategoryAmountBucket;
+import com.hl.fambud.model.DailyAmountBucket;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+public interface DailyAmountBucketRepository extends Repository<DailyAmountBucket, Long> {
+
+    @Query("SELECT category_id, bucket, SUM(tx_count) AS transaction_count FROM daily_category_amount_buckets "
+        + "WHERE budget_id = :budgetId AND date BETWEEN :startDate AND :endDate AND type = :type "
+        + "GROUP BY category_id, bucket HAVING SUM(tx_count) > 0")
+    Flux<CategoryAmountBucket> sumByCategoryAndBucket(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                                      String type);
+
+    @Query("SELECT * FROM daily_category_amount_buckets WHERE budget_id = :budgetId AND tx_count <> 0")
+    Flux<DailyAmountBucket> findByBudgetId(Long budgetId);
+
+    @Modifying
+    @Query("UPDATE daily_category_amount_buckets SET tx_count = tx_count + :txCount "
+        + "WHERE budget_id = :budgetId AND date = :date AND category_id = :categoryId AND type = :type "
+        + "AND bucket = :bucket")
+    Mono<Integer> addToCount(Long budgetId, LocalDate date, Long categoryId, String type, Integer bucket,
+                             Long txCount);
+
+    @Modifying
+    @Query("INSERT INTO daily_category_amount_buckets (budget_id, date, category_id, type, bucket, tx_count) "
+        + "VALUES (:budgetId, :date, :categoryId, :type, :bucket, :txCount) ON CONFLICT DO NOTHING")
+    Mono<Integer> insertCount(Long budgetId, LocalDate date, Long categoryId, String type, Integer bucket,
+                              Long txCount);
+
+    @Modifying
+    @Query("DELETE FROM daily_category_amount_buckets WHERE budget_id = :budgetId")
+    Mono<Integer> deleteByBudgetId(Long budgetId);
+
+    @Query("SELECT budget_id FROM daily_category_amount_bucket_backfills")
+    Flux<Long> findBackfillBudgetIds();
+
+    @Modifying
+    @Query("DELETE FROM daily_category_amount_bucket_backfills WHERE budget_id = :budgetId")
+    Mono<Integer> deleteBackfill(Long budgetId);
+}
@@ -0,0 +1,90 @@
+package com.hl.fambud.repository;
+
+import com.hl.fambud.model.CategoryDayOfMonthTotal;
+import com.hl.fambud.model.CategoryTypeTotal;
+import com.hl.fambud.model.DailyCategoryTotal;
+import com.hl.fambud.model.PeriodCategoryTypeTotal;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+public interface DailyCategoryTotalRepository extends Repository<DailyCategoryTotal, Long> {
+
+    @Query("SELECT category_id, type, SUM(amount_cents) AS amount_cents, SUM(tx_count) AS transaction_count "
+        + "FROM daily_category_totals "
+        + "WHERE budget_id = :budgetId AND date BETWEEN :startDate AND :endDate AND type IN ('EXPENSE', 'INCOME') "
+        + "GROUP BY category_id, type HAVING SUM(tx_count) > 0")
+    Flux<CategoryTypeTotal> sumByCategoryAndType(Long budgetId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Totals the expenses and income of three periods, 0, 1 and 2, in one scan. The periods may overlap, a day in
+     * several of them counting towards each.
+     */
+    @Query("SELECT p.period, t.category_id, t.type, SUM(t.amount_cents) AS amount_cents, "
+        + "SUM(t.tx_count) AS transaction_count FROM daily_category_totals t "
+        + "JOIN (VALUES (0, CAST(:startDate AS DATE), CAST(:endDate AS DATE)), "
+        + "(1, CAST(:secondStartDate AS DATE), CAST(:secondEndDate AS DATE)), "
+        + "(2, CAST(:thirdStartDate AS DATE), CAST(:thirdEndDate AS DATE))) AS p (period, start_date, end_date) "
+        + "ON t.date BETWEEN p.start_date AND p.end_date "
+        + "WHERE t.budget_id = :budgetId AND t.type IN ('EXPENSE', 'INCOME') "
+        + "GROUP BY p.period, t.category_id, t.type HAVING SUM(t.tx_count) > 0")
+    Flux<PeriodCategoryTypeTotal> sumByPeriodCategoryAndType(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                                             LocalDate secondStartDate, LocalDate secondEndDate,
+                                                             LocalDate thirdStartDate, LocalDate thirdEndDate);
+
+    /**
+     * Totals the expenses per category and day of the month between the history start date and the month start, and
+     * per category from the month start to the as-of date, inclusive, as day 0.
+     */
+    @Query("SELECT category_id, day_of_month, SUM(amount_cents) AS amount_cents, MIN(date) AS first_date FROM ("
+        + "SELECT category_id, date, amount_cents, CASE WHEN date >= :monthStartDate THEN 0 "
+        + "ELSE CAST(EXTRACT(DAY FROM date) AS INT) END AS day_of_month FROM daily_category_totals "
+        + "WHERE budget_id = :budgetId AND date BETWEEN :historyStartDate AND :asOfDate AND type = 'EXPENSE' "
+        + "AND tx_count <> 0) t GROUP BY category_id, day_of_month")
+    Flux<CategoryDayOfMonthTotal> sumExpensesByCategoryAndDayOfMonth(Long budgetId, LocalDate historyStartDate,
+                                                                     LocalDate monthStartDate, LocalDate asOfDate);
+
+    @Query("SELECT * FROM daily_category_totals "
+        + "WHERE budget_id = :budgetId AND date BETWEEN :startDate AND :endDate AND type IN ('EXPENSE', 'INCOME') "
+        + "AND tx_count <> 0 ORDER BY date")
+    Flux<DailyCategoryTotal> findSummaryTotalsOrderByDate(Long budgetId, LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT * FROM daily_category_totals WHERE budget_id = :budgetId AND tx_count <> 0")
+    Flux<DailyCategoryTotal> findByBudgetId(Long budgetId);
+
+    /**
+     * Totals the budget's transactions the way the rollup should hold them.
+     */
+    @Query("SELECT budget_id, date, category_id, type, CAST(SUM(amount) * 100 AS BIGINT) AS amount_cents, "
+        + "COUNT(*) AS tx_count FROM transactions WHERE budget_id = :budgetId AND category_id IS NOT NULL "
+        + "GROUP BY budget_id, date, category_id, type")
+    Flux<DailyCategoryTotal> aggregateTransactions(Long budgetId);
+
+    @Modifying
+    @Query("UPDATE daily_category_totals SET amount_cents = amount_cents + :amountCents, "
+        + "tx_count = tx_count + :txCount "
+        + "WHERE budget_id = :budgetId AND date = :date AND category_id = :categoryId AND type = :type")
+    Mono<Integer> addToTotal(Long budgetId, LocalDate date, Long categoryId, String type, Long amountCents,
+                             Long txCount);
+
+    @Modifying
+    @Query("INSERT INTO daily_category_totals (budget_id, date, category_id, type, amount_cents, tx_count) "
+        + "VALUES (:budgetId, :date, :categoryId, :type, :amountCents, :txCount) ON CONFLICT DO NOTHING")
+    Mono<Integer> insertTotal(Long budgetId, LocalDate date, Long categoryId, String type, Long amountCents,
+                              Long txCount);
+
+    @Modifying
+    @Query("INSERT INTO daily_category_totals (budget_id, date, category_id, type, amount_cents, tx_count) "
+        + "SELECT budget_id, date, category_id, type, CAST(SUM(amount) * 100 AS BIGINT), COUNT(*) "
+        + "FROM transactions WHERE budget_id = :budgetId AND category_id IS NOT NULL "
+        + "GROUP BY budget_id, date, category_id, type")
+    Mono<Integer> insertFromTransactions(Long budgetId);
+
+    @Modifying
+    @Query("DELETE FROM daily_category_totals WHERE budget_id = :budgetId")
+    Mono<Integer> deleteByBudgetId(Long budgetId);
+}
@@ -1,21 +1,79 @@
 package com.hl.fambud.repository;
 
+import com.hl.fambud.model.DailyCashFlow;
 import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactorCategoryTotal;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.Collection;
 
 public interface TransactionRepository extends ReactiveCrudRepository<Transaction, Long> {
 
     Flux<Transaction> findByBudgetId(Long budgetId);
 
+    /**
+     * Reads the transaction and locks it until the end of the database transaction, so that concurrent changes to it
+     * apply their daily totals one after the other.
+     */
+    @Query("SELECT * FROM transactions WHERE transaction_id = :transactionId FOR UPDATE")
+    Mono<Transaction> findByIdForUpdate(Long transactionId);
+
+    @Query("SELECT * FROM transactions WHERE transaction_id IN (:transactionIds) ORDER BY transaction_id FOR UPDATE")
+    Flux<Transaction> findByIdsForUpdate(Collection<Long> transactionIds);
+
+    Flux<Transaction> findByBudgetIdAndCategoryIdIsNotNull(Long budgetId);
+
+    @Query("SELECT description FROM transactions WHERE transaction_id = :transactionId AND budget_id = :budgetId")
+    Mono<String> findDescription(Long budgetId, Long transactionId);
+
+    @Query("SELECT * FROM transactions WHERE budget_id = :budgetId AND category_id IS NULL "
+        + "AND (rule_set_version IS NULL OR rule_set_version <> :ruleSetVersion)")
+    Flux<Transaction> findUncategorisedNotChecked(Long budgetId, Long ruleSetVersion);
+
     Flux<Transaction> findByTransactorId(Long transactorId);
 
     Flux<Transaction> findByDateBetween(LocalDate startDate, LocalDate endDate);
 
+    Flux<Transaction> findByBudgetIdAndDateBetween(Long budgetId, LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT transactor_id, category_id, CAST(SUM(amount) * 100 AS BIGINT) AS amount_cents, "
+        + "COUNT(*) AS transaction_count FROM transactions "
+        + "WHERE budget_id = :budgetId AND date BETWEEN :startDate AND :endDate AND type = :type "
+        + "GROUP BY transactor_id, category_id")
+    Flux<TransactorCategoryTotal> sumByTransactorAndCategory(
+        Long budgetId, LocalDate startDate, LocalDate endDate, String type);
+
+    /**
+     * Totals the budget's income and expenses per day in date order. Moves between accounts are left out.
+     */
+    @Query("SELECT date, CAST(SUM(CASE WHEN type = 'INCOME' THEN amount ELSE 0 END) * 100 AS BIGINT) AS income_cents, "
+        + "CAST(SUM(CASE WHEN type = 'EXPENSE' THEN amount ELSE 0 END) * 100 AS BIGINT) AS expense_cents "
+        + "FROM transactions WHERE budget_id = :budgetId AND date BETWEEN :startDate AND :endDate "
+        + "AND type IN ('INCOME', 'EXPENSE') GROUP BY date ORDER BY date")
+    Flux<DailyCashFlow> sumCashFlowByDate(Long budgetId, LocalDate startDate, LocalDate endDate);
+
     Mono<Void> deleteByBudgetId(Long budgetId);
 
+    @Modifying
+    @Query("DELETE FROM transactions WHERE transaction_id = :transactionId")
+    Mono<Integer> deleteByTransactionId(Long transactionId);
+
+    @Modifying
+    @Query("UPDATE transactions SET category_id = :categoryId WHERE transaction_id IN (:transactionIds)")
+    Mono<Integer> updateCategoryId(Long categoryId, Collection<Long> transactionIds);
+
+    @Modifying
+    @Query("UPDATE transactions SET rule_set_version = :ruleSetVersion WHERE transaction_id IN (:transactionIds)")
+    Mono<Integer> updateRuleSetVersion(Long ruleSetVersion, Collection<Long> transactionIds);
+
+    @Modifying
+    @Query("UPDATE transactions SET rule_set_version = NULL WHERE transaction_id = :transactionId")
+    Mono<Integer> clearRuleSetVersion(Long transactionId);
+
     Mono<Void> deleteByTransactorId(Long transactorId);
 }
@@ -31,6 +31,12 @@ public class BudgetService {
     private final CategoryRepository categoryRepository;
     private final TransactorRepository transactorRepository;
     private final TransactionRepository transactionRepository;
+    private final CategoryRuleService categoryRuleService;
+    private final CategorySuggestionIndex categorySuggestionIndex;
+    private final RecurringTransactionDetector recurringTransactionDetector;
+    private final CategoryDictionaryCache categoryDictionaryCache;
+    private final DailyRollupService dailyRollupService;
+    private final PeriodSummaryCache periodSummaryCache;
     private final BudgetMapper budgetMapper;
     private final ObjectMapper objectMapper;
 
@@ -71,8 +77,16 @@ public class BudgetService {
         Mono<Void> transactions = transactionRepository.deleteByBudgetId(budgetId);
         Mono<Void> transactors = transactorRepository.deleteByBudgetId(budgetId);
         Mono<Void> categories = categoryRepository.deleteByBudgetId(budgetId);
-        Mono<Void> budget = budgetRepository.deleteById(budgetId);
-        return transactions.then(transactors).then(categories).then(budget);
+        Mono<Void> categoryRules = categoryRuleService.deleteRulesForBudget(budgetId);
+        Mono<Void> dailyTotals = dailyRollupService.deleteForBudget(budgetId);
+        Mono<Void> budget = budgetRepository.deleteById(budgetId)
+            .then(Mono.fromRunnable(() -> {
+                categorySuggestionIndex.evict(budgetId);
+                recurringTransactionDetector.evict(budgetId);
+                categoryDictionaryCache.invalidate(budgetId);
+            }));
+        return transactions.then(dailyTotals).then(transactors).then(categoryRules).then(categories)
+            .then(budget);
     }
 
     private Mono<BudgetDto> saveBudgetAndNestedObjects(Budget budget) {
@@ -136,7 +150,17 @@ public class BudgetService {
                         return transactions;
                     });
                 // Combine all saved entities and return the full budget using getBudget
+                // nested transactions are saved as they are, so their daily totals are rebuilt
+                Mono<Integer> dailyTotalsMono = budget.getTransactions() != null && !budget.getTransactions().isEmpty()
+                    ? dailyRollupService.rebuild(savedBudget.getBudgetId())
+                    : Mono.empty();
                 return Mono.when(savedCategoriesMono, savedTransactorsMono, savedTransactionsMono)
+                    .then(dailyTotalsMono)
+                    .then(Mono.fromRunnable(() -> {
+                        categorySuggestionIndex.evict(savedBudget.getBudgetId());
+                        categoryDictionaryCache.invalidate(savedBudget.getBudgetId());
+                        periodSummaryCache.invalidate(savedBudget.getBudgetId());
+                    }))
                     .then(getBudget(savedBudget.getBudgetId()));
             });
     }
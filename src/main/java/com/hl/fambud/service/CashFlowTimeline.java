@@ -0,0 +1,47 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.CashFlowDayDto;
+import com.hl.fambud.dto.reporting.CashFlowDto;
+import com.hl.fambud.model.DailyCashFlow;
+import com.hl.fambud.util.MoneyAccumulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Running balance of a budget built from its daily cash flows in date order. Instances are not thread safe.
+ */
+class CashFlowTimeline {
+
+    private final long openingCents;
+    private long balanceCents;
+    private long incomeCents;
+    private long expenseCents;
+    private final List<CashFlowDayDto> days = new ArrayList<>();
+
+    CashFlowTimeline(long openingCents) {
+        this.openingCents = openingCents;
+        this.balanceCents = openingCents;
+    }
+
+    CashFlowTimeline add(DailyCashFlow day) {
+        long netCents = Math.subtractExact(day.getIncomeCents(), day.getExpenseCents());
+        balanceCents = Math.addExact(balanceCents, netCents);
+        incomeCents = Math.addExact(incomeCents, day.getIncomeCents());
+        expenseCents = Math.addExact(expenseCents, day.getExpenseCents());
+        days.add(new CashFlowDayDto(day.getDate(), MoneyAccumulator.toAmount(day.getIncomeCents()),
+            MoneyAccumulator.toAmount(day.getExpenseCents()), MoneyAccumulator.toAmount(netCents),
+            MoneyAccumulator.toAmount(balanceCents)));
+        return this;
+    }
+
+    CashFlowDto.CashFlowDtoBuilder toDto() {
+        return CashFlowDto.builder()
+            .openingBalance(MoneyAccumulator.toAmount(openingCents))
+            .closingBalance(MoneyAccumulator.toAmount(balanceCents))
+            .totalIncome(MoneyAccumulator.toAmount(incomeCents))
+            .totalExpenses(MoneyAccumulator.toAmount(expenseCents))
+            .netFlow(MoneyAccumulator.toAmount(Math.subtractExact(incomeCents, expenseCents)))
+            .days(days);
+    }
+}
@@ -0,0 +1,241 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.CategorisationJobDto;
+import com.hl.fambud.mapper.BudgetMapper;
+import com.hl.fambud.model.CategorisationJobStatus;
+import com.hl.fambud.repository.CategorisationJobRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs categorisation in the background, at most {@code app.categorisation.max-concurrency} jobs at a time, with their
+ * state in the database so any instance can report on or cancel them. A running job uses up to three database
+ * connections, for its reads, its write transaction and its progress saves.
+ */
+@Service
+@Slf4j
+public class CategorisationJobService {
+
+    static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(1);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private static final String ABANDONED_ERROR = "Abandoned by a stopped instance";
+
+    private final TransactionCategoriser transactionCategoriser;
+
+    private final CategorisationJobRepository categorisationJobRepository;
+
+    private final BudgetMapper budgetMapper;
+
+    private final Duration jobRetention;
+
+    private final Duration abandonedAfter;
+
+    private final Map<String, RunningJob> runningJobs = new ConcurrentHashMap<>();
+
+    private final Sinks.Many<RunningJob> jobQueue = Sinks.many().unicast().onBackpressureBuffer();
+
+    public CategorisationJobService(
+        TransactionCategoriser transactionCategoriser, CategorisationJobRepository categorisationJobRepository,
+        BudgetMapper budgetMapper, @Value("${app.categorisation.max-concurrency:2}") int maxConcurrency,
+        @Value("${app.categorisation.job-retention:P1D}") Duration jobRetention,
+        @Value("${app.categorisation.abandoned-after:PT5M}") Duration abandonedAfter) {
+        this.transactionCategoriser = transactionCategoriser;
+        this.categorisationJobRepository = categorisationJobRepository;
+        this.budgetMapper = budgetMapper;
+        this.jobRetention = jobRetention;
+        this.abandonedAfter = abandonedAfter;
+        jobQueue.asFlux()
+            .flatMap(this::run, maxConcurrency)
+            .subscribe();
+    }
+
+    /**
+     * Queues a categorisation job for the budget, or returns the job already queued or running for it on any
+     * instance, whichever kind of run it is.
+     */
+    public Mono<CategorisationJobDto> startJob(Long budgetId, boolean full) {
+        RunningJob job = new RunningJob(UUID.randomUUID().toString(), budgetId, full, LocalDateTime.now());
+        return categorisationJobRepository.deleteFinishedBefore(job.startedAt.minus(jobRetention))
+            .then(categorisationJobRepository.insertJob(job.jobId, budgetId, full, job.startedAt))
+            .flatMap(inserted -> inserted > 0 ? Mono.fromCallable(() -> {
+                log.info("categorisation job " + job.jobId + " queued for budget " + budgetId + " full " + full);
+                runningJobs.put(job.jobId, job);
+                jobQueue.emitNext(job, Sinks.EmitFailureHandler.busyLooping(PROGRESS_INTERVAL));
+                return job.toDto();
+            }) : getActiveJob(budgetId)
+                // the active job finished since the insert, so the budget is free again
+                .switchIfEmpty(Mono.defer(() -> startJob(budgetId, full))));
+    }
+
+    private Mono<CategorisationJobDto> getActiveJob(Long budgetId) {
+        return categorisationJobRepository.findByActiveBudgetId(budgetId)
+            .map(activeJob -> {
+                RunningJob job = runningJobs.get(activeJob.getJobId());
+                return job != null ? job.toDto() : budgetMapper.categorisationJobToCategorisationJobDto(activeJob);
+            });
+    }
+
+    public Mono<CategorisationJobDto> getJob(Long budgetId, String jobId) {
+        RunningJob job = runningJobs.get(jobId);
+        Mono<CategorisationJobDto> jobDto = job != null
+            ? Mono.just(job.toDto())
+            : categorisationJobRepository.findById(jobId).map(budgetMapper::categorisationJobToCategorisationJobDto);
+        return jobDto
+            .filter(categorisationJobDto -> categorisationJobDto.getBudgetId().equals(budgetId))
+            .switchIfEmpty(Mono.error(new EntityNotFoundException("Categorisation job not found with ID " + jobId)));
+    }
+
+    /**
+     * Requests cancellation of a queued or running job. Categories written by a cancelled job are rolled back.
+     */
+    public Mono<CategorisationJobDto> cancelJob(Long budgetId, String jobId) {
+        return getJob(budgetId, jobId)
+            .flatMap(jobDto -> categorisationJobRepository.requestCancel(jobId))
+            .then(Mono.fromRunnable(() -> {
+                RunningJob job = runningJobs.get(jobId);
+                if (job != null)
+                    job.cancel();
+            }))
+            .then(Mono.defer(() -> getJob(budgetId, jobId)));
+    }
+
+    /**
+     * Reports this instance's jobs alive, queued ones included, and fails the active jobs of any instance that
+     * stopped reporting them for {@code app.categorisation.abandoned-after}. Also runs at startup, which fails the
+     * jobs of a stopped instance once they are old enough.
+     */
+    @Scheduled(fixedDelayString = "${app.categorisation.heartbeat-interval:PT1M}")
+    public Mono<Void> sweepJobs() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> jobIds = List.copyOf(runningJobs.keySet());
+        return (jobIds.isEmpty() ? Mono.<Integer>empty() : categorisationJobRepository.updateHeartbeats(jobIds, now))
+            .then(categorisationJobRepository.failAbandoned(now.minus(abandonedAfter), ABANDONED_ERROR, now))
+            .doOnNext(failed -> {
+                if (failed > 0)
+                    log.warn("failed " + failed + " categorisation jobs abandoned by a stopped instance");
+            })
+            .onErrorResume(e -> {
+                log.warn("failed to sweep categorisation jobs", e);
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    private Mono<Void> run(RunningJob job) {
+        return categorisationJobRepository.findCancelRequestedByJobId(job.jobId)
+            .defaultIfEmpty(false)
+            .flatMap(cancelRequested -> {
+                if (cancelRequested || job.cancelRequested)
+                    return finish(job, CategorisationJobStatus.CANCELLED, null);
+                log.info("categorisation job " + job.jobId + " started");
+                job.status = CategorisationJobStatus.RUNNING;
+                return transactionCategoriser.categorise(job.budgetId, job.full, job.progress)
+                    .takeUntilOther(cancelSignal(job))
+                    .then(Mono.defer(() -> finish(job,
+                        job.cancelRequested ? CategorisationJobStatus.CANCELLED : CategorisationJobStatus.COMPLETED,
+                        null)));
+            })
+            .onErrorResume(e -> {
+                log.error("categorisation job " + job.jobId + " failed", e);
+                return finish(job, CategorisationJobStatus.FAILED, e.getMessage());
+            })
+            .onErrorResume(e -> {
+                log.error("categorisation job " + job.jobId + " could not be finished", e);
+                return Mono.empty();
+            })
+            .doFinally(signal -> runningJobs.remove(job.jobId));
+    }
+
+    /**
+     * Saves the job's progress every interval and signals once cancellation was requested, either on this instance
+     * or through the database by another one.
+     */
+    private Mono<Boolean> cancelSignal(RunningJob job) {
+        Mono<Boolean> remoteCancel = Flux.interval(PROGRESS_INTERVAL)
+            .concatMap(tick -> saveProgress(job)
+                .then(categorisationJobRepository.findCancelRequestedByJobId(job.jobId)))
+            .filter(Boolean::booleanValue)
+            .next();
+        return Mono.firstWithValue(job.cancelled.asMono(), remoteCancel)
+            .doOnNext(cancelled -> {
+                log.info("categorisation job " + job.jobId + " cancelled");
+                job.cancelRequested = true;
+            });
+    }
+
+    private Mono<Void> saveProgress(RunningJob job) {
+        CategorisationProgress progress = job.progress;
+        return categorisationJobRepository.updateProgress(job.jobId, job.status.name(), progress.getProcessed(),
+                progress.getMatched(), progress.getWritten(), progress.getFailed(), LocalDateTime.now())
+            .then();
+    }
+
+    private Mono<Void> finish(RunningJob job, CategorisationJobStatus status, String error) {
+        job.status = status;
+        job.error = error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        job.finishedAt = LocalDateTime.now();
+        CategorisationProgress progress = job.progress;
+        log.info("categorisation job " + job.jobId + " " + status + " processed " + progress.getProcessed()
+            + " matched " + progress.getMatched() + " written " + progress.getWritten());
+        return categorisationJobRepository.finishJob(job.jobId, status.name(), progress.getProcessed(),
+                progress.getMatched(), progress.getWritten(), progress.getFailed(), job.error, job.finishedAt)
+            .then();
+    }
+
+    private static class RunningJob {
+
+        private final String jobId;
+        private final Long budgetId;
+        private final boolean full;
+        private final LocalDateTime startedAt;
+        private final CategorisationProgress progress = new CategorisationProgress();
+        private final Sinks.One<Boolean> cancelled = Sinks.one();
+        private volatile CategorisationJobStatus status = CategorisationJobStatus.QUEUED;
+        private volatile boolean cancelRequested;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private RunningJob(String jobId, Long budgetId, boolean full, LocalDateTime startedAt) {
+            this.jobId = jobId;
+            this.budgetId = budgetId;
+            this.full = full;
+            this.startedAt = startedAt;
+        }
+
+        private void cancel() {
+            cancelRequested = true;
+            cancelled.tryEmitValue(true);
+        }
+
+        private CategorisationJobDto toDto() {
+            return CategorisationJobDto.builder()
+                .jobId(jobId)
+                .budgetId(budgetId)
+                .fullRun(full)
+                .status(status)
+                .processed(progress.getProcessed())
+                .matched(progress.getMatched())
+                .written(progress.getWritten())
+                .failed(progress.getFailed())
+                .error(error)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+        }
+    }
+}
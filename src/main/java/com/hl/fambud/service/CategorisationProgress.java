@@ -0,0 +1,49 @@
+package com.hl.fambud.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of a categorisation run, updated by the categoriser while it runs and read concurrently by status requests.
+ */
+public class CategorisationProgress {
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    void transactionProcessed() {
+        processed.incrementAndGet();
+    }
+
+    void transactionMatched() {
+        matched.incrementAndGet();
+    }
+
+    void transactionsWritten(long count) {
+        written.addAndGet(count);
+    }
+
+    /**
+     * A failed run rolls back its writes, so every matched transaction that was not committed counts as failed.
+     */
+    void runFailed() {
+        failed.set(matched.get() - written.get());
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getMatched() {
+        return matched.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,85 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.CategorisationSimulationDto;
+import com.hl.fambud.dto.DescriptionCountDto;
+import com.hl.fambud.dto.RuleHitDto;
+import com.hl.fambud.model.CategoryRule;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.util.HeavyHitters;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Statistics of evaluating a rule set against transactions without applying it, in memory that does not grow with the
+ * number of transactions. Simulations of disjoint parts of the transactions are merged into the simulation of the
+ * whole.
+ */
+class CategorisationSimulation {
+
+    private final CategoryRuleSet ruleSet;
+    private final long[] ruleHits;
+    private HeavyHitters<String> unmatchedDescriptions;
+    private long processed;
+    private long changed;
+    private long newlyCategorised;
+
+    CategorisationSimulation(CategoryRuleSet ruleSet, int sketchCapacity) {
+        this.ruleSet = ruleSet;
+        this.ruleHits = new long[ruleSet.size()];
+        this.unmatchedDescriptions = new HeavyHitters<>(sketchCapacity);
+    }
+
+    CategorisationSimulation add(Transaction transaction) {
+        processed++;
+        int ruleIndex = ruleSet.getMatcher().matchIndex(transaction.getDescription());
+        if (ruleIndex < 0) {
+            unmatchedDescriptions.offer(TransactionUtil.normaliseDescription(transaction.getDescription()));
+            return this;
+        }
+        ruleHits[ruleIndex]++;
+        Long categoryId = ruleSet.getMatcher().values().get(ruleIndex).getCategoryId();
+        if (!categoryId.equals(transaction.getCategoryId())) {
+            changed++;
+            if (transaction.getCategoryId() == null)
+                newlyCategorised++;
+        }
+        return this;
+    }
+
+    CategorisationSimulation merge(CategorisationSimulation other) {
+        for (int i = 0; i < ruleHits.length; i++)
+            ruleHits[i] += other.ruleHits[i];
+        unmatchedDescriptions = unmatchedDescriptions.merge(other.unmatchedDescriptions);
+        processed += other.processed;
+        changed += other.changed;
+        newlyCategorised += other.newlyCategorised;
+        return this;
+    }
+
+    CategorisationSimulationDto toDto(int unmatchedLimit) {
+        List<CategoryRule> rules = ruleSet.getMatcher().values();
+        List<RuleHitDto> ruleHitDtos = new ArrayList<>(rules.size());
+        long matched = 0;
+        for (int i = 0; i < rules.size(); i++) {
+            CategoryRule rule = rules.get(i);
+            ruleHitDtos.add(new RuleHitDto(rule.getRuleId(), rule.getCategoryId(), rule.getKeyword(), ruleHits[i]));
+            matched += ruleHits[i];
+        }
+        ruleHitDtos.sort(Comparator.comparing(RuleHitDto::getHits).reversed());
+        List<DescriptionCountDto> topUnmatched = unmatchedDescriptions.top(unmatchedLimit).stream()
+            .map(entry -> new DescriptionCountDto(entry.item(), entry.count(), entry.error()))
+            .toList();
+        return CategorisationSimulationDto.builder()
+            .budgetId(ruleSet.getBudgetId())
+            .processed(processed)
+            .matched(matched)
+            .changed(changed)
+            .newlyCategorised(newlyCategorised)
+            .unmatched(processed - matched)
+            .ruleHits(ruleHitDtos)
+            .topUnmatched(topUnmatched)
+            .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.model.Category;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The category names of a budget by id, and the ids by case-insensitive name. Immutable.
+ */
+public class CategoryDictionary {
+
+    private final Map<Long, String> namesById;
+    private final Map<String, Long> idsByName;
+    private final long loadedAtMillis;
+
+    CategoryDictionary(Collection<Category> categories, long loadedAtMillis) {
+        Map<Long, String> names = new HashMap<>(categories.size() * 2);
+        Map<String, Long> ids = new HashMap<>(categories.size() * 2);
+        for (Category category : categories) {
+            names.put(category.getCategoryId(), category.getName());
+            if (category.getName() != null)
+                ids.putIfAbsent(category.getName().toLowerCase(), category.getCategoryId());
+        }
+        this.namesById = Map.copyOf(names);
+        this.idsByName = Map.copyOf(ids);
+        this.loadedAtMillis = loadedAtMillis;
+    }
+
+    public Optional<String> getName(Long categoryId) {
+        return Optional.ofNullable(namesById.get(categoryId));
+    }
+
+    public Optional<Long> getId(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(idsByName.get(name.trim().toLowerCase()));
+    }
+
+    public boolean containsAll(Collection<Long> categoryIds) {
+        return namesById.keySet().containsAll(categoryIds);
+    }
+
+    public Map<Long, String> getNamesById() {
+        return namesById;
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+
+    long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
+}
@@ -0,0 +1,85 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.repository.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the category dictionaries of the {@code app.category-cache.max-budgets} most recently used budgets. A
+ * dictionary is reloaded when it lacks a requested category or is older than {@code app.category-cache.ttl}.
+ */
+@Component
+@Slf4j
+public class CategoryDictionaryCache {
+
+    private final CategoryRepository categoryRepository;
+
+    private final long ttlMillis;
+
+    private final Map<Long, CategoryDictionary> dictionaries;
+
+    public CategoryDictionaryCache(
+        CategoryRepository categoryRepository, @Value("${app.category-cache.max-budgets:1000}") int maxBudgets,
+        @Value("${app.category-cache.ttl:PT5M}") Duration ttl) {
+        this.categoryRepository = categoryRepository;
+        this.ttlMillis = ttl.toMillis();
+        this.dictionaries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CategoryDictionary> eldest) {
+                return size() > maxBudgets;
+            }
+        };
+    }
+
+    public Mono<CategoryDictionary> getDictionary(Long budgetId) {
+        CategoryDictionary dictionary = cached(budgetId);
+        return dictionary != null ? Mono.just(dictionary) : load(budgetId);
+    }
+
+    /**
+     * Returns the dictionary of the budget, reloading it once if it lacks any of the categories. Categories that do
+     * not exist remain missing.
+     */
+    public Mono<CategoryDictionary> getDictionary(Long budgetId, Collection<Long> categoryIds) {
+        CategoryDictionary dictionary = cached(budgetId);
+        return dictionary != null && dictionary.containsAll(categoryIds) ? Mono.just(dictionary) : load(budgetId);
+    }
+
+    public void invalidate(Long budgetId) {
+        synchronized (dictionaries) {
+            dictionaries.remove(budgetId);
+        }
+    }
+
+    private CategoryDictionary cached(Long budgetId) {
+        synchronized (dictionaries) {
+            CategoryDictionary dictionary = dictionaries.get(budgetId);
+            if (dictionary != null && System.currentTimeMillis() - dictionary.getLoadedAtMillis() > ttlMillis) {
+                dictionaries.remove(budgetId);
+                return null;
+            }
+            return dictionary;
+        }
+    }
+
+    private Mono<CategoryDictionary> load(Long budgetId) {
+        long loadedAtMillis = System.currentTimeMillis();
+        return categoryRepository.findByBudgetId(budgetId)
+            .collectList()
+            .map(categories -> {
+                CategoryDictionary dictionary = new CategoryDictionary(categories, loadedAtMillis);
+                log.debug("loaded " + dictionary.size() + " categories of budget " + budgetId);
+                synchronized (dictionaries) {
+                    dictionaries.put(budgetId, dictionary);
+                }
+                return dictionary;
+            });
+    }
+}
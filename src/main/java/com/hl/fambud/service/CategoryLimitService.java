@@ -0,0 +1,131 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.CategoryLimitDto;
+import com.hl.fambud.dto.reporting.CategoryLimitsDto;
+import com.hl.fambud.model.CategoryLimitEvent;
+import com.hl.fambud.model.CategoryLimitSpend;
+import com.hl.fambud.model.CategoryMonthSpend;
+import com.hl.fambud.model.LimitStatus;
+import com.hl.fambud.repository.CategoryMonthSpendRepository;
+import com.hl.fambud.util.MoneyAccumulator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Checks the monthly expenses of categories, kept by the {@link DailyRollupService}, against their limits. Committed
+ * writes that move a category of the current month to a worse status publish a {@link CategoryLimitEvent}.
+ */
+@Service
+@Slf4j
+public class CategoryLimitService {
+
+    private final CategoryMonthSpendRepository categoryMonthSpendRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final BigDecimal warningRatio;
+
+    public CategoryLimitService(CategoryMonthSpendRepository categoryMonthSpendRepository,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${app.category-limits.warning-ratio:0.8}") BigDecimal warningRatio) {
+        this.categoryMonthSpendRepository = categoryMonthSpendRepository;
+        this.eventPublisher = eventPublisher;
+        this.warningRatio = warningRatio;
+    }
+
+    /**
+     * Returns the budget's categories with a monthly limit and their expenses in the as-of date's month.
+     */
+    public Mono<CategoryLimitsDto> getLimits(Long budgetId, LocalDate asOfDate) {
+        LocalDate monthStart = asOfDate.withDayOfMonth(1);
+        return categoryMonthSpendRepository.findLimitSpend(budgetId, monthStart)
+            .map(this::toDto)
+            .sort(Comparator.comparing(CategoryLimitDto::getPercentUsed).reversed()
+                .thenComparing(CategoryLimitDto::getCategoryId))
+            .collectList()
+            .map(categories -> CategoryLimitsDto.builder()
+                .startDate(monthStart)
+                .endDate(asOfDate.withDayOfMonth(asOfDate.lengthOfMonth()))
+                .categories(categories)
+                .build());
+    }
+
+    /**
+     * Publishes an event for every category of the current month whose status the committed changes made worse. The
+     * limits are read once per changed budget, and failures are logged rather than returned, as the changes are
+     * already committed.
+     */
+    Mono<Void> checkLimits(List<CategoryMonthSpend> changes) {
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        Map<Long, Map<Long, Long>> changedCentsByBudgetId = changes.stream()
+            .filter(change -> change.getMonthStart().equals(monthStart))
+            .collect(Collectors.groupingBy(CategoryMonthSpend::getBudgetId,
+                Collectors.toMap(CategoryMonthSpend::getCategoryId, CategoryMonthSpend::getAmountCents, Long::sum)));
+        return Flux.fromIterable(changedCentsByBudgetId.entrySet())
+            .concatMap(entry -> categoryMonthSpendRepository.findLimitSpend(entry.getKey(), monthStart)
+                .filter(limitSpend -> entry.getValue().containsKey(limitSpend.getCategoryId()))
+                .doOnNext(limitSpend -> publishIfWorse(entry.getKey(), monthStart, limitSpend,
+                    entry.getValue().get(limitSpend.getCategoryId())))
+                .onErrorResume(exception -> {
+                    log.warn("failed to check the category limits of budget " + entry.getKey(), exception);
+                    return Mono.empty();
+                }))
+            .then();
+    }
+
+    private void publishIfWorse(Long budgetId, LocalDate monthStart, CategoryLimitSpend limitSpend,
+                                long changedCents) {
+        LimitStatus previousStatus = statusOf(limitSpend.getAmountCents() - changedCents,
+            limitSpend.getMonthlyLimit());
+        LimitStatus status = statusOf(limitSpend.getAmountCents(), limitSpend.getMonthlyLimit());
+        if (status.compareTo(previousStatus) <= 0)
+            return;
+        CategoryLimitEvent event = CategoryLimitEvent.builder()
+            .budgetId(budgetId)
+            .categoryId(limitSpend.getCategoryId())
+            .categoryName(limitSpend.getName())
+            .monthStart(monthStart)
+            .monthlyLimit(limitSpend.getMonthlyLimit())
+            .spent(MoneyAccumulator.toAmount(limitSpend.getAmountCents()))
+            .previousStatus(previousStatus)
+            .status(status)
+            .build();
+        log.info("category " + limitSpend.getCategoryId() + " of budget " + budgetId + " is now " + status);
+        eventPublisher.publishEvent(event);
+    }
+
+    private LimitStatus statusOf(long spentCents, BigDecimal monthlyLimit) {
+        BigDecimal spent = MoneyAccumulator.toAmount(spentCents);
+        if (spent.compareTo(monthlyLimit) > 0)
+            return LimitStatus.EXCEEDED;
+        if (spent.compareTo(monthlyLimit.multiply(warningRatio)) >= 0)
+            return LimitStatus.APPROACHING;
+        return LimitStatus.UNDER;
+    }
+
+    private CategoryLimitDto toDto(CategoryLimitSpend limitSpend) {
+        BigDecimal spent = MoneyAccumulator.toAmount(limitSpend.getAmountCents());
+        return CategoryLimitDto.builder()
+            .categoryId(limitSpend.getCategoryId())
+            .categoryName(limitSpend.getName())
+            .monthlyLimit(limitSpend.getMonthlyLimit())
+            .spent(spent)
+            .remaining(limitSpend.getMonthlyLimit().subtract(spent))
+            .percentUsed(spent.multiply(BigDecimal.valueOf(100))
+                .divide(limitSpend.getMonthlyLimit(), 1, RoundingMode.HALF_UP))
+            .status(statusOf(limitSpend.getAmountCents(), limitSpend.getMonthlyLimit()))
+            .build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.repository.CategoryRuleVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gives the budgets that never had category rules the rules of the transaction category mapping file that was used for
+ * every budget before rules were stored per budget.
+ */
+@Component
+@Slf4j
+public class CategoryRuleSeeder {
+
+    private final CategoryRuleService categoryRuleService;
+    private final CategoryRuleVersionRepository categoryRuleVersionRepository;
+    private final Resource mappingFile;
+
+    public CategoryRuleSeeder(
+        CategoryRuleService categoryRuleService, CategoryRuleVersionRepository categoryRuleVersionRepository,
+        ResourceLoader resourceLoader,
+        @Value("${app.category-rules.mapping-file:classpath:transaction-category-mapping-241121.csv}") String mappingFile) {
+        this.categoryRuleService = categoryRuleService;
+        this.categoryRuleVersionRepository = categoryRuleVersionRepository;
+        this.mappingFile = resourceLoader.getResource(mappingFile);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public Mono<Void> seedRules() {
+        if (!mappingFile.exists()) {
+            log.debug("no category mapping file " + mappingFile + " to seed category rules from");
+            return Mono.empty();
+        }
+        return categoryRuleVersionRepository.findUnversionedBudgetIds()
+            .concatMap(budgetId -> categoryRuleService.seedRules(budgetId, mappingFile)
+                .onErrorResume(exception -> {
+                    log.warn("failed to seed the category rules of budget " + budgetId, exception);
+                    return Mono.empty();
+                }))
+            .then();
+    }
+}
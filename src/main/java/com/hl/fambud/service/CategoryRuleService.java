@@ -0,0 +1,209 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.CategoryRuleDto;
+import com.hl.fambud.mapper.BudgetMapper;
+import com.hl.fambud.model.Category;
+import com.hl.fambud.model.CategoryRule;
+import com.hl.fambud.repository.CategoryRepository;
+import com.hl.fambud.repository.CategoryRuleRepository;
+import com.hl.fambud.repository.CategoryRuleVersionRepository;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.springframework.core.io.Resource;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the keyword rules of each budget and caches their compiled form. A cached rule set is reused while its
+ * version matches the one in category_rule_versions, which every rule change increments.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryRuleService {
+
+    private final CategoryRuleRepository categoryRuleRepository;
+    private final CategoryRuleVersionRepository categoryRuleVersionRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryDictionaryCache categoryDictionaryCache;
+    private final BudgetMapper budgetMapper;
+    private final TransactionalOperator transactionalOperator;
+    private final Map<Long, CategoryRuleSet> ruleSetCache = new ConcurrentHashMap<>();
+
+    public Mono<CategoryRuleDto> createRule(@Valid CategoryRuleDto categoryRuleDto) {
+        CategoryRule categoryRule = budgetMapper.toCategoryRule(categoryRuleDto);
+        log.debug("createRule " + categoryRule);
+        return checkCategory(categoryRule)
+            .then(categoryRuleRepository.save(categoryRule))
+            .flatMap(savedRule -> incrementVersion(savedRule.getBudgetId()).thenReturn(savedRule))
+            .as(transactionalOperator::transactional)
+            .map(budgetMapper::categoryRuleToCategoryRuleDto);
+    }
+
+    public Mono<CategoryRuleDto> getRule(Long budgetId, Long ruleId) {
+        return findRule(budgetId, ruleId)
+            .map(budgetMapper::categoryRuleToCategoryRuleDto);
+    }
+
+    public Flux<CategoryRuleDto> getAllRulesForBudget(Long budgetId) {
+        return categoryRuleRepository.findByBudgetId(budgetId)
+            .doOnError(exception -> log.error("Unable to get all category rules", exception))
+            .map(budgetMapper::categoryRuleToCategoryRuleDto);
+    }
+
+    public Mono<CategoryRuleDto> updateRule(Long budgetId, Long ruleId, @Valid CategoryRuleDto categoryRuleDto) {
+        return findRule(budgetId, ruleId)
+            .flatMap(retrievedRule -> {
+                log.debug("Category rule retrieved from DB: " + retrievedRule);
+                budgetMapper.updateCategoryRuleFromDto(categoryRuleDto, retrievedRule);
+                // keep the identity and budget of the stored rule whatever the body says
+                retrievedRule.setRuleId(ruleId);
+                retrievedRule.setBudgetId(budgetId);
+                return checkCategory(retrievedRule)
+                    .then(categoryRuleRepository.save(retrievedRule))
+                    .flatMap(savedRule -> incrementVersion(savedRule.getBudgetId()).thenReturn(savedRule));
+            })
+            .as(transactionalOperator::transactional)
+            .map(budgetMapper::categoryRuleToCategoryRuleDto);
+    }
+
+    public Mono<Void> deleteRule(Long budgetId, Long ruleId) {
+        return findRule(budgetId, ruleId)
+            .flatMap(rule -> categoryRuleRepository.deleteById(ruleId)
+                .then(incrementVersion(rule.getBudgetId())))
+            .as(transactionalOperator::transactional)
+            .then();
+    }
+
+    /**
+     * Removes the rules that assign the given category, used when the category itself is deleted.
+     */
+    public Mono<Void> deleteRulesForCategory(Category category) {
+        return categoryRuleRepository.deleteByCategoryId(category.getCategoryId())
+            .then(incrementVersion(category.getBudgetId()));
+    }
+
+    public Mono<Void> deleteRulesForBudget(Long budgetId) {
+        return categoryRuleRepository.deleteByBudgetId(budgetId)
+            .then(categoryRuleVersionRepository.deleteByBudgetId(budgetId))
+            .then(Mono.fromRunnable(() -> ruleSetCache.remove(budgetId)));
+    }
+
+    /**
+     * Imports rules from a CSV file with a keyword and a category name per line, the format of the former
+     * transaction category mapping file. Lines naming a category the budget does not have are skipped.
+     */
+    public Mono<Long> importRules(Long budgetId, FilePart filePart) {
+        return TransactionUtil.convertToMultipartFile(Schedulers.boundedElastic(), filePart)
+            .flatMap(multipartFile -> importRules(budgetId, multipartFile::getInputStream))
+            .as(transactionalOperator::transactional)
+            .doOnNext(count -> log.info("imported " + count + " category rules for budget " + budgetId));
+    }
+
+    /**
+     * Imports the rules of a mapping file into a budget that never had any, at most once across all instances.
+     */
+    public Mono<Long> seedRules(Long budgetId, Resource mappingFile) {
+        return categoryRuleVersionRepository.insertFirstVersion(budgetId)
+            .filter(inserted -> inserted > 0)
+            .flatMap(inserted -> importRules(budgetId, mappingFile::getInputStream))
+            .as(transactionalOperator::transactional)
+            .doOnNext(count -> log.info("seeded " + count + " category rules for budget " + budgetId));
+    }
+
+    private Mono<Long> importRules(Long budgetId, Callable<InputStream> inputStream) {
+        return categoryDictionaryCache.getDictionary(budgetId)
+            .flatMap(dictionary -> Mono.fromCallable(() -> {
+                    try (Reader reader = new InputStreamReader(inputStream.call());
+                         CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT)) {
+                        return csvParser.getRecords();
+                    }
+                }).subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(Flux::fromIterable)
+                .filter(record -> record.size() >= 2)
+                .mapNotNull(record -> toRule(budgetId, record, dictionary))
+                .collectList())
+            .flatMap(rules -> categoryRuleRepository.saveAll(rules)
+                .count()
+                .flatMap(count -> incrementVersion(budgetId).thenReturn(count)));
+    }
+
+    /**
+     * Returns the compiled rules of the budget, compiling them only when the rules changed since the last call.
+     */
+    public Mono<CategoryRuleSet> getRuleSet(Long budgetId) {
+        return categoryRuleVersionRepository.findVersionByBudgetId(budgetId)
+            .defaultIfEmpty(0L)
+            .flatMap(version -> {
+                CategoryRuleSet cachedRuleSet = ruleSetCache.get(budgetId);
+                if (cachedRuleSet != null && cachedRuleSet.getVersion() == version) {
+                    log.trace("using cached rule set " + version + " for budget " + budgetId);
+                    return Mono.just(cachedRuleSet);
+                }
+                return categoryRuleRepository.findByBudgetId(budgetId)
+                    .collectList()
+                    .map(rules -> {
+                        CategoryRuleSet ruleSet = new CategoryRuleSet(budgetId, version, rules);
+                        log.debug("compiled " + ruleSet.size() + " category rules for budget " + budgetId
+                            + " version " + version);
+                        ruleSetCache.put(budgetId, ruleSet);
+                        return ruleSet;
+                    });
+            });
+    }
+
+    private Mono<CategoryRule> findRule(Long budgetId, Long ruleId) {
+        return categoryRuleRepository.findById(ruleId)
+            .filter(rule -> rule.getBudgetId().equals(budgetId))
+            .switchIfEmpty(Mono.error(new EntityNotFoundException("Category rule not found with ID " + ruleId)));
+    }
+
+    private Mono<Void> checkCategory(CategoryRule categoryRule) {
+        return categoryRepository.findById(categoryRule.getCategoryId())
+            .filter(category -> category.getBudgetId().equals(categoryRule.getBudgetId()))
+            .switchIfEmpty(Mono.error(new EntityNotFoundException(
+                "Category not found with ID " + categoryRule.getCategoryId())))
+            .then();
+    }
+
+    private Mono<Void> incrementVersion(Long budgetId) {
+        return categoryRuleVersionRepository.incrementVersion(budgetId)
+            .flatMap(updated -> updated > 0 ? Mono.just(updated)
+                : categoryRuleVersionRepository.insertFirstVersion(budgetId).flatMap(inserted -> inserted > 0
+                    ? Mono.just(inserted)
+                    // another transaction inserted the first version since
+                    : categoryRuleVersionRepository.incrementVersion(budgetId)))
+            .then();
+    }
+
+    private static CategoryRule toRule(Long budgetId, CSVRecord record, CategoryDictionary dictionary) {
+        String keyword = record.get(0).trim();
+        Long categoryId = dictionary.getId(record.get(1)).orElse(null);
+        if (keyword.isEmpty() || categoryId == null) {
+            log.debug("skipping category rule " + record);
+            return null;
+        }
+        return CategoryRule.builder()
+            .budgetId(budgetId)
+            .categoryId(categoryId)
+            .keyword(keyword)
+            .build();
+    }
+}
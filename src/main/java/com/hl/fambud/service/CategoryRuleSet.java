@@ -0,0 +1,45 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.model.CategoryRule;
+import com.hl.fambud.util.KeywordMatcher;
+import lombok.Getter;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The compiled keyword rules of a budget, tagged with the rule version they were compiled from.
+ */
+@Getter
+public class CategoryRuleSet {
+
+    private final Long budgetId;
+
+    private final long version;
+
+    private final KeywordMatcher<CategoryRule> matcher;
+
+    public CategoryRuleSet(Long budgetId, long version, List<CategoryRule> rules) {
+        this.budgetId = budgetId;
+        this.version = version;
+        // oldest rule first so it wins between keywords of equal length, rules not saved yet after all saved ones
+        KeywordMatcher.Builder<CategoryRule> builder = KeywordMatcher.builder();
+        rules.stream()
+            .sorted(Comparator.comparing(CategoryRule::getRuleId, Comparator.nullsLast(Comparator.naturalOrder())))
+            .forEach(rule -> builder.add(rule.getKeyword(), rule));
+        this.matcher = builder.build();
+    }
+
+    public Optional<CategoryRule> match(String description) {
+        return matcher.match(description);
+    }
+
+    public Optional<Long> matchCategoryId(String description) {
+        return matcher.match(description).map(CategoryRule::getCategoryId);
+    }
+
+    public int size() {
+        return matcher.size();
+    }
+}
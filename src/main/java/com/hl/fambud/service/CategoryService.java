@@ -30,6 +30,10 @@ public class CategoryService {
     );
 
     private final CategoryRepository categoryRepository;
+    private final CategoryRuleService categoryRuleService;
+    private final CategorySuggestionIndex categorySuggestionIndex;
+    private final CategoryDictionaryCache categoryDictionaryCache;
+    private final PeriodSummaryCache periodSummaryCache;
     private final BudgetMapper budgetMapper;
     private final ObjectMapper objectMapper;
 
@@ -41,6 +45,7 @@ public class CategoryService {
         Category category = budgetMapper.toCategory(categoryDto);
         log.debug("createCategory " + objectMapper.writeValueAsString(category));
         return categoryRepository.save(category)
+            .doOnNext(savedCategory -> categoryDictionaryCache.invalidate(savedCategory.getBudgetId()))
             .map(budgetMapper::categoryToCategoryDto);
     }
 
@@ -61,9 +66,16 @@ public class CategoryService {
             .switchIfEmpty(Mono.error(new EntityNotFoundException("Category not found with ID " + categoryId)))
             .flatMap(retrievedCategory -> {
                 log.debug("Category retrieved from DB: " + retrievedCategory);
+                Long previousBudgetId = retrievedCategory.getBudgetId();
                 budgetMapper.updateCategoryFromDto(categoryDto, retrievedCategory);
                 log.debug("Retrieved category updated with new data: " + retrievedCategory);
                 return categoryRepository.save(retrievedCategory)
+                    .doOnNext(savedCategory -> {
+                        categoryDictionaryCache.invalidate(previousBudgetId);
+                        categoryDictionaryCache.invalidate(savedCategory.getBudgetId());
+                        periodSummaryCache.invalidate(previousBudgetId);
+                        periodSummaryCache.invalidate(savedCategory.getBudgetId());
+                    })
                     .map(budgetMapper::categoryToCategoryDto);
             });
     }
@@ -71,7 +83,13 @@ public class CategoryService {
     public Mono<Void> deleteCategory(Long categoryId) {
         return categoryRepository.findById(categoryId)
             .switchIfEmpty(Mono.error(new EntityNotFoundException("Category not found with ID " + categoryId)))
-            .flatMap(category -> categoryRepository.deleteById(categoryId))
+            .flatMap(category -> categoryRepository.deleteById(categoryId)
+                .then(categoryRuleService.deleteRulesForCategory(category))
+                .then(Mono.fromRunnable(() -> {
+                    categorySuggestionIndex.evict(category.getBudgetId());
+                    categoryDictionaryCache.invalidate(category.getBudgetId());
+                    periodSummaryCache.invalidate(category.getBudgetId());
+                })))
             .then();
     }
 
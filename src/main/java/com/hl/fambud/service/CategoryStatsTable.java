@@ -0,0 +1,213 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.model.CategoryStats;
+import com.hl.fambud.repository.CategoryStatsRepository;
+import com.hl.fambud.util.RunningStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running mean and variance of the transaction amounts per budget and category, updated in memory by committed writes.
+ * Changes are merged into {@code category_stats} every {@code app.category-stats.flush-interval} and the persisted
+ * statistics are read again once older than {@code app.category-stats.ttl}.
+ */
+@Component
+@Slf4j
+public class CategoryStatsTable {
+
+    private record Key(Long budgetId, Long categoryId) {
+    }
+
+    private static final class Entry {
+
+        // null until the budget's statistics are read
+        private RunningStats persisted;
+        private RunningStats added = new RunningStats();
+        private RunningStats removed = new RunningStats();
+
+        private boolean hasChanges() {
+            return added.count() > 0 || removed.count() > 0;
+        }
+
+        private RunningStats current() {
+            return (persisted == null ? new RunningStats() : persisted.copy()).merge(added).subtract(removed);
+        }
+    }
+
+    private record Changes(Key key, RunningStats added, RunningStats removed) {
+    }
+
+    private final CategoryStatsRepository categoryStatsRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final long ttlMillis;
+
+    private final Map<Key, Entry> entries = new HashMap<>();
+
+    // per budget, when its persisted statistics were read
+    private final Map<Long, Long> loadedAtMillis = new HashMap<>();
+
+    public CategoryStatsTable(CategoryStatsRepository categoryStatsRepository,
+                              TransactionalOperator transactionalOperator,
+                              @Value("${app.category-stats.ttl:PT1M}") Duration ttl) {
+        this.categoryStatsRepository = categoryStatsRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Records committed changes to the amounts of categories.
+     */
+    synchronized void record(List<DailyTotalsDelta.AmountChange> changes) {
+        for (DailyTotalsDelta.AmountChange change : changes) {
+            Entry entry = entries.computeIfAbsent(new Key(change.budgetId(), change.categoryId()), key -> new Entry());
+            (change.removed() ? entry.removed : entry.added).add(change.cents());
+        }
+    }
+
+    /**
+     * Returns the current statistics of the budget's categories with transactions, by category id.
+     */
+    public Mono<Map<Long, RunningStats>> getStats(Long budgetId) {
+        Map<Long, RunningStats> stats = currentStats(budgetId);
+        if (stats != null)
+            return Mono.just(stats);
+        return categoryStatsRepository.findByBudgetId(budgetId)
+            .collectList()
+            .map(rows -> {
+                synchronized (this) {
+                    entries.forEach((key, entry) -> {
+                        if (key.budgetId().equals(budgetId))
+                            entry.persisted = new RunningStats();
+                    });
+                    for (CategoryStats row : rows)
+                        entries.computeIfAbsent(new Key(budgetId, row.getCategoryId()), key -> new Entry())
+                            .persisted = RunningStats.of(row.getTxCount(), row.getMeanCents(), row.getM2());
+                    loadedAtMillis.put(budgetId, System.currentTimeMillis());
+                    log.debug("loaded statistics of " + rows.size() + " categories of budget " + budgetId);
+                    return currentStatsOf(budgetId);
+                }
+            });
+    }
+
+    // null when the budget's persisted statistics need to be read
+    private synchronized Map<Long, RunningStats> currentStats(Long budgetId) {
+        Long loadedAt = loadedAtMillis.get(budgetId);
+        if (loadedAt == null || System.currentTimeMillis() - loadedAt > ttlMillis)
+            return null;
+        return currentStatsOf(budgetId);
+    }
+
+    private Map<Long, RunningStats> currentStatsOf(Long budgetId) {
+        Map<Long, RunningStats> stats = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            if (key.budgetId().equals(budgetId)) {
+                RunningStats current = entry.current();
+                if (current.count() > 0)
+                    stats.put(key.categoryId(), current);
+            }
+        });
+        return stats;
+    }
+
+    /**
+     * Merges the changes recorded since the last flush into the persisted statistics, one database transaction per
+     * category. Changes that fail to be merged are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${app.category-stats.flush-interval:PT30S}")
+    public Mono<Void> flush() {
+        List<Changes> changes = takeChanges();
+        if (changes.isEmpty())
+            return Mono.empty();
+        return Flux.fromIterable(changes)
+            .concatMap(change -> mergeIntoRow(change)
+                .as(transactionalOperator::transactional)
+                .doOnNext(merged -> setPersisted(change.key(), merged))
+                .onErrorResume(exception -> {
+                    log.warn("failed to flush statistics of " + change.key() + ", keeping them for the next flush",
+                        exception);
+                    restoreChanges(change);
+                    return Mono.empty();
+                }))
+            .then(Mono.fromRunnable(() -> log.debug("flushed statistics of " + changes.size() + " categories")));
+    }
+
+    private synchronized List<Changes> takeChanges() {
+        List<Changes> changes = new ArrayList<>();
+        entries.forEach((key, entry) -> {
+            if (entry.hasChanges()) {
+                // taken changes count as persisted until the flush returns the merged row
+                if (entry.persisted != null)
+                    entry.persisted.merge(entry.added).subtract(entry.removed);
+                changes.add(new Changes(key, entry.added, entry.removed));
+                entry.added = new RunningStats();
+                entry.removed = new RunningStats();
+            }
+        });
+        // budgets that were written to but never read
+        entries.values().removeIf(entry -> entry.persisted == null && !entry.hasChanges());
+        return changes;
+    }
+
+    private Mono<RunningStats> mergeIntoRow(Changes change) {
+        Long budgetId = change.key().budgetId();
+        Long categoryId = change.key().categoryId();
+        return categoryStatsRepository.findForUpdate(budgetId, categoryId)
+            .map(row -> RunningStats.of(row.getTxCount(), row.getMeanCents(), row.getM2()))
+            .map(persisted -> persisted.merge(change.added()).subtract(change.removed()))
+            .flatMap(merged -> categoryStatsRepository.updateStats(budgetId, categoryId, merged.count(),
+                merged.mean(), merged.m2()).thenReturn(merged))
+            .switchIfEmpty(Mono.defer(() -> {
+                RunningStats merged = new RunningStats().merge(change.added()).subtract(change.removed());
+                return categoryStatsRepository.insertStats(budgetId, categoryId, merged.count(), merged.mean(),
+                    merged.m2()).thenReturn(merged);
+            }));
+    }
+
+    private synchronized void setPersisted(Key key, RunningStats merged) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.persisted != null)
+            entry.persisted = merged;
+    }
+
+    private synchronized void restoreChanges(Changes change) {
+        Entry entry = entries.computeIfAbsent(change.key(), key -> new Entry());
+        entry.added.merge(change.added());
+        entry.removed.merge(change.removed());
+        if (entry.persisted != null)
+            entry.persisted.subtract(change.added()).merge(change.removed());
+    }
+
+    /**
+     * Recomputes the budget's persisted statistics from its transactions. Once committed, the budget should be
+     * forgotten, as its transactions already include the changes not yet flushed.
+     */
+    Mono<Integer> rebuild(Long budgetId) {
+        return categoryStatsRepository.deleteByBudgetId(budgetId)
+            .then(categoryStatsRepository.insertFromTransactions(budgetId));
+    }
+
+    Mono<Integer> delete(Long budgetId) {
+        return categoryStatsRepository.deleteByBudgetId(budgetId);
+    }
+
+    /**
+     * Drops the budget's statistics and changes from memory, so they are read again on the next use.
+     */
+    synchronized void forget(Long budgetId) {
+        entries.keySet().removeIf(key -> key.budgetId().equals(budgetId));
+        loadedAtMillis.remove(budgetId);
+    }
+}
@@ -0,0 +1,131 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.CategorySuggestionDto;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.repository.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Suggests categories for a description from an in-memory index of the description tokens of the budget's categorised
+ * transactions. Indexes are softly referenced and rebuilt on demand.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategorySuggestionIndex {
+
+    static final int MIN_TOKEN_LENGTH = 3;
+
+    private final TransactionRepository transactionRepository;
+    private final Map<Long, SoftReference<TokenIndex>> budgetIndexes = new ConcurrentHashMap<>();
+
+    public Mono<List<CategorySuggestionDto>> suggest(Long budgetId, String description, int limit) {
+        return getIndex(budgetId).map(index -> index.suggest(tokenise(description), limit));
+    }
+
+    public void add(Transaction transaction) {
+        TokenIndex index = loadedIndex(transaction.getBudgetId());
+        if (index != null && transaction.getCategoryId() != null)
+            index.update(tokenise(transaction.getDescription()), transaction.getCategoryId(), 1);
+    }
+
+    public void remove(Transaction transaction) {
+        TokenIndex index = loadedIndex(transaction.getBudgetId());
+        if (index != null && transaction.getCategoryId() != null)
+            index.update(tokenise(transaction.getDescription()), transaction.getCategoryId(), -1);
+    }
+
+    public void evict(Long budgetId) {
+        budgetIndexes.remove(budgetId);
+    }
+
+    private TokenIndex loadedIndex(Long budgetId) {
+        SoftReference<TokenIndex> reference = budgetIndexes.get(budgetId);
+        return reference == null ? null : reference.get();
+    }
+
+    private Mono<TokenIndex> getIndex(Long budgetId) {
+        TokenIndex index = loadedIndex(budgetId);
+        if (index != null)
+            return Mono.just(index);
+        return transactionRepository.findByBudgetIdAndCategoryIdIsNotNull(budgetId)
+            .collect(TokenIndex::new, (tokenIndex, transaction) ->
+                tokenIndex.update(tokenise(transaction.getDescription()), transaction.getCategoryId(), 1))
+            .doOnNext(builtIndex -> {
+                log.debug("built category suggestion index for budget " + budgetId + " with "
+                    + builtIndex.tokenCount() + " tokens");
+                budgetIndexes.put(budgetId, new SoftReference<>(builtIndex));
+            });
+    }
+
+    static Set<String> tokenise(String description) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (description == null)
+            return tokens;
+        for (String token : description.toLowerCase().split("[^\\p{L}\\p{Nd}]+")) {
+            // reference and card numbers only add noise
+            if (token.length() >= MIN_TOKEN_LENGTH && token.chars().noneMatch(Character::isDigit))
+                tokens.add(token);
+        }
+        return tokens;
+    }
+
+    static class TokenIndex {
+
+        private final Map<String, Map<Long, Integer>> categoryCountsByToken = new HashMap<>();
+
+        synchronized void update(Set<String> tokens, Long categoryId, int delta) {
+            for (String token : tokens) {
+                Map<Long, Integer> categoryCounts = categoryCountsByToken.computeIfAbsent(token, key -> new HashMap<>());
+                if (categoryCounts.merge(categoryId, delta, Integer::sum) <= 0)
+                    categoryCounts.remove(categoryId);
+                if (categoryCounts.isEmpty())
+                    categoryCountsByToken.remove(token);
+            }
+        }
+
+        /**
+         * Each known token votes for the categories it was seen with, in proportion to how often it was seen with
+         * each. Tokens seen with many categories are weighted down as they say little about any one of them.
+         */
+        synchronized List<CategorySuggestionDto> suggest(Set<String> tokens, int limit) {
+            Map<Long, Double> scores = new HashMap<>();
+            double totalScore = 0;
+            for (String token : tokens) {
+                Map<Long, Integer> categoryCounts = categoryCountsByToken.get(token);
+                if (categoryCounts == null)
+                    continue;
+                double tokenTotal = categoryCounts.values().stream().mapToInt(Integer::intValue).sum();
+                double weight = 1.0 / categoryCounts.size();
+                for (var entry : categoryCounts.entrySet()) {
+                    double score = weight * entry.getValue() / tokenTotal;
+                    scores.merge(entry.getKey(), score, Double::sum);
+                    totalScore += score;
+                }
+            }
+            List<CategorySuggestionDto> suggestions = new ArrayList<>(scores.size());
+            for (var entry : scores.entrySet())
+                suggestions.add(new CategorySuggestionDto(entry.getKey(), entry.getValue() / totalScore));
+            suggestions.sort(Comparator.comparingDouble(CategorySuggestionDto::getScore).reversed()
+                .thenComparing(CategorySuggestionDto::getCategoryId));
+            return suggestions.size() > limit ? new ArrayList<>(suggestions.subList(0, limit)) : suggestions;
+        }
+
+        synchronized int tokenCount() {
+            return categoryCountsByToken.size();
+        }
+    }
+}
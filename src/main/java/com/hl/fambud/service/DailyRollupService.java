@@ -0,0 +1,339 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.RollupVerificationDto;
+import com.hl.fambud.model.CategoryAmountBucket;
+import com.hl.fambud.model.CategoryDayOfMonthTotal;
+import com.hl.fambud.model.CategoryMonthSpend;
+import com.hl.fambud.model.CategoryTypeTotal;
+import com.hl.fambud.model.DailyAmountBucket;
+import com.hl.fambud.model.DailyCategoryTotal;
+import com.hl.fambud.model.PeriodCategoryTypeTotal;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.repository.CategoryMonthSpendRepository;
+import com.hl.fambud.repository.DailyAmountBucketRepository;
+import com.hl.fambud.repository.DailyCategoryTotalRepository;
+import com.hl.fambud.repository.TransactionRepository;
+import com.hl.fambud.util.AmountSketch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the daily category totals, amount buckets and monthly category expenses in the same database transaction as
+ * every write of transactions. A budget's rollup can also be rebuilt from its transactions and verified against them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailyRollupService {
+
+    private record Key(LocalDate date, Long categoryId, TransactionType type) {
+    }
+
+    private record BucketKey(LocalDate date, Long categoryId, TransactionType type, Integer bucket) {
+    }
+
+    private record MonthKey(LocalDate monthStart, Long categoryId) {
+    }
+
+    private final DailyCategoryTotalRepository dailyCategoryTotalRepository;
+
+    private final DailyAmountBucketRepository dailyAmountBucketRepository;
+
+    private final TransactionRepository transactionRepository;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final PeriodSummaryCache periodSummaryCache;
+
+    private final CategoryStatsTable categoryStatsTable;
+
+    private final CategoryMonthSpendRepository categoryMonthSpendRepository;
+
+    private final CategoryLimitService categoryLimitService;
+
+    public Flux<CategoryTypeTotal> sumByCategoryAndType(Long budgetId, LocalDate startDate, LocalDate endDate) {
+        return dailyCategoryTotalRepository.sumByCategoryAndType(budgetId, startDate, endDate);
+    }
+
+    /**
+     * Totals the budget's expenses and income per category of a period and of two periods it is compared with, in
+     * one scan of the rollup. The totals of the period have index 0 and those of the compared periods 1 and 2.
+     */
+    public Flux<PeriodCategoryTypeTotal> sumByPeriodCategoryAndType(Long budgetId, LocalDate startDate,
+                                                                    LocalDate endDate, LocalDate secondStartDate,
+                                                                    LocalDate secondEndDate,
+                                                                    LocalDate thirdStartDate,
+                                                                    LocalDate thirdEndDate) {
+        return dailyCategoryTotalRepository.sumByPeriodCategoryAndType(budgetId, startDate, endDate,
+            secondStartDate, secondEndDate, thirdStartDate, thirdEndDate);
+    }
+
+    /**
+     * Streams the budget's daily expense and income totals between the dates, inclusive, in date order.
+     */
+    public Flux<DailyCategoryTotal> findSummaryTotals(Long budgetId, LocalDate startDate, LocalDate endDate) {
+        return dailyCategoryTotalRepository.findSummaryTotalsOrderByDate(budgetId, startDate, endDate);
+    }
+
+    /**
+     * Totals the budget's expenses per category and day of the month from the history start date to the start of
+     * the as-of date's month, and per category month to date as day 0.
+     */
+    public Flux<CategoryDayOfMonthTotal> sumExpensesByCategoryAndDayOfMonth(Long budgetId, LocalDate historyStartDate,
+                                                                            LocalDate asOfDate) {
+        return dailyCategoryTotalRepository.sumExpensesByCategoryAndDayOfMonth(budgetId, historyStartDate,
+            asOfDate.withDayOfMonth(1), asOfDate);
+    }
+
+    /**
+     * Streams the number of the budget's transactions of the type between the dates, inclusive, per category and
+     * amount bucket.
+     */
+    public Flux<CategoryAmountBucket> sumByCategoryAndBucket(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                                             TransactionType type) {
+        return dailyAmountBucketRepository.sumByCategoryAndBucket(budgetId, startDate, endDate, type.name());
+    }
+
+    /**
+     * Adds the changes to the totals, amount buckets and monthly expenses, one upsert per changed total, bucket or
+     * month. Joins the caller's database transaction, evicts the cached summaries of the changed dates once it
+     * completes, and records the changed amounts in the category statistics and checks the changed categories
+     * against their limits once it commits.
+     */
+    Mono<Void> apply(DailyTotalsDelta delta) {
+        List<DailyCategoryTotal> changes = delta.getChanges();
+        List<DailyAmountBucket> bucketChanges = delta.getBucketChanges();
+        if (changes.isEmpty() && bucketChanges.isEmpty())
+            return Mono.empty();
+        List<CategoryMonthSpend> monthChanges = delta.getMonthChanges();
+        return Flux.fromIterable(changes)
+            .concatMap(this::addToTotal)
+            .thenMany(Flux.fromIterable(bucketChanges).concatMap(this::addToBucket))
+            .thenMany(Flux.fromIterable(monthChanges).concatMap(this::addToMonthSpend))
+            .then(Mono.fromRunnable(() -> log.debug("applied " + changes.size() + " daily total, "
+                + bucketChanges.size() + " amount bucket and " + monthChanges.size() + " monthly expense changes")))
+            .then(afterCompletion(changes, delta.getAmountChanges(), monthChanges));
+    }
+
+    private Mono<Void> afterCompletion(List<DailyCategoryTotal> changes,
+                                       List<DailyTotalsDelta.AmountChange> amountChanges,
+                                       List<CategoryMonthSpend> monthChanges) {
+        Runnable invalidate = () -> changes.stream()
+            .collect(Collectors.groupingBy(DailyCategoryTotal::getBudgetId,
+                Collectors.mapping(DailyCategoryTotal::getDate, Collectors.toSet())))
+            .forEach(periodSummaryCache::invalidate);
+        Runnable record = () -> categoryStatsTable.record(amountChanges);
+        // outside the completed transaction, on a connection of its own
+        Mono<Void> checkLimits = Mono.defer(() -> categoryLimitService.checkLimits(monthChanges))
+            .contextWrite(context -> Context.empty());
+        return TransactionSynchronizationManager.forCurrentTransaction()
+            .flatMap(synchronizationManager -> {
+                if (!synchronizationManager.isSynchronizationActive())
+                    return Mono.fromRunnable(invalidate).then(Mono.fromRunnable(record)).then(checkLimits);
+                synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public Mono<Void> afterCompletion(int status) {
+                        return Mono.fromRunnable(invalidate)
+                            .then(status == STATUS_COMMITTED
+                                ? Mono.fromRunnable(record).then(checkLimits)
+                                : Mono.empty());
+                    }
+                });
+                return Mono.empty();
+            })
+            .onErrorResume(NoTransactionException.class,
+                e -> Mono.fromRunnable(invalidate).then(Mono.fromRunnable(record)).then(checkLimits))
+            .then();
+    }
+
+    private Mono<Integer> addToTotal(DailyCategoryTotal change) {
+        return upsert(() -> dailyCategoryTotalRepository.addToTotal(change.getBudgetId(), change.getDate(),
+                change.getCategoryId(), change.getType().name(), change.getAmountCents(), change.getTxCount()),
+            () -> dailyCategoryTotalRepository.insertTotal(change.getBudgetId(), change.getDate(),
+                change.getCategoryId(), change.getType().name(), change.getAmountCents(), change.getTxCount()));
+    }
+
+    private Mono<Integer> addToMonthSpend(CategoryMonthSpend change) {
+        return upsert(() -> categoryMonthSpendRepository.addToSpend(change.getBudgetId(), change.getMonthStart(),
+                change.getCategoryId(), change.getAmountCents(), change.getTxCount()),
+            () -> categoryMonthSpendRepository.insertSpend(change.getBudgetId(), change.getMonthStart(),
+                change.getCategoryId(), change.getAmountCents(), change.getTxCount()));
+    }
+
+    private Mono<Integer> addToBucket(DailyAmountBucket change) {
+        return upsert(() -> dailyAmountBucketRepository.addToCount(change.getBudgetId(), change.getDate(),
+                change.getCategoryId(), change.getType().name(), change.getBucket(), change.getTxCount()),
+            () -> dailyAmountBucketRepository.insertCount(change.getBudgetId(), change.getDate(),
+                change.getCategoryId(), change.getType().name(), change.getBucket(), change.getTxCount()));
+    }
+
+    // the insert skips a row inserted by a concurrent write since the update, which is then retried against it
+    private static Mono<Integer> upsert(Supplier<Mono<Integer>> update, Supplier<Mono<Integer>> insert) {
+        return update.get()
+            .flatMap(updated -> updated > 0
+                ? Mono.just(updated)
+                : insert.get().flatMap(inserted -> inserted > 0 ? Mono.just(inserted) : update.get()));
+    }
+
+    /**
+     * Recomputes the budget's totals, monthly expenses and category statistics from its transactions. The totals and
+     * statistics are aggregated by the database, the monthly expenses from the totals, and the amount buckets in
+     * memory since their indexes are computed by {@link AmountSketch}.
+     */
+    public Mono<Integer> rebuild(Long budgetId) {
+        return dailyCategoryTotalRepository.deleteByBudgetId(budgetId)
+            .then(dailyAmountBucketRepository.deleteByBudgetId(budgetId))
+            .then(categoryMonthSpendRepository.deleteByBudgetId(budgetId))
+            .then(dailyCategoryTotalRepository.insertFromTransactions(budgetId))
+            .flatMap(inserted -> categoryMonthSpendRepository.insertFromDailyTotals(budgetId).thenReturn(inserted))
+            .flatMap(inserted -> expectedBuckets(budgetId)
+                .flatMapMany(buckets -> Flux.fromIterable(buckets).concatMap(this::addToBucket))
+                .then(Mono.just(inserted)))
+            .flatMap(inserted -> categoryStatsTable.rebuild(budgetId).thenReturn(inserted))
+            .as(transactionalOperator::transactional)
+            .doOnNext(inserted -> categoryStatsTable.forget(budgetId))
+            .doOnNext(inserted -> periodSummaryCache.invalidate(budgetId))
+            .doOnNext(inserted -> log.info("rebuilt " + inserted + " daily totals for budget " + budgetId));
+    }
+
+    /**
+     * Rebuilds the budgets whose amount buckets predate them, once across instances: the instance that removes a
+     * budget's backfill row rebuilds it in the same database transaction. Failed budgets are retried on the next
+     * startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public Mono<Void> backfillAmountBuckets() {
+        return dailyAmountBucketRepository.findBackfillBudgetIds()
+            .concatMap(budgetId -> dailyAmountBucketRepository.deleteBackfill(budgetId)
+                .filter(deleted -> deleted > 0)
+                .flatMap(deleted -> rebuild(budgetId))
+                .as(transactionalOperator::transactional)
+                .onErrorResume(exception -> {
+                    log.warn("failed to backfill the amount buckets of budget " + budgetId, exception);
+                    return Mono.empty();
+                }))
+            .then();
+    }
+
+    public Mono<Void> deleteForBudget(Long budgetId) {
+        return dailyCategoryTotalRepository.deleteByBudgetId(budgetId)
+            .then(dailyAmountBucketRepository.deleteByBudgetId(budgetId))
+            .then(categoryMonthSpendRepository.deleteByBudgetId(budgetId))
+            .then(dailyAmountBucketRepository.deleteBackfill(budgetId))
+            .then(categoryStatsTable.delete(budgetId))
+            .then(Mono.fromRunnable(() -> {
+                categoryStatsTable.forget(budgetId);
+                periodSummaryCache.invalidate(budgetId);
+            }));
+    }
+
+    /**
+     * Compares the budget's rollup with totals and amount buckets computed from its transactions and reports the days
+     * they differ on. Monthly expenses that differ are reported on the first day of their month.
+     */
+    public Mono<RollupVerificationDto> verify(Long budgetId) {
+        return Mono.zip(
+                dailyCategoryTotalRepository.findByBudgetId(budgetId).collectMap(DailyRollupService::keyOf),
+                dailyCategoryTotalRepository.aggregateTransactions(budgetId).collectMap(DailyRollupService::keyOf),
+                dailyAmountBucketRepository.findByBudgetId(budgetId)
+                    .collectMap(DailyRollupService::bucketKeyOf, DailyAmountBucket::getTxCount),
+                expectedBuckets(budgetId).map(buckets -> buckets.stream()
+                    .collect(Collectors.toMap(DailyRollupService::bucketKeyOf, DailyAmountBucket::getTxCount))),
+                categoryMonthSpendRepository.findByBudgetId(budgetId).collectMap(
+                    spend -> new MonthKey(spend.getMonthStart(), spend.getCategoryId()),
+                    spend -> List.of(spend.getAmountCents(), spend.getTxCount())))
+            .map(tuple -> {
+                Map<Key, DailyCategoryTotal> rollup = tuple.getT1();
+                Map<Key, DailyCategoryTotal> expected = tuple.getT2();
+                Map<Key, DailyCategoryTotal> all = new HashMap<>(rollup);
+                all.putAll(expected);
+                TreeSet<LocalDate> mismatchedDays = new TreeSet<>();
+                all.forEach((key, total) -> {
+                    if (!sameTotal(rollup.get(key), expected.get(key)))
+                        mismatchedDays.add(total.getDate());
+                });
+                Map<BucketKey, Long> rollupBuckets = tuple.getT3();
+                Map<BucketKey, Long> expectedBuckets = tuple.getT4();
+                Set<BucketKey> allBuckets = new HashSet<>(rollupBuckets.keySet());
+                allBuckets.addAll(expectedBuckets.keySet());
+                allBuckets.forEach(key -> {
+                    if (!Objects.equals(rollupBuckets.get(key), expectedBuckets.get(key)))
+                        mismatchedDays.add(key.date());
+                });
+                Map<MonthKey, List<Long>> rollupMonths = tuple.getT5();
+                Map<MonthKey, List<Long>> expectedMonths = monthSpendOf(expected.values());
+                Set<MonthKey> allMonths = new HashSet<>(rollupMonths.keySet());
+                allMonths.addAll(expectedMonths.keySet());
+                allMonths.forEach(key -> {
+                    if (!Objects.equals(rollupMonths.get(key), expectedMonths.get(key)))
+                        mismatchedDays.add(key.monthStart());
+                });
+                if (!mismatchedDays.isEmpty())
+                    log.warn("daily totals of budget " + budgetId + " differ on " + mismatchedDays.size() + " days");
+                return RollupVerificationDto.builder()
+                    .budgetId(budgetId)
+                    .consistent(mismatchedDays.isEmpty())
+                    .rollupRows(rollup.size())
+                    .expectedRows(expected.size())
+                    .mismatchedDays(List.copyOf(mismatchedDays))
+                    .build();
+            });
+    }
+
+    private Mono<List<DailyAmountBucket>> expectedBuckets(Long budgetId) {
+        return transactionRepository.findByBudgetIdAndCategoryIdIsNotNull(budgetId)
+            .reduceWith(DailyTotalsDelta::new, DailyTotalsDelta::add)
+            .map(DailyTotalsDelta::getBucketChanges);
+    }
+
+    // the amount in cents and number of the expenses per month and category
+    private static Map<MonthKey, List<Long>> monthSpendOf(Collection<DailyCategoryTotal> totals) {
+        Map<MonthKey, long[]> monthSpend = new HashMap<>();
+        totals.stream()
+            .filter(total -> total.getType() == TransactionType.EXPENSE)
+            .forEach(total -> {
+                long[] spend = monthSpend.computeIfAbsent(
+                    new MonthKey(total.getDate().withDayOfMonth(1), total.getCategoryId()), key -> new long[2]);
+                spend[0] += total.getAmountCents();
+                spend[1] += total.getTxCount();
+            });
+        return monthSpend.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, entry -> List.of(entry.getValue()[0], entry.getValue()[1])));
+    }
+
+    private static BucketKey bucketKeyOf(DailyAmountBucket bucket) {
+        return new BucketKey(bucket.getDate(), bucket.getCategoryId(), bucket.getType(), bucket.getBucket());
+    }
+
+    private static Key keyOf(DailyCategoryTotal total) {
+        return new Key(total.getDate(), total.getCategoryId(), total.getType());
+    }
+
+    private static boolean sameTotal(DailyCategoryTotal first, DailyCategoryTotal second) {
+        return first != null && second != null
+            && Objects.equals(first.getAmountCents(), second.getAmountCents())
+            && Objects.equals(first.getTxCount(), second.getTxCount());
+    }
+}
@@ -0,0 +1,141 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.model.CategoryMonthSpend;
+import com.hl.fambud.model.DailyAmountBucket;
+import com.hl.fambud.model.DailyCategoryTotal;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.util.AmountSketch;
+import com.hl.fambud.util.MoneyAccumulator;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes to the daily totals, amount buckets, monthly expenses and category statistics caused by writing categorised
+ * transactions, netted so that each row is updated once. Instances are not thread safe.
+ */
+class DailyTotalsDelta {
+
+    private record Key(Long budgetId, LocalDate date, Long categoryId, TransactionType type) {
+    }
+
+    private record BucketKey(Key key, int bucket) {
+    }
+
+    /**
+     * An amount in cents added to, or when removed is true removed from, a category of a budget.
+     */
+    record AmountChange(Long budgetId, Long categoryId, long cents, boolean removed) {
+    }
+
+    private final Map<Key, long[]> changes = new LinkedHashMap<>();
+
+    private final Map<BucketKey, Long> bucketChanges = new LinkedHashMap<>();
+
+    private final List<AmountChange> amountChanges = new ArrayList<>();
+
+    static DailyTotalsDelta added(Collection<Transaction> transactions) {
+        DailyTotalsDelta delta = new DailyTotalsDelta();
+        transactions.forEach(delta::add);
+        return delta;
+    }
+
+    DailyTotalsDelta add(Transaction transaction) {
+        return change(transaction, transaction.getCategoryId(), 1);
+    }
+
+    DailyTotalsDelta remove(Transaction transaction) {
+        return change(transaction, transaction.getCategoryId(), -1);
+    }
+
+    /**
+     * Moves the transaction from its current category to the given one.
+     */
+    DailyTotalsDelta recategorise(Transaction transaction, Long categoryId) {
+        return change(transaction, transaction.getCategoryId(), -1)
+            .change(transaction, categoryId, 1);
+    }
+
+    private DailyTotalsDelta change(Transaction transaction, Long categoryId, int sign) {
+        if (transaction.getBudgetId() == null || categoryId == null || transaction.getType() == null)
+            return this;
+        Key key = new Key(transaction.getBudgetId(), transaction.getDate(), categoryId, transaction.getType());
+        long cents = MoneyAccumulator.toCents(transaction.getAmount());
+        long[] change = changes.computeIfAbsent(key, k -> new long[2]);
+        change[0] = Math.addExact(change[0], sign * cents);
+        change[1] += sign;
+        bucketChanges.merge(new BucketKey(key, AmountSketch.bucketOf(cents)), (long) sign, Long::sum);
+        if (transaction.getType() != TransactionType.MOVE)
+            amountChanges.add(new AmountChange(transaction.getBudgetId(), categoryId, cents, sign < 0));
+        return this;
+    }
+
+    /**
+     * Returns the changes as totals to add, leaving out those that cancelled out.
+     */
+    List<DailyCategoryTotal> getChanges() {
+        return changes.entrySet().stream()
+            .filter(entry -> entry.getValue()[0] != 0 || entry.getValue()[1] != 0)
+            .map(entry -> DailyCategoryTotal.builder()
+                .budgetId(entry.getKey().budgetId())
+                .date(entry.getKey().date())
+                .categoryId(entry.getKey().categoryId())
+                .type(entry.getKey().type())
+                .amountCents(entry.getValue()[0])
+                .txCount(entry.getValue()[1])
+                .build())
+            .toList();
+    }
+
+    /**
+     * Returns the changes as amount bucket counts to add, leaving out those that cancelled out.
+     */
+    List<DailyAmountBucket> getBucketChanges() {
+        return bucketChanges.entrySet().stream()
+            .filter(entry -> entry.getValue() != 0)
+            .map(entry -> DailyAmountBucket.builder()
+                .budgetId(entry.getKey().key().budgetId())
+                .date(entry.getKey().key().date())
+                .categoryId(entry.getKey().key().categoryId())
+                .type(entry.getKey().key().type())
+                .bucket(entry.getKey().bucket())
+                .txCount(entry.getValue())
+                .build())
+            .toList();
+    }
+
+    /**
+     * Returns the changes to the expenses of each category per month, leaving out those that cancelled out.
+     */
+    List<CategoryMonthSpend> getMonthChanges() {
+        Map<Key, long[]> monthChanges = new LinkedHashMap<>();
+        changes.forEach((key, change) -> {
+            if (key.type() == TransactionType.EXPENSE) {
+                long[] monthChange = monthChanges.computeIfAbsent(
+                    new Key(key.budgetId(), key.date().withDayOfMonth(1), key.categoryId(), key.type()),
+                    k -> new long[2]);
+                monthChange[0] = Math.addExact(monthChange[0], change[0]);
+                monthChange[1] += change[1];
+            }
+        });
+        return monthChanges.entrySet().stream()
+            .filter(entry -> entry.getValue()[0] != 0 || entry.getValue()[1] != 0)
+            .map(entry -> CategoryMonthSpend.builder()
+                .budgetId(entry.getKey().budgetId())
+                .monthStart(entry.getKey().date())
+                .categoryId(entry.getKey().categoryId())
+                .amountCents(entry.getValue()[0])
+                .txCount(entry.getValue()[1])
+                .build())
+            .toList();
+    }
+
+    List<AmountChange> getAmountChanges() {
+        return amountChanges;
+    }
+}
@@ -0,0 +1,88 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.DescriptionCountDto;
+import com.hl.fambud.dto.reporting.MerchantSpendDto;
+import com.hl.fambud.dto.reporting.TopMerchantsDto;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.util.HeavyHitters;
+import com.hl.fambud.util.MoneyAccumulator;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spend and number of transactions per merchant, the description without its digit tokens, to rank the top merchants.
+ * An approximate ranking keeps fixed size heavy hitters sketches, an exact one a total per merchant.
+ */
+class MerchantRanking {
+
+    private final HeavyHitters<String> spendSketch;
+    private final HeavyHitters<String> frequencySketch;
+    // cents and count per merchant, exact rankings only
+    private final Map<String, long[]> exactTotals;
+    private final MoneyAccumulator totalAmount = new MoneyAccumulator();
+    private long transactionCount;
+
+    private MerchantRanking(int sketchCapacity, boolean exact) {
+        this.spendSketch = exact ? null : new HeavyHitters<>(sketchCapacity);
+        this.frequencySketch = exact ? null : new HeavyHitters<>(sketchCapacity);
+        this.exactTotals = exact ? new HashMap<>() : null;
+    }
+
+    static MerchantRanking approximate(int sketchCapacity) {
+        return new MerchantRanking(sketchCapacity, false);
+    }
+
+    static MerchantRanking exact() {
+        return new MerchantRanking(0, true);
+    }
+
+    MerchantRanking add(Transaction transaction) {
+        String merchant = TransactionUtil.normaliseDescription(transaction.getDescription());
+        long cents = Math.abs(MoneyAccumulator.toCents(transaction.getAmount()));
+        transactionCount++;
+        totalAmount.addCents(cents);
+        if (exactTotals != null) {
+            long[] totals = exactTotals.computeIfAbsent(merchant, key -> new long[2]);
+            totals[0] = Math.addExact(totals[0], cents);
+            totals[1]++;
+        } else {
+            spendSketch.offer(merchant, cents);
+            frequencySketch.offer(merchant);
+        }
+        return this;
+    }
+
+    TopMerchantsDto.TopMerchantsDtoBuilder toDto(int limit) {
+        TopMerchantsDto.TopMerchantsDtoBuilder builder = TopMerchantsDto.builder()
+            .exact(exactTotals != null)
+            .transactionCount(transactionCount)
+            .totalAmount(totalAmount.toAmount());
+        if (exactTotals != null) {
+            return builder
+                .bySpend(exactTotals.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[0])
+                        .reversed())
+                    .limit(limit)
+                    .map(entry -> new MerchantSpendDto(entry.getKey(), MoneyAccumulator.toAmount(entry.getValue()[0]),
+                        MoneyAccumulator.toAmount(0)))
+                    .toList())
+                .byFrequency(exactTotals.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, long[]> entry) -> entry.getValue()[1])
+                        .reversed())
+                    .limit(limit)
+                    .map(entry -> new DescriptionCountDto(entry.getKey(), entry.getValue()[1], 0L))
+                    .toList());
+        }
+        List<MerchantSpendDto> bySpend = spendSketch.top(limit).stream()
+            .map(entry -> new MerchantSpendDto(entry.item(), MoneyAccumulator.toAmount(entry.count()),
+                MoneyAccumulator.toAmount(entry.error())))
+            .toList();
+        List<DescriptionCountDto> byFrequency = frequencySketch.top(limit).stream()
+            .map(entry -> new DescriptionCountDto(entry.item(), entry.count(), entry.error()))
+            .toList();
+        return builder.bySpend(bySpend).byFrequency(byFrequency);
+    }
+}
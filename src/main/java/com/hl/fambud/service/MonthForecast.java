@@ -0,0 +1,140 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.CategoryForecastDto;
+import com.hl.fambud.dto.reporting.MonthForecastDto;
+import com.hl.fambud.dto.reporting.RecurringTransactionDto;
+import com.hl.fambud.model.CategoryDayOfMonthTotal;
+import com.hl.fambud.util.MoneyAccumulator;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Month-end projection of a budget's expenses per category from its month-to-date spend, its spend on the remaining
+ * days of past months and the recurring payments still expected. Instances are not thread safe.
+ */
+class MonthForecast {
+
+    private static final int MONTH_TO_DATE = 0;
+
+    private static final class CategoryTotals {
+
+        private long monthToDateCents;
+        // indexed by day of the month
+        private final long[] historyCents = new long[32];
+        private long recurringCents;
+    }
+
+    private final LocalDate asOfDate;
+    private final Map<Long, CategoryTotals> categories = new HashMap<>();
+    // the start of the month of the earliest expense before the month, if any
+    private LocalDate historyStartDate;
+
+    MonthForecast(LocalDate asOfDate) {
+        this.asOfDate = asOfDate;
+    }
+
+    MonthForecast add(CategoryDayOfMonthTotal total) {
+        CategoryTotals totals = totalsOf(total.getCategoryId());
+        if (total.getDayOfMonth() == MONTH_TO_DATE) {
+            totals.monthToDateCents = Math.addExact(totals.monthToDateCents, total.getAmountCents());
+        } else {
+            int day = total.getDayOfMonth();
+            totals.historyCents[day] = Math.addExact(totals.historyCents[day], total.getAmountCents());
+            LocalDate firstMonthStart = total.getFirstDate().withDayOfMonth(1);
+            if (historyStartDate == null || firstMonthStart.isBefore(historyStartDate))
+                historyStartDate = firstMonthStart;
+        }
+        return this;
+    }
+
+    /**
+     * Adds a recurring expense expected after the as-of date and by the end of the month.
+     */
+    MonthForecast addRecurring(RecurringTransactionDto recurring) {
+        if (recurring.getCategoryId() != null) {
+            CategoryTotals totals = totalsOf(recurring.getCategoryId());
+            totals.recurringCents = Math.addExact(totals.recurringCents,
+                MoneyAccumulator.toCents(recurring.getTypicalAmount()));
+        }
+        return this;
+    }
+
+    private CategoryTotals totalsOf(Long categoryId) {
+        return categories.computeIfAbsent(categoryId, id -> new CategoryTotals());
+    }
+
+    Set<Long> getCategoryIds() {
+        return categories.keySet();
+    }
+
+    MonthForecastDto.MonthForecastDtoBuilder toDto(Map<Long, String> categoryNames) {
+        YearMonth month = YearMonth.from(asOfDate);
+        int[] historyMonthsWithDay = historyMonthsWithDay(month);
+        int remainingDays = month.lengthOfMonth() - asOfDate.getDayOfMonth();
+        long monthToDateCents = 0;
+        long remainingCents = 0;
+        List<CategoryForecastDto> forecasts = new ArrayList<>();
+        for (Map.Entry<Long, CategoryTotals> entry : categories.entrySet()) {
+            CategoryTotals totals = entry.getValue();
+            long historicalCents = historyStartDate == null
+                ? Math.round((double) totals.monthToDateCents / asOfDate.getDayOfMonth() * remainingDays)
+                : historicalRemainingCents(totals, historyMonthsWithDay, month);
+            long projectedRemainingCents = Math.max(historicalCents, totals.recurringCents);
+            monthToDateCents = Math.addExact(monthToDateCents, totals.monthToDateCents);
+            remainingCents = Math.addExact(remainingCents, projectedRemainingCents);
+            forecasts.add(CategoryForecastDto.builder()
+                .categoryId(entry.getKey())
+                .categoryName(categoryNames.get(entry.getKey()))
+                .monthToDate(MoneyAccumulator.toAmount(totals.monthToDateCents))
+                .historicalRemaining(MoneyAccumulator.toAmount(historicalCents))
+                .recurringRemaining(MoneyAccumulator.toAmount(totals.recurringCents))
+                .projectedRemaining(MoneyAccumulator.toAmount(projectedRemainingCents))
+                .projectedTotal(MoneyAccumulator.toAmount(
+                    Math.addExact(totals.monthToDateCents, projectedRemainingCents)))
+                .build());
+        }
+        forecasts.sort(Comparator.comparing(CategoryForecastDto::getProjectedTotal).reversed()
+            .thenComparing(CategoryForecastDto::getCategoryId));
+        return MonthForecastDto.builder()
+            .startDate(month.atDay(1))
+            .endDate(month.atEndOfMonth())
+            .asOfDate(asOfDate)
+            .historyStartDate(historyStartDate)
+            .historyMonths(historyStartDate == null ? 0
+                : (int) YearMonth.from(historyStartDate).until(month, ChronoUnit.MONTHS))
+            .monthToDate(MoneyAccumulator.toAmount(monthToDateCents))
+            .projectedRemaining(MoneyAccumulator.toAmount(remainingCents))
+            .projectedTotal(MoneyAccumulator.toAmount(Math.addExact(monthToDateCents, remainingCents)))
+            .categories(forecasts);
+    }
+
+    private long historicalRemainingCents(CategoryTotals totals, int[] historyMonthsWithDay, YearMonth month) {
+        double cents = 0;
+        for (int day = asOfDate.getDayOfMonth() + 1; day <= month.lengthOfMonth(); day++) {
+            if (historyMonthsWithDay[day] > 0)
+                cents += (double) totals.historyCents[day] / historyMonthsWithDay[day];
+        }
+        return Math.round(cents);
+    }
+
+    // per day of the month, how many history months have that day
+    private int[] historyMonthsWithDay(YearMonth month) {
+        int[] months = new int[32];
+        if (historyStartDate == null)
+            return months;
+        for (YearMonth historyMonth = YearMonth.from(historyStartDate); historyMonth.isBefore(month);
+             historyMonth = historyMonth.plusMonths(1)) {
+            for (int day = 1; day <= historyMonth.lengthOfMonth(); day++)
+                months[day]++;
+        }
+        return months;
+    }
+}
@@ -0,0 +1,93 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.util.MinHash;
+
+import java.math.RoundingMode;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Finds transactions of the same type and amount as a given one, dated within the tolerance and with a similar
+ * description. Descriptions are compared through MinHash signatures indexed by amount and signature band.
+ */
+class NearDuplicateIndex {
+
+    static final int SIGNATURE_SIZE = 32;
+    static final int BANDS = 16;
+    static final double SIMILARITY_THRESHOLD = 0.6;
+
+    private static final MinHash MIN_HASH = new MinHash(SIGNATURE_SIZE, 3, 20241031L);
+
+    private final int dateToleranceDays;
+    private final Map<BandKey, List<IndexedTransaction>> transactionsByBand = new HashMap<>();
+
+    NearDuplicateIndex(int dateToleranceDays) {
+        this.dateToleranceDays = dateToleranceDays;
+    }
+
+    void add(Transaction transaction) {
+        int[] signature = signature(transaction);
+        IndexedTransaction indexedTransaction = new IndexedTransaction(transaction, signature);
+        long[] bandHashes = MinHash.bandHashes(signature, BANDS);
+        for (int band = 0; band < BANDS; band++) {
+            transactionsByBand.computeIfAbsent(bandKey(transaction, band, bandHashes[band]), key -> new ArrayList<>(1))
+                .add(indexedTransaction);
+        }
+    }
+
+    /**
+     * Returns the most similar indexed transaction that is a near duplicate of the given one, if any.
+     */
+    Optional<Transaction> findNearDuplicate(Transaction transaction) {
+        int[] signature = signature(transaction);
+        long[] bandHashes = MinHash.bandHashes(signature, BANDS);
+        Set<IndexedTransaction> compared = Collections.newSetFromMap(new IdentityHashMap<>());
+        Transaction nearDuplicate = null;
+        double bestSimilarity = SIMILARITY_THRESHOLD;
+        for (int band = 0; band < BANDS; band++) {
+            List<IndexedTransaction> candidates = transactionsByBand.get(bandKey(transaction, band, bandHashes[band]));
+            if (candidates == null)
+                continue;
+            for (IndexedTransaction candidate : candidates) {
+                if (!compared.add(candidate) || !withinDateTolerance(transaction, candidate.transaction()))
+                    continue;
+                double similarity = MinHash.similarity(signature, candidate.signature());
+                if (similarity >= bestSimilarity) {
+                    bestSimilarity = similarity;
+                    nearDuplicate = candidate.transaction();
+                }
+            }
+        }
+        return Optional.ofNullable(nearDuplicate);
+    }
+
+    private boolean withinDateTolerance(Transaction transaction, Transaction candidate) {
+        return Math.abs(ChronoUnit.DAYS.between(transaction.getDate(), candidate.getDate())) <= dateToleranceDays;
+    }
+
+    private static BandKey bandKey(Transaction transaction, int band, long bandHash) {
+        long amountCents = transaction.getAmount().setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        return new BandKey(transaction.getType(), amountCents, band, bandHash);
+    }
+
+    // upper cased with single spaces, as banks vary case and padding between exports
+    private static int[] signature(Transaction transaction) {
+        String description = transaction.getDescription() == null ? "" : transaction.getDescription();
+        return MIN_HASH.signature(description.trim().replaceAll("\\s+", " ").toUpperCase());
+    }
+
+    private record BandKey(TransactionType type, long amountCents, int band, long bandHash) {
+    }
+
+    private record IndexedTransaction(Transaction transaction, int[] signature) {
+    }
+}
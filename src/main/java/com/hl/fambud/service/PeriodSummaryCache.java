@@ -0,0 +1,140 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.PeriodSummaryDto;
+import com.hl.fambud.dto.reporting.SummaryCacheStatsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caches the {@code app.summary-cache.max-entries} most recently used period summaries by budget and date range. A
+ * committed write evicts the summaries whose range contains its dates, and summaries expire after {@code
+ * app.summary-cache.ttl}.
+ */
+@Component
+@Slf4j
+public class PeriodSummaryCache {
+
+    private record Key(Long budgetId, LocalDate startDate, LocalDate endDate) {
+
+        boolean contains(LocalDate date) {
+            return !date.isBefore(startDate) && !date.isAfter(endDate);
+        }
+    }
+
+    private record Entry(PeriodSummaryDto summary, long loadedAtMillis) {
+    }
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    private final Map<Key, Entry> entries;
+
+    // per budget, the number of invalidations so far, to recognise summaries computed across an invalidation
+    private final Map<Long, Long> generations = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public PeriodSummaryCache(@Value("${app.summary-cache.max-entries:1000}") int maxEntries,
+                              @Value("${app.summary-cache.ttl:PT1M}") Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= PeriodSummaryCache.this.maxEntries)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached summary of the range, or computes it with the loader and caches it.
+     */
+    public Mono<PeriodSummaryDto> get(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                      Supplier<Mono<PeriodSummaryDto>> loader) {
+        Key key = new Key(budgetId, startDate, endDate);
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() - entry.loadedAtMillis() > ttlMillis) {
+                entries.remove(key);
+                expirations++;
+                entry = null;
+            }
+            if (entry != null) {
+                hits++;
+                return Mono.just(entry.summary());
+            }
+            misses++;
+            generation = generations.getOrDefault(budgetId, 0L);
+        }
+        long loadedAtMillis = System.currentTimeMillis();
+        return loader.get()
+            .doOnNext(summary -> {
+                synchronized (this) {
+                    if (generations.getOrDefault(budgetId, 0L) == generation)
+                        entries.put(key, new Entry(summary, loadedAtMillis));
+                }
+            });
+    }
+
+    /**
+     * Evicts the budget's summaries whose range contains any of the dates.
+     */
+    public synchronized void invalidate(Long budgetId, Collection<LocalDate> dates) {
+        generations.merge(budgetId, 1L, Long::sum);
+        int removed = 0;
+        for (Iterator<Key> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            Key key = keys.next();
+            if (key.budgetId().equals(budgetId) && dates.stream().anyMatch(key::contains)) {
+                keys.remove();
+                removed++;
+            }
+        }
+        invalidations += removed;
+        if (removed > 0)
+            log.debug("evicted " + removed + " summaries of budget " + budgetId);
+    }
+
+    /**
+     * Evicts all summaries of the budget, for changes not tied to dates such as renaming a category.
+     */
+    public synchronized void invalidate(Long budgetId) {
+        generations.merge(budgetId, 1L, Long::sum);
+        int sizeBefore = entries.size();
+        entries.keySet().removeIf(key -> key.budgetId().equals(budgetId));
+        invalidations += sizeBefore - entries.size();
+    }
+
+    public synchronized SummaryCacheStatsDto getStats() {
+        long requests = hits + misses;
+        return SummaryCacheStatsDto.builder()
+            .size(entries.size())
+            .maxSize(maxEntries)
+            .hits(hits)
+            .misses(misses)
+            .hitRatio(requests == 0 ? 0 : (double) hits / requests)
+            .evictions(evictions)
+            .expirations(expirations)
+            .invalidations(invalidations)
+            .build();
+    }
+}
@@ -0,0 +1,186 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.RecurringTransactionDto;
+import com.hl.fambud.model.RecurrencePeriod;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds recurring payments and income of a budget from the intervals between the recent transactions of each merchant.
+ * The merchants of each budget are cached until a write evicts them or they are older than {@code
+ * app.recurring-cache.ttl}, and then rebuilt from all of the budget's transactions.
+ */
+@Service
+@Slf4j
+public class RecurringTransactionDetector {
+
+    static final int MIN_OCCURRENCES = 3;
+    static final double MIN_REGULARITY = 0.75;
+
+    private final TransactionRepository transactionRepository;
+    private final long ttlMillis;
+    private final Map<Long, CachedHistory> budgetHistories = new ConcurrentHashMap<>();
+
+    public RecurringTransactionDetector(
+        TransactionRepository transactionRepository, @Value("${app.recurring-cache.ttl:PT5M}") Duration ttl) {
+        this.transactionRepository = transactionRepository;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    public Mono<List<RecurringTransactionDto>> findRecurringTransactions(Long budgetId) {
+        long now = System.currentTimeMillis();
+        CachedHistory cachedHistory = budgetHistories.compute(budgetId, (id, cached) ->
+            cached == null || now - cached.createdAtMillis() > ttlMillis
+                ? new CachedHistory(load(budgetId), now)
+                : cached);
+        return cachedHistory.history()
+            .doOnError(exception -> budgetHistories.remove(budgetId, cachedHistory))
+            .map(BudgetHistory::findRecurringTransactions);
+    }
+
+    /**
+     * Drops the cached merchants of the budget, to be called once a write to its transactions is committed. A rebuild
+     * already running when it is called only serves the requests that started it.
+     */
+    public void evict(Long budgetId) {
+        budgetHistories.remove(budgetId);
+    }
+
+    private Mono<BudgetHistory> load(Long budgetId) {
+        return transactionRepository.findByBudgetId(budgetId)
+            .collect(BudgetHistory::new, BudgetHistory::add)
+            .doOnNext(budgetHistory -> log.debug("built the recurring transaction history of budget " + budgetId
+                + " from " + budgetHistory.getTransactionCount() + " transactions"))
+            .cache();
+    }
+
+    record CachedHistory(Mono<BudgetHistory> history, long createdAtMillis) {
+    }
+
+    record MerchantKey(TransactionType type, String merchant) {
+    }
+
+    static class BudgetHistory {
+
+        private final Map<MerchantKey, MerchantHistory> merchantHistories = new HashMap<>();
+        private long transactionCount;
+
+        long getTransactionCount() {
+            return transactionCount;
+        }
+
+        void add(Transaction transaction) {
+            transactionCount++;
+            if (transaction.getType() == TransactionType.MOVE)
+                return;
+            String merchant = TransactionUtil.normaliseDescription(transaction.getDescription());
+            if (merchant.isEmpty())
+                return;
+            merchantHistories.computeIfAbsent(new MerchantKey(transaction.getType(), merchant), key -> new MerchantHistory())
+                .add(transaction);
+        }
+
+        List<RecurringTransactionDto> findRecurringTransactions() {
+            List<RecurringTransactionDto> recurringTransactions = new ArrayList<>();
+            merchantHistories.forEach((key, merchantHistory) -> {
+                RecurrencePeriod period = merchantHistory.detectPeriod();
+                if (period != null)
+                    recurringTransactions.add(merchantHistory.toDto(key, period));
+            });
+            recurringTransactions.sort(Comparator.comparing(RecurringTransactionDto::getType)
+                .thenComparing(RecurringTransactionDto::getTypicalAmount, Comparator.reverseOrder())
+                .thenComparing(RecurringTransactionDto::getMerchant));
+            return recurringTransactions;
+        }
+    }
+
+    /**
+     * The most recent occurrences of a merchant, ordered by date whatever order they were added in.
+     */
+    static class MerchantHistory {
+
+        static final int MAX_OCCURRENCES = 24;
+
+        private final LocalDate[] dates = new LocalDate[MAX_OCCURRENCES];
+        private final BigDecimal[] amounts = new BigDecimal[MAX_OCCURRENCES];
+        private int size;
+        private long occurrences;
+        // of the most recent occurrence
+        private Long categoryId;
+
+        void add(Transaction transaction) {
+            occurrences++;
+            LocalDate date = transaction.getDate();
+            if (size == MAX_OCCURRENCES) {
+                if (!date.isAfter(dates[0]))
+                    return;
+                // make room by dropping the oldest occurrence
+                System.arraycopy(dates, 1, dates, 0, size - 1);
+                System.arraycopy(amounts, 1, amounts, 0, size - 1);
+                size--;
+            }
+            int position = size;
+            while (position > 0 && dates[position - 1].isAfter(date)) {
+                dates[position] = dates[position - 1];
+                amounts[position] = amounts[position - 1];
+                position--;
+            }
+            dates[position] = date;
+            amounts[position] = transaction.getAmount();
+            size++;
+            if (position == size - 1)
+                categoryId = transaction.getCategoryId();
+        }
+
+        /**
+         * Returns the period of the median interval if enough of the intervals match it, otherwise null.
+         */
+        RecurrencePeriod detectPeriod() {
+            if (size < MIN_OCCURRENCES)
+                return null;
+            long[] intervals = new long[size - 1];
+            for (int i = 1; i < size; i++)
+                intervals[i - 1] = ChronoUnit.DAYS.between(dates[i - 1], dates[i]);
+            long[] sortedIntervals = intervals.clone();
+            Arrays.sort(sortedIntervals);
+            RecurrencePeriod period = RecurrencePeriod.of(sortedIntervals[sortedIntervals.length / 2]);
+            if (period == null)
+                return null;
+            long matching = Arrays.stream(intervals).filter(period::matches).count();
+            return matching >= MIN_REGULARITY * intervals.length ? period : null;
+        }
+
+        RecurringTransactionDto toDto(MerchantKey key, RecurrencePeriod period) {
+            BigDecimal[] sortedAmounts = Arrays.copyOf(amounts, size);
+            Arrays.sort(sortedAmounts);
+            LocalDate lastDate = dates[size - 1];
+            return RecurringTransactionDto.builder()
+                .merchant(key.merchant())
+                .type(key.type())
+                .categoryId(categoryId)
+                .period(period)
+                .typicalAmount(sortedAmounts[size / 2])
+                .occurrences(occurrences)
+                .lastDate(lastDate)
+                .nextExpectedDate(period.next(lastDate))
+                .build();
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.AmountDistributionDto;
+import com.hl.fambud.dto.reporting.AmountHistogramBinDto;
+import com.hl.fambud.dto.reporting.CategoryAmountDistributionDto;
+import com.hl.fambud.dto.reporting.AnomalyDto;
+import com.hl.fambud.dto.reporting.BudgetCategoryAmountDto;
+import com.hl.fambud.dto.reporting.BudgetSubtotalDto;
+import com.hl.fambud.dto.reporting.CashFlowDto;
+import com.hl.fambud.dto.reporting.CategorySummaryDto;
+import com.hl.fambud.dto.reporting.ConsolidatedCategoryDto;
+import com.hl.fambud.dto.reporting.ConsolidatedSummaryDto;
+import com.hl.fambud.dto.reporting.CrossTabReportDto;
+import com.hl.fambud.dto.reporting.MonthForecastDto;
+import com.hl.fambud.dto.reporting.PeriodSummaryDto;
+import com.hl.fambud.dto.reporting.RecurringTransactionDto;
+import com.hl.fambud.dto.reporting.ReportLabelDto;
+import com.hl.fambud.dto.reporting.TopMerchantsDto;
+import com.hl.fambud.model.Budget;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.model.Transactor;
+import com.hl.fambud.model.TransactorCategoryTotal;
+import com.hl.fambud.repository.BudgetRepository;
+import com.hl.fambud.repository.TransactionRepository;
+import com.hl.fambud.repository.TransactorRepository;
+import com.hl.fambud.util.AmountSketch;
+import com.hl.fambud.util.MoneyAccumulator;
+import com.hl.fambud.util.RunningStats;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportService {
+
+    static final String UNASSIGNED = "Unassigned";
+
+    static final String UNCATEGORISED = "Uncategorised";
+
+    static final int MAX_TOP_MERCHANTS = 100;
+
+    static final int MERCHANT_SKETCH_CAPACITY = 1000;
+
+    static final long MAX_EXACT_MERCHANT_DAYS = 366;
+
+    static final int MAX_CONSOLIDATED_BUDGETS = 20;
+
+    // budgets summarised at the same time for a consolidated summary
+    static final int CONSOLIDATION_CONCURRENCY = 4;
+
+    // transactions a category needs before its amounts are considered to have a normal range
+    static final int MIN_ANOMALY_TRANSACTIONS = 5;
+
+    static final int MAX_ANOMALIES = 100;
+
+    // months of expenses before the forecast month that its projection is based on
+    static final int FORECAST_HISTORY_MONTHS = 12;
+
+    // lower bounds of the amount histogram bins in cents, for 0, $10, $20, $50, $100, ... up to a million dollars
+    static final List<Long> HISTOGRAM_BOUNDS = histogramBounds(1000, 100_000_000);
+
+    private final TransactionRepository transactionRepository;
+
+    private final TransactorRepository transactorRepository;
+
+    private final CategoryDictionaryCache categoryDictionaryCache;
+
+    private final DailyRollupService dailyRollupService;
+
+    private final TransactionCategoriser transactionCategoriser;
+
+    private final BudgetRepository budgetRepository;
+
+    private final CategoryStatsTable categoryStatsTable;
+
+    private final RecurringTransactionDetector recurringTransactionDetector;
+
+    /**
+     * Cross-tabulates the budget's transactions of the type between the dates, inclusive, with transactors as rows and
+     * categories as columns, each sorted by name. Transactions without an existing transactor or category are totalled
+     * in a last row or column with a null id.
+     */
+    public Mono<CrossTabReportDto> getTransactorCategoryCrossTab(
+        Long budgetId, LocalDate startDate, LocalDate endDate, TransactionType type) {
+        Mono<Map<Long, String>> transactorNamesMono = transactorRepository.findByBudgetId(budgetId)
+            .collectMap(Transactor::getTransactorId, ReportService::nameOf);
+        return transactionRepository.sumByTransactorAndCategory(budgetId, startDate, endDate, type.name())
+            .collectList()
+            .flatMap(totals -> {
+                Set<Long> categoryIds = totals.stream()
+                    .map(TransactorCategoryTotal::getCategoryId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+                return Mono.zip(transactorNamesMono, categoryDictionaryCache.getDictionary(budgetId, categoryIds))
+                    .map(tuple -> toCrossTab(startDate, endDate, type, totals, tuple.getT1(),
+                        tuple.getT2().getNamesById()));
+            });
+    }
+
+    /**
+     * Ranks the merchants of the budget's transactions of the type between the dates, inclusive, by spend and by number
+     * of transactions. The default approximate ranking may over-estimate each amount and count by up to its reported
+     * error, and the exact one is limited to ranges of up to a year.
+     */
+    public Mono<TopMerchantsDto> getTopMerchants(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                                 TransactionType type, int limit, boolean exact) {
+        if (endDate.isBefore(startDate))
+            return Mono.error(new IllegalArgumentException("End date " + endDate + " is before start date " + startDate));
+        if (limit < 1 || limit > MAX_TOP_MERCHANTS)
+            return Mono.error(new IllegalArgumentException("Limit must be between 1 and " + MAX_TOP_MERCHANTS));
+        if (exact && ChronoUnit.DAYS.between(startDate, endDate) >= MAX_EXACT_MERCHANT_DAYS)
+            return Mono.error(new IllegalArgumentException(
+                "Exact top merchants are limited to " + MAX_EXACT_MERCHANT_DAYS + " days"));
+        return transactionRepository.findByBudgetIdAndDateBetween(budgetId, startDate, endDate)
+            .filter(transaction -> transaction.getType() == type)
+            .reduceWith(() -> exact ? MerchantRanking.exact()
+                    : MerchantRanking.approximate(Math.max(MERCHANT_SKETCH_CAPACITY, limit * 10)),
+                MerchantRanking::add)
+            .map(ranking -> ranking.toDto(limit)
+                .startDate(startDate)
+                .endDate(endDate)
+                .type(type)
+                .build());
+    }
+
+    /**
+     * Reports the median, 90th and 99th percentile amount and a histogram of the amounts of the budget's categorised
+     * transactions of the type between the dates, inclusive, per category sorted by name. Quantiles are accurate to
+     * {@link AmountSketch#RELATIVE_ACCURACY}, and categories that no longer exist are reported together last with a
+     * null id.
+     */
+    public Mono<AmountDistributionDto> getAmountDistribution(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                                             TransactionType type) {
+        if (endDate.isBefore(startDate))
+            return Mono.error(new IllegalArgumentException("End date " + endDate + " is before start date " + startDate));
+        return dailyRollupService.sumByCategoryAndBucket(budgetId, startDate, endDate, type)
+            .collect(HashMap<Long, AmountSketch>::new, (sketches, bucket) -> sketches
+                .computeIfAbsent(bucket.getCategoryId(), categoryId -> new AmountSketch())
+                .add(bucket.getBucket(), bucket.getTransactionCount()))
+            .flatMap(sketches -> categoryDictionaryCache.getDictionary(budgetId, sketches.keySet())
+                .map(dictionary -> AmountDistributionDto.builder()
+                    .startDate(startDate)
+                    .endDate(endDate)
+                    .type(type)
+                    .relativeAccuracy(AmountSketch.RELATIVE_ACCURACY)
+                    .categories(toDistributions(sketches, dictionary.getNamesById()))
+                    .build()));
+    }
+
+    private static List<CategoryAmountDistributionDto> toDistributions(Map<Long, AmountSketch> sketches,
+                                                                       Map<Long, String> categoryNames) {
+        Map<Long, AmountSketch> byLabel = new HashMap<>();
+        sketches.forEach((categoryId, sketch) -> byLabel
+            .computeIfAbsent(isNamed(categoryId, categoryNames) ? categoryId : null, id -> new AmountSketch())
+            .merge(sketch));
+        return labels(sketches.keySet(), categoryNames, UNCATEGORISED).stream()
+            .map(label -> {
+                AmountSketch sketch = byLabel.get(label.getId());
+                return CategoryAmountDistributionDto.builder()
+                    .categoryId(label.getId())
+                    .name(label.getName())
+                    .transactionCount(sketch.count())
+                    .p50(MoneyAccumulator.toAmount(sketch.quantile(0.5)))
+                    .p90(MoneyAccumulator.toAmount(sketch.quantile(0.9)))
+                    .p99(MoneyAccumulator.toAmount(sketch.quantile(0.99)))
+                    .histogram(histogram(sketch))
+                    .build();
+            })
+            .toList();
+    }
+
+    // bins up to the last non-empty one
+    private static List<AmountHistogramBinDto> histogram(AmountSketch sketch) {
+        List<Long> counts = sketch.histogram(HISTOGRAM_BOUNDS);
+        int last = counts.size() - 1;
+        while (last > 0 && counts.get(last) == 0)
+            last--;
+        List<AmountHistogramBinDto> bins = new ArrayList<>(last + 1);
+        for (int i = 0; i <= last; i++)
+            bins.add(new AmountHistogramBinDto(MoneyAccumulator.toAmount(HISTOGRAM_BOUNDS.get(i)),
+                i + 1 < HISTOGRAM_BOUNDS.size() ? MoneyAccumulator.toAmount(HISTOGRAM_BOUNDS.get(i + 1)) : null,
+                counts.get(i)));
+        return bins;
+    }
+
+    private static List<Long> histogramBounds(long firstCents, long lastCents) {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        for (long decade = firstCents; decade <= lastCents; decade *= 10) {
+            bounds.add(decade);
+            if (decade * 2 <= lastCents)
+                bounds.add(decade * 2);
+            if (decade * 5 <= lastCents)
+                bounds.add(decade * 5);
+        }
+        return List.copyOf(bounds);
+    }
+
+    /**
+     * Consolidates the summaries of several budgets between the dates, inclusive, into one with subtotals per budget,
+     * merging categories of the same name across budgets regardless of case and surrounding spaces. At most {@link
+     * #CONSOLIDATION_CONCURRENCY} budgets are summarised at a time.
+     */
+    public Mono<ConsolidatedSummaryDto> getConsolidatedSummary(List<Long> budgetIds, LocalDate startDate,
+                                                               LocalDate endDate) {
+        if (endDate.isBefore(startDate))
+            return Mono.error(new IllegalArgumentException("End date " + endDate + " is before start date " + startDate));
+        List<Long> distinctBudgetIds = budgetIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinctBudgetIds.isEmpty() || distinctBudgetIds.size() > MAX_CONSOLIDATED_BUDGETS)
+            return Mono.error(new IllegalArgumentException(
+                "Between 1 and " + MAX_CONSOLIDATED_BUDGETS + " budgets can be consolidated"));
+        return budgetRepository.findAllById(distinctBudgetIds)
+            .collectMap(Budget::getBudgetId, Budget::getName)
+            .flatMap(budgetNames -> {
+                List<Long> missingBudgetIds = distinctBudgetIds.stream()
+                    .filter(budgetId -> !budgetNames.containsKey(budgetId))
+                    .toList();
+                if (!missingBudgetIds.isEmpty())
+                    return Mono.error(new EntityNotFoundException("Budgets not found with ids: " + missingBudgetIds));
+                return Flux.fromIterable(distinctBudgetIds)
+                    .flatMapSequential(budgetId -> transactionCategoriser
+                        .getBudgetPeriodSummary(budgetId, startDate, endDate)
+                        .map(summary -> Tuples.of(budgetId, summary)), CONSOLIDATION_CONCURRENCY)
+                    .collectList()
+                    .map(summaries -> consolidate(startDate, endDate, summaries, budgetNames));
+            });
+    }
+
+    /**
+     * Builds the budget's cash flow timeline between the dates, inclusive: the income, expenses, net flow and running
+     * balance of every day with transactions, starting from the opening balance. Moves between accounts are left out,
+     * as they neither add to nor take from the household's money.
+     */
+    public Mono<CashFlowDto> getCashFlow(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                         BigDecimal openingBalance) {
+        if (endDate.isBefore(startDate))
+            return Mono.error(new IllegalArgumentException("End date " + endDate + " is before start date " + startDate));
+        long openingCents = MoneyAccumulator.toCents(openingBalance == null ? BigDecimal.ZERO : openingBalance);
+        return transactionRepository.sumCashFlowByDate(budgetId, startDate, endDate)
+            .reduceWith(() -> new CashFlowTimeline(openingCents), CashFlowTimeline::add)
+            .map(timeline -> timeline.toDto()
+                .startDate(startDate)
+                .endDate(endDate)
+                .build());
+    }
+
+    /**
+     * Flags the budget's categorised income and expenses between the dates, inclusive, whose amounts are at least the
+     * threshold number of standard deviations from the mean of their category, largest deviation first. Categories with
+     * fewer than {@link #MIN_ANOMALY_TRANSACTIONS} transactions are not judged.
+     */
+    public Mono<List<AnomalyDto>> getAnomalies(Long budgetId, LocalDate startDate, LocalDate endDate,
+                                               double threshold) {
+        if (endDate.isBefore(startDate))
+            return Mono.error(new IllegalArgumentException("End date " + endDate + " is before start date " + startDate));
+        if (!(threshold > 0))
+            return Mono.error(new IllegalArgumentException("Threshold must be positive: " + threshold));
+        return categoryStatsTable.getStats(budgetId)
+            .flatMap(statsByCategoryId -> transactionRepository
+                .findByBudgetIdAndDateBetween(budgetId, startDate, endDate)
+                .filter(transaction -> transaction.getCategoryId() != null
+                    && transaction.getType() != TransactionType.MOVE)
+                .filter(transaction -> {
+                    RunningStats stats = statsByCategoryId.get(transaction.getCategoryId());
+                    return stats != null && stats.count() >= MIN_ANOMALY_TRANSACTIONS
+                        && Math.abs(stats.zScore(MoneyAccumulator.toCents(transaction.getAmount()))) >= threshold;
+                })
+                .collectList()
+                .flatMap(transactions -> categoryDictionaryCache.getDictionary(budgetId, statsByCategoryId.keySet())
+                    .map(dictionary -> transactions.stream()
+                        .map(transaction -> toAnomaly(transaction, statsByCategoryId.get(transaction.getCategoryId()),
+                            dictionary.getName(transaction.getCategoryId()).orElse(null)))
+                        .sorted(Comparator.comparing((AnomalyDto anomaly) -> anomaly.getZScore().abs()).reversed())
+                        .limit(MAX_ANOMALIES)
+                        .toList())));
+    }
+
+    /**
+     * Projects the budget's expenses per category to the end of the as-of date's month from the month-to-date spend,
+     * the spend on the rest of the month in the {@link #FORECAST_HISTORY_MONTHS} months before and the recurring
+     * expenses still expected. Recurring expenses only raise a projection when the history falls short of them, as for
+     * a recently started subscription.
+     */
+    public Mono<MonthForecastDto> getMonthForecast(Long budgetId, LocalDate asOfDate) {
+        LocalDate historyStartDate = asOfDate.withDayOfMonth(1).minusMonths(FORECAST_HISTORY_MONTHS);
+        LocalDate monthEndDate = asOfDate.withDayOfMonth(asOfDate.lengthOfMonth());
+        return dailyRollupService.sumExpensesByCategoryAndDayOfMonth(budgetId, historyStartDate, asOfDate)
+            .reduceWith(() -> new MonthForecast(asOfDate), MonthForecast::add)
+            .zipWith(recurringTransactionDetector.findRecurringTransactions(budgetId)
+                .map(recurringTransactions -> recurringTransactions.stream()
+                    .filter(recurring -> recurring.getType() == TransactionType.EXPENSE
+                        && recurring.getNextExpectedDate().isAfter(asOfDate)
+                        && !recurring.getNextExpectedDate().isAfter(monthEndDate))
+                    .sorted(Comparator.comparing(RecurringTransactionDto::getNextExpectedDate))
+                    .toList()))
+            .flatMap(tuple -> {
+                MonthForecast forecast = tuple.getT1();
+                List<RecurringTransactionDto> upcomingRecurring = tuple.getT2();
+                upcomingRecurring.forEach(forecast::addRecurring);
+                return categoryDictionaryCache.getDictionary(budgetId, forecast.getCategoryIds())
+                    .map(dictionary -> forecast.toDto(dictionary.getNamesById())
+                        .upcomingRecurring(upcomingRecurring)
+                        .build());
+            });
+    }
+
+    private static AnomalyDto toAnomaly(Transaction transaction, RunningStats stats, String categoryName) {
+        return AnomalyDto.builder()
+            .transactionId(transaction.getTransactionId())
+            .date(transaction.getDate())
+            .description(transaction.getDescription())
+            .type(transaction.getType())
+            .amount(transaction.getAmount())
+            .categoryId(transaction.getCategoryId())
+            .categoryName(categoryName)
+            .categoryMean(MoneyAccumulator.toAmount(Math.round(stats.mean())))
+            .categoryStandardDeviation(MoneyAccumulator.toAmount(Math.round(stats.standardDeviation())))
+            .categoryTransactionCount(stats.count())
+            .zScore(BigDecimal.valueOf(stats.zScore(MoneyAccumulator.toCents(transaction.getAmount())))
+                .setScale(2, RoundingMode.HALF_UP))
+            .build();
+    }
+
+    private static ConsolidatedSummaryDto consolidate(LocalDate startDate, LocalDate endDate,
+                                                      List<Tuple2<Long, PeriodSummaryDto>> summaries,
+                                                      Map<Long, String> budgetNames) {
+        Map<String, ConsolidatedCategoryDto> expenseCategories = new LinkedHashMap<>();
+        Map<String, ConsolidatedCategoryDto> incomeCategories = new LinkedHashMap<>();
+        MoneyAccumulator totalExpenses = new MoneyAccumulator();
+        MoneyAccumulator totalIncome = new MoneyAccumulator();
+        List<BudgetSubtotalDto> budgets = new ArrayList<>(summaries.size());
+        for (Tuple2<Long, PeriodSummaryDto> budgetSummary : summaries) {
+            Long budgetId = budgetSummary.getT1();
+            PeriodSummaryDto summary = budgetSummary.getT2();
+            summary.getExpenseCategories().forEach(category -> mergeCategory(expenseCategories, budgetId, category));
+            summary.getIncomeCategories().forEach(category -> mergeCategory(incomeCategories, budgetId, category));
+            totalExpenses.add(summary.getTotalExpenses());
+            totalIncome.add(summary.getTotalIncome());
+            budgets.add(new BudgetSubtotalDto(budgetId, budgetNames.get(budgetId), summary.getTotalExpenses(),
+                summary.getTotalIncome(), summary.getSurplus()));
+        }
+        log.debug("consolidated " + summaries.size() + " budgets into " + expenseCategories.size()
+            + " expense and " + incomeCategories.size() + " income categories");
+        return ConsolidatedSummaryDto.builder()
+            .startDate(startDate)
+            .endDate(endDate)
+            .totalExpenses(totalExpenses.toAmount())
+            .totalIncome(totalIncome.toAmount())
+            .surplus(MoneyAccumulator.toAmount(Math.subtractExact(totalIncome.getCents(), totalExpenses.getCents())))
+            .expenseCategories(sortedByAmount(expenseCategories))
+            .incomeCategories(sortedByAmount(incomeCategories))
+            .budgets(budgets)
+            .build();
+    }
+
+    private static void mergeCategory(Map<String, ConsolidatedCategoryDto> categories, Long budgetId,
+                                      CategorySummaryDto category) {
+        ConsolidatedCategoryDto consolidated = categories.computeIfAbsent(
+            category.getCategoryName().trim().toLowerCase(),
+            key -> new ConsolidatedCategoryDto(category.getCategoryName().trim(), BigDecimal.ZERO, 0L,
+                new ArrayList<>()));
+        consolidated.setAmount(consolidated.getAmount().add(category.getAmount()));
+        consolidated.setTransactionCount(consolidated.getTransactionCount() + category.getTransactionCount());
+        consolidated.getBudgets().add(new BudgetCategoryAmountDto(budgetId, category.getCategoryId(),
+            category.getAmount(), category.getTransactionCount()));
+    }
+
+    private static List<ConsolidatedCategoryDto> sortedByAmount(Map<String, ConsolidatedCategoryDto> categories) {
+        return categories.values().stream()
+            .sorted(Comparator.comparing(ConsolidatedCategoryDto::getAmount).reversed())
+            .toList();
+    }
+
+    private static CrossTabReportDto toCrossTab(LocalDate startDate, LocalDate endDate, TransactionType type,
+                                                List<TransactorCategoryTotal> totals,
+                                                Map<Long, String> transactorNames, Map<Long, String> categoryNames) {
+        List<ReportLabelDto> rows = labels(totals.stream()
+            .map(TransactorCategoryTotal::getTransactorId)
+            .collect(Collectors.toSet()), transactorNames, UNASSIGNED);
+        List<ReportLabelDto> columns = labels(totals.stream()
+            .map(TransactorCategoryTotal::getCategoryId)
+            .collect(Collectors.toSet()), categoryNames, UNCATEGORISED);
+        Map<Long, Integer> rowIndexes = indexes(rows);
+        Map<Long, Integer> columnIndexes = indexes(columns);
+
+        long[][] cents = new long[rows.size()][columns.size()];
+        long[][] counts = new long[rows.size()][columns.size()];
+        long[] rowCents = new long[rows.size()];
+        long[] rowCounts = new long[rows.size()];
+        long[] columnCents = new long[columns.size()];
+        long[] columnCounts = new long[columns.size()];
+        long totalCents = 0;
+        long totalCount = 0;
+        for (TransactorCategoryTotal total : totals) {
+            int row = rowIndexes.get(isNamed(total.getTransactorId(), transactorNames)
+                ? total.getTransactorId() : null);
+            int column = columnIndexes.get(isNamed(total.getCategoryId(), categoryNames)
+                ? total.getCategoryId() : null);
+            cents[row][column] = Math.addExact(cents[row][column], total.getAmountCents());
+            counts[row][column] += total.getTransactionCount();
+            rowCents[row] = Math.addExact(rowCents[row], total.getAmountCents());
+            rowCounts[row] += total.getTransactionCount();
+            columnCents[column] = Math.addExact(columnCents[column], total.getAmountCents());
+            columnCounts[column] += total.getTransactionCount();
+            totalCents = Math.addExact(totalCents, total.getAmountCents());
+            totalCount += total.getTransactionCount();
+        }
+        log.debug("cross tab of " + rows.size() + " transactors and " + columns.size() + " categories");
+        return CrossTabReportDto.builder()
+            .startDate(startDate)
+            .endDate(endDate)
+            .type(type)
+            .rows(rows)
+            .columns(columns)
+            .amounts(Arrays.stream(cents).map(ReportService::toAmounts).toList())
+            .counts(Arrays.stream(counts).map(ReportService::toList).toList())
+            .rowAmounts(toAmounts(rowCents))
+            .rowCounts(toList(rowCounts))
+            .columnAmounts(toAmounts(columnCents))
+            .columnCounts(toList(columnCounts))
+            .totalAmount(MoneyAccumulator.toAmount(totalCents))
+            .totalCount(totalCount)
+            .build();
+    }
+
+    /**
+     * Labels the ids sorted by name, with ids that have no name merged into a last label with a null id.
+     */
+    private static List<ReportLabelDto> labels(Set<Long> ids, Map<Long, String> names, String otherName) {
+        List<ReportLabelDto> labels = new ArrayList<>(ids.stream()
+            .filter(id -> isNamed(id, names))
+            .map(id -> new ReportLabelDto(id, names.get(id)))
+            .sorted(Comparator.comparing(ReportLabelDto::getName, String.CASE_INSENSITIVE_ORDER))
+            .toList());
+        if (ids.stream().anyMatch(id -> !isNamed(id, names)))
+            labels.add(new ReportLabelDto(null, otherName));
+        return labels;
+    }
+
+    // the maps may not support null keys
+    private static boolean isNamed(Long id, Map<Long, String> names) {
+        return id != null && names.containsKey(id);
+    }
+
+    private static Map<Long, Integer> indexes(List<ReportLabelDto> labels) {
+        Map<Long, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < labels.size(); i++)
+            indexes.put(labels.get(i).getId(), i);
+        return indexes;
+    }
+
+    private static List<BigDecimal> toAmounts(long[] cents) {
+        return Arrays.stream(cents).mapToObj(MoneyAccumulator::toAmount).toList();
+    }
+
+    private static List<Long> toList(long[] values) {
+        return Arrays.stream(values).boxed().toList();
+    }
+
+    private static String nameOf(Transactor transactor) {
+        String name = ((transactor.getFirstName() == null ? "" : transactor.getFirstName()) + " "
+            + (transactor.getLastName() == null ? "" : transactor.getLastName())).trim();
+        return name.isEmpty() ? "Transactor " + transactor.getTransactorId() : name;
+    }
+}
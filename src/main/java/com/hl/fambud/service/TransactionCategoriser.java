@@ -1,32 +1,40 @@
 package com.hl.fambud.service;
 
+import com.hl.fambud.dto.CategorisationSimulationDto;
+import com.hl.fambud.dto.CategoryRuleDto;
+import com.hl.fambud.dto.reporting.CategoryComparisonDto;
 import com.hl.fambud.dto.reporting.CategorySummaryDto;
+import com.hl.fambud.dto.reporting.PeriodComparisonDto;
 import com.hl.fambud.dto.reporting.PeriodSummaryDto;
 import com.hl.fambud.mapper.BudgetMapper;
-import com.hl.fambud.model.Category;
+import com.hl.fambud.model.CategoryTypeTotal;
+import com.hl.fambud.model.DailyCategoryTotal;
+import com.hl.fambud.model.PeriodCategoryTypeTotal;
+import com.hl.fambud.model.SummaryBucket;
 import com.hl.fambud.model.Transaction;
 import com.hl.fambud.model.TransactionType;
-import com.hl.fambud.repository.CategoryRepository;
 import com.hl.fambud.repository.TransactionRepository;
+import com.hl.fambud.util.MoneyAccumulator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.Reader;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,119 +42,394 @@ import java.util.stream.Collectors;
 @Slf4j
 public class TransactionCategoriser {
 
-    private final CategoryRepository categoryRepository;
+    static final int WRITE_CHUNK_SIZE = 1000;
+
+    static final int SIMULATION_SKETCH_CAPACITY = 1000;
+
+    static final int MAX_SUMMARY_BUCKETS = 1000;
+
+    // indexes of the compared periods in the aggregate query
+    private static final int CURRENT_PERIOD = 0;
+
+    private static final int PREVIOUS_PERIOD = 1;
+
+    private static final int LAST_YEAR_PERIOD = 2;
+
+    private record CategoryTypeKey(Long categoryId, TransactionType type) {
+    }
+
+    private final CategoryDictionaryCache categoryDictionaryCache;
 
     private final TransactionRepository transactionRepository;
 
     private final BudgetMapper budgetMapper;
 
-    public Mono<Void> categorise(Long budgetId) {
-        log.debug("categorise transactions for budget " + budgetId);
-        return Mono.fromCallable(() -> {
-            ClassPathResource mappingFileResource = new ClassPathResource("transaction-category-mapping-241121.csv");
-            return mappingFileResource.getFile();
-        })
-        .onErrorResume(e -> {
-            log.error("failed to get the category transaction mapping file", e);
-            return Mono.error(e);
-        })
-        .subscribeOn(Schedulers.boundedElastic())
-        .flatMap(file -> {
-            Map<String, String> descriptionCategoryMap = loadMappingFile(file);
-            log.debug("description to category map " + descriptionCategoryMap);
-            Flux<Category> categories = categoryRepository.findByBudgetId(budgetId);
-            Mono<Map<String, Long>> categoryMapMono = categories.collectMap(Category::getName, Category::getCategoryId);
-            return categoryMapMono
-                .flatMapMany(categoryMap ->
-                    transactionRepository.findByBudgetId(budgetId).flatMap(transaction -> {
-                        String description = transaction.getDescription();
-                        return Flux.fromIterable(descriptionCategoryMap.entrySet())
-                            .filter(entry -> description.toLowerCase().contains(entry.getKey().toLowerCase()))
-                            .next()
-                            .flatMap(entry -> {
-                                String mappingCategoryName = entry.getValue();
-                                Long categoryId = categoryMap.get(mappingCategoryName);
-                                if (categoryId != null) {
-                                    log.trace("transaction " + transaction.getTransactionId() + " " + transaction.getDescription()
-                                        + " category " + categoryId + " " + mappingCategoryName);
-                                    transaction.setCategoryId(categoryId);
-                                    return transactionRepository.save(transaction);
-                                }
-                                return Mono.empty();
+    private final CategoryRuleService categoryRuleService;
+
+    private final TransactionalOperator transactionalOperator;
+
+    private final CategorySuggestionIndex categorySuggestionIndex;
+
+    private final DailyRollupService dailyRollupService;
+
+    private final PeriodSummaryCache periodSummaryCache;
+
+    /**
+     * Categorises the budget's transactions with its keyword rules, committing each chunk of transactions with the
+     * daily totals it moves. An incremental run only categorises the uncategorised transactions not yet checked
+     * against the current rules, while a full run may reassign every transaction.
+     */
+    public Mono<Void> categorise(Long budgetId, boolean full, CategorisationProgress progress) {
+        log.debug("categorise transactions for budget " + budgetId + (full ? " in full" : " incrementally"));
+        return categoryRuleService.getRuleSet(budgetId)
+            .flatMap(ruleSet -> {
+                Flux<Transaction> candidates = full
+                    ? transactionRepository.findByBudgetId(budgetId)
+                    : transactionRepository.findUncategorisedNotChecked(budgetId, ruleSet.getVersion());
+                return candidates
+                    .doOnNext(transaction -> progress.transactionProcessed())
+                    .buffer(WRITE_CHUNK_SIZE)
+                    .concatMap(chunk -> {
+                        List<Transaction> changed = new ArrayList<>();
+                        Map<Long, Long> matchedCategoryIds = new HashMap<>();
+                        chunk.forEach(transaction -> ruleSet.match(transaction.getDescription()).ifPresentOrElse(
+                            rule -> {
+                                if (rule.getCategoryId().equals(transaction.getCategoryId()))
+                                    return;
+                                log.trace("transaction " + transaction.getTransactionId() + " "
+                                    + transaction.getDescription() + " category " + rule.getCategoryId()
+                                    + " rule " + rule.getKeyword());
+                                progress.transactionMatched();
+                                changed.add(transaction);
+                                matchedCategoryIds.put(transaction.getTransactionId(), rule.getCategoryId());
+                            },
+                            () -> {
+                                if (transaction.getCategoryId() == null)
+                                    changed.add(transaction);
+                            }));
+                        return writeChunk(budgetId, changed, matchedCategoryIds, ruleSet.getVersion())
+                            .doOnNext(written -> {
+                                progress.transactionsWritten(countOf(written));
+                                indexCategories(written);
                             });
                     })
-                )
-                .then();
-        });
+                    .then()
+                    .doOnError(e -> progress.runFailed());
+            });
+    }
+
+    public Mono<Void> categorise(Long budgetId, boolean full) {
+        return categorise(budgetId, full, new CategorisationProgress());
+    }
+
+    public Mono<Void> categorise(Long budgetId) {
+        return categorise(budgetId, false);
+    }
+
+    /**
+     * Evaluates the budget's current rules, or the proposed rules when given, against every transaction of the budget
+     * without writing anything. Transactions are streamed once and evaluated on parallel rails, so a long history costs
+     * time but not memory.
+     */
+    public Mono<CategorisationSimulationDto> simulate(
+        Long budgetId, List<CategoryRuleDto> proposedRuleDtos, int unmatchedLimit) {
+        Mono<CategoryRuleSet> ruleSetMono = proposedRuleDtos == null
+            ? categoryRuleService.getRuleSet(budgetId)
+            : Mono.fromCallable(() -> new CategoryRuleSet(budgetId, -1L, proposedRuleDtos.stream()
+                .map(budgetMapper::toCategoryRule)
+                .toList()));
+        return ruleSetMono
+            .flatMap(ruleSet -> transactionRepository.findByBudgetId(budgetId)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .reduce(() -> new CategorisationSimulation(ruleSet, SIMULATION_SKETCH_CAPACITY),
+                    CategorisationSimulation::add)
+                .reduce(CategorisationSimulation::merge)
+                .defaultIfEmpty(new CategorisationSimulation(ruleSet, SIMULATION_SKETCH_CAPACITY)))
+            .map(simulation -> simulation.toDto(unmatchedLimit))
+            .doOnNext(simulationDto -> log.debug("simulated categorisation of " + simulationDto.getProcessed()
+                + " transactions for budget " + budgetId + " matched " + simulationDto.getMatched()
+                + " changed " + simulationDto.getChanged()));
+    }
+
+    /**
+     * Assigns the matched categories with one set based update per category, marks the other transactions as checked
+     * against the rules and applies the daily totals moved, in one database transaction. Returns the transactions
+     * written by category as they were before; transactions changed since they were read are left for a later run.
+     */
+    private Mono<Map<Long, List<Transaction>>> writeChunk(
+        Long budgetId, List<Transaction> transactions, Map<Long, Long> matchedCategoryIds, long ruleSetVersion) {
+        if (transactions.isEmpty())
+            return Mono.empty();
+        return lockUnchanged(transactions)
+            .flatMap(unchanged -> {
+                Map<Long, List<Transaction>> written = unchanged.stream()
+                    .filter(transaction -> matchedCategoryIds.containsKey(transaction.getTransactionId()))
+                    .collect(Collectors.groupingBy(transaction ->
+                        matchedCategoryIds.get(transaction.getTransactionId())));
+                List<Long> checkedIds = unchanged.stream()
+                    .map(Transaction::getTransactionId)
+                    .filter(transactionId -> !matchedCategoryIds.containsKey(transactionId))
+                    .toList();
+                return Flux.fromIterable(written.entrySet())
+                    .concatMap(entry -> transactionRepository.updateCategoryId(entry.getKey(), entry.getValue().stream()
+                        .map(Transaction::getTransactionId)
+                        .toList()))
+                    .then(checkedIds.isEmpty() ? Mono.empty()
+                        : transactionRepository.updateRuleSetVersion(ruleSetVersion, checkedIds))
+                    .then(dailyRollupService.apply(recategorised(written)))
+                    .thenReturn(written);
+            })
+            .as(transactionalOperator::transactional)
+            .doOnNext(written -> log.debug("categorised " + countOf(written) + " transactions for budget " + budgetId));
+    }
+
+    // locks the transactions until the commit and keeps those whose category and description are still as read, so
+    // that neither a concurrent edit nor another run is overwritten or counted twice in the daily totals
+    private Mono<List<Transaction>> lockUnchanged(List<Transaction> transactions) {
+        Map<Long, Transaction> transactionsById = transactions.stream()
+            .collect(Collectors.toMap(Transaction::getTransactionId, transaction -> transaction));
+        return transactionRepository.findByIdsForUpdate(transactionsById.keySet())
+            .filter(locked -> {
+                Transaction transaction = transactionsById.get(locked.getTransactionId());
+                return Objects.equals(locked.getCategoryId(), transaction.getCategoryId())
+                    && Objects.equals(locked.getDescription(), transaction.getDescription());
+            })
+            .collectList();
+    }
+
+    private static int countOf(Map<Long, List<Transaction>> transactionsByCategoryId) {
+        return transactionsByCategoryId.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static DailyTotalsDelta recategorised(Map<Long, List<Transaction>> transactionsByCategoryId) {
+        DailyTotalsDelta delta = new DailyTotalsDelta();
+        transactionsByCategoryId.forEach((categoryId, transactions) ->
+            transactions.forEach(transaction -> delta.recategorise(transaction, categoryId)));
+        return delta;
     }
 
+    private void indexCategories(Map<Long, List<Transaction>> transactionsByCategoryId) {
+        transactionsByCategoryId.forEach((categoryId, transactions) -> transactions.forEach(transaction -> {
+            categorySuggestionIndex.remove(transaction);
+            transaction.setCategoryId(categoryId);
+            categorySuggestionIndex.add(transaction);
+        }));
+    }
+
+    /**
+     * Summarises the budget's categorised expenses and income between the dates, inclusive. Totals are aggregated
+     * by the database from the daily rollup, so the query reads a row per day and category rather than per
+     * transaction, and the category names come from the budget's cached dictionary. Summaries are cached until
+     * a write changes their range.
+     */
     public Mono<PeriodSummaryDto> getBudgetPeriodSummary(Long budgetId, LocalDate startDate, LocalDate endDate) {
-        Mono<List<CategorySummaryDto>> expenseSummaries = summariseCategoryTransactions(
-            budgetId, startDate, endDate, TransactionType.EXPENSE);
-        Mono<List<CategorySummaryDto>> incomeSummaries = summariseCategoryTransactions(
-            budgetId, startDate, endDate, TransactionType.INCOME);
-        return Mono.zip(expenseSummaries, incomeSummaries)
-            .map(tuple -> {
-                List<CategorySummaryDto> expenses = tuple.getT1();
-                List<CategorySummaryDto> incomes = tuple.getT2();
-                PeriodSummaryDto periodSummaryDto = new PeriodSummaryDto();
-                periodSummaryDto.setStartDate(startDate);
-                periodSummaryDto.setEndDate(endDate);
-                periodSummaryDto.setExpenseCategories(expenses);
-                periodSummaryDto.setIncomeCategories(incomes);
-                setTotals(periodSummaryDto);
-                log.debug("summary " + periodSummaryDto);
-                return periodSummaryDto;
+        return periodSummaryCache.get(budgetId, startDate, endDate,
+            () -> summarise(budgetId, startDate, endDate));
+    }
+
+    private Mono<PeriodSummaryDto> summarise(Long budgetId, LocalDate startDate, LocalDate endDate) {
+        return dailyRollupService.sumByCategoryAndType(budgetId, startDate, endDate)
+            .collectList()
+            .flatMap(categoryTypeTotals -> {
+                Set<Long> categoryIds = categoryTypeTotals.stream()
+                    .map(CategoryTypeTotal::getCategoryId)
+                    .collect(Collectors.toSet());
+                return categoryDictionaryCache.getDictionary(budgetId, categoryIds)
+                    .map(dictionary -> toPeriodSummary(startDate, endDate, categoryTypeTotals,
+                        dictionary.getNamesById()));
             });
     }
 
-    private void setTotals(PeriodSummaryDto periodSummaryDto) {
-        BigDecimal totalExpenses = periodSummaryDto.getExpenseCategories().stream()
-            .map(CategorySummaryDto::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal totalIncome = periodSummaryDto.getIncomeCategories().stream()
-            .map(CategorySummaryDto::getAmount)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        BigDecimal surplus = totalIncome.subtract(totalExpenses);
-        periodSummaryDto.setTotalExpenses(totalExpenses);
-        periodSummaryDto.setTotalIncome(totalIncome);
-        periodSummaryDto.setSurplus(surplus);
-    }
-
-    private Mono<List<CategorySummaryDto>> summariseCategoryTransactions(
-        Long budgetId, LocalDate startDate, LocalDate endDate, TransactionType transactionType) {
-        return transactionRepository.findByDateBetween(startDate, endDate)
-            .filter(transaction -> transaction.getBudgetId().longValue() == budgetId
-                && transaction.getType() == transactionType
-                && transaction.getCategoryId() != null)
-            .doOnNext(transaction -> log.trace("found transaction " + transaction))
-            .subscribeOn(Schedulers.boundedElastic())
-            .collect(Collectors.groupingBy(
-                Transaction::getCategoryId,
-                Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)
-            ))
-            .flatMap(categorySumMap ->
-                Flux.fromIterable(categorySumMap.entrySet())
-                    .flatMap(entry -> categoryRepository.findById(entry.getKey())
-                        .map(category -> new CategorySummaryDto(
-                            category.getCategoryId(), category.getName(), entry.getValue())))
-                    .sort((e1, e2) -> e2.getAmount().compareTo(e1.getAmount()))
-                    .collectList());
-    }
-
-    private Map<String, String> loadMappingFile(File mappingFile) {
-        Map<String, String> resultMap = new ConcurrentHashMap<>();
-        try (Reader reader = new FileReader(mappingFile);
-             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT)) {
-            // Load records in parallel
-            csvParser.getRecords().parallelStream().forEach(record -> {
-                String key = record.get(0);
-                String value = record.get(1);
-                resultMap.put(key, value);
+    /**
+     * Summarises the budget between the dates, inclusive, like {@link #getBudgetPeriodSummary}, and compares it with
+     * the previous period of the same length and the same period a year earlier. Periods of whole months are compared
+     * with the same number of whole months before them.
+     */
+    public Mono<PeriodSummaryDto> getBudgetPeriodComparison(Long budgetId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate))
+            return Mono.error(new IllegalArgumentException("End date " + endDate + " is before start date " + startDate));
+        LocalDate previousStartDate = previousPeriodStart(startDate, endDate);
+        LocalDate previousEndDate = startDate.minusDays(1);
+        LocalDate lastYearStartDate = startDate.minusYears(1);
+        LocalDate lastYearEndDate = isMonthEnd(endDate)
+            ? endDate.minusYears(1).withDayOfMonth(endDate.minusYears(1).lengthOfMonth())
+            : endDate.minusYears(1);
+        return dailyRollupService.sumByPeriodCategoryAndType(budgetId, startDate, endDate,
+                previousStartDate, previousEndDate, lastYearStartDate, lastYearEndDate)
+            .collectList()
+            .flatMap(periodTotals -> {
+                Set<Long> categoryIds = periodTotals.stream()
+                    .map(PeriodCategoryTypeTotal::getCategoryId)
+                    .collect(Collectors.toSet());
+                return categoryDictionaryCache.getDictionary(budgetId, categoryIds)
+                    .map(dictionary -> {
+                        Map<Long, String> categoryNames = dictionary.getNamesById();
+                        PeriodSummaryDto summary = toPeriodSummary(startDate, endDate,
+                            periodTotals(periodTotals, CURRENT_PERIOD), categoryNames);
+                        summary.setComparison(PeriodComparisonDto.builder()
+                            .previousPeriod(toPeriodSummary(previousStartDate, previousEndDate,
+                                periodTotals(periodTotals, PREVIOUS_PERIOD), categoryNames))
+                            .lastYear(toPeriodSummary(lastYearStartDate, lastYearEndDate,
+                                periodTotals(periodTotals, LAST_YEAR_PERIOD), categoryNames))
+                            .categories(compareCategories(periodTotals, categoryNames))
+                            .build());
+                        return summary;
+                    });
             });
-        } catch (IOException e) {
-            throw new RuntimeException("Error reading mapping file", e);
+    }
+
+    private static LocalDate previousPeriodStart(LocalDate startDate, LocalDate endDate) {
+        if (startDate.getDayOfMonth() == 1 && isMonthEnd(endDate))
+            return startDate.minusMonths(ChronoUnit.MONTHS.between(startDate, endDate.plusDays(1)));
+        return startDate.minusDays(ChronoUnit.DAYS.between(startDate, endDate) + 1);
+    }
+
+    private static boolean isMonthEnd(LocalDate date) {
+        return date.getDayOfMonth() == date.lengthOfMonth();
+    }
+
+    private static List<CategoryTypeTotal> periodTotals(List<PeriodCategoryTypeTotal> periodTotals, int period) {
+        return periodTotals.stream()
+            .filter(total -> total.getPeriod() == period)
+            .map(total -> new CategoryTypeTotal(total.getCategoryId(), total.getType(), total.getAmountCents(),
+                total.getTransactionCount()))
+            .toList();
+    }
+
+    /**
+     * Lines up the cents of each category and type in the three periods, expenses first and then by amount in the
+     * current period. Categories that no longer exist are left out.
+     */
+    private static List<CategoryComparisonDto> compareCategories(List<PeriodCategoryTypeTotal> periodTotals,
+                                                                 Map<Long, String> categoryNames) {
+        Map<CategoryTypeKey, long[]> centsByCategory = new LinkedHashMap<>();
+        for (PeriodCategoryTypeTotal total : periodTotals) {
+            if (!categoryNames.containsKey(total.getCategoryId()))
+                continue;
+            centsByCategory.computeIfAbsent(new CategoryTypeKey(total.getCategoryId(), total.getType()),
+                key -> new long[3])[total.getPeriod()] += total.getAmountCents();
+        }
+        return centsByCategory.entrySet().stream()
+            .sorted(Comparator.comparing((Map.Entry<CategoryTypeKey, long[]> entry) -> entry.getKey().type())
+                .thenComparing(entry -> -entry.getValue()[CURRENT_PERIOD]))
+            .map(entry -> {
+                long[] cents = entry.getValue();
+                return CategoryComparisonDto.builder()
+                    .categoryId(entry.getKey().categoryId())
+                    .categoryName(categoryNames.get(entry.getKey().categoryId()))
+                    .type(entry.getKey().type())
+                    .amount(MoneyAccumulator.toAmount(cents[CURRENT_PERIOD]))
+                    .previousPeriodAmount(MoneyAccumulator.toAmount(cents[PREVIOUS_PERIOD]))
+                    .previousPeriodChange(MoneyAccumulator.toAmount(
+                        Math.subtractExact(cents[CURRENT_PERIOD], cents[PREVIOUS_PERIOD])))
+                    .previousPeriodChangePercent(changePercent(cents[CURRENT_PERIOD], cents[PREVIOUS_PERIOD]))
+                    .lastYearAmount(MoneyAccumulator.toAmount(cents[LAST_YEAR_PERIOD]))
+                    .lastYearChange(MoneyAccumulator.toAmount(
+                        Math.subtractExact(cents[CURRENT_PERIOD], cents[LAST_YEAR_PERIOD])))
+                    .lastYearChangePercent(changePercent(cents[CURRENT_PERIOD], cents[LAST_YEAR_PERIOD]))
+                    .build();
+            })
+            .toList();
+    }
+
+    private static BigDecimal changePercent(long cents, long comparedCents) {
+        if (comparedCents == 0)
+            return null;
+        return BigDecimal.valueOf(Math.subtractExact(cents, comparedCents))
+            .multiply(BigDecimal.valueOf(100))
+            .divide(BigDecimal.valueOf(Math.abs(comparedCents)), 1, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Summarises the budget per bucket between the dates, inclusive, for trend charts, from one scan of the daily
+     * rollup. The first and last buckets are cut to the dates, and buckets without transactions are included with zero
+     * totals.
+     */
+    public Mono<List<PeriodSummaryDto>> getBudgetPeriodSummaries(
+        Long budgetId, LocalDate startDate, LocalDate endDate, SummaryBucket bucket) {
+        if (endDate.isBefore(startDate))
+            return Mono.error(new IllegalArgumentException("End date " + endDate + " is before start date " + startDate));
+        List<LocalDate> bucketStarts = new ArrayList<>();
+        for (LocalDate bucketStart = bucket.start(startDate); !bucketStart.isAfter(endDate);
+             bucketStart = bucket.next(bucketStart)) {
+            if (bucketStarts.size() == MAX_SUMMARY_BUCKETS)
+                return Mono.error(new IllegalArgumentException("More than " + MAX_SUMMARY_BUCKETS + " "
+                    + bucket.name().toLowerCase() + " buckets between " + startDate + " and " + endDate));
+            bucketStarts.add(bucketStart);
+        }
+        return dailyRollupService.findSummaryTotals(budgetId, startDate, endDate)
+            .bufferUntilChanged(dailyTotal -> bucket.start(dailyTotal.getDate()))
+            .collectMap(dailyTotals -> bucket.start(dailyTotals.get(0).getDate()),
+                TransactionCategoriser::sumByCategoryAndType)
+            .flatMap(totalsByBucketStart -> {
+                Set<Long> categoryIds = totalsByBucketStart.values().stream()
+                    .flatMap(List::stream)
+                    .map(CategoryTypeTotal::getCategoryId)
+                    .collect(Collectors.toSet());
+                return categoryDictionaryCache.getDictionary(budgetId, categoryIds)
+                    .map(dictionary -> bucketStarts.stream()
+                        .map(bucketStart -> {
+                            LocalDate bucketEnd = bucket.next(bucketStart).minusDays(1);
+                            return toPeriodSummary(
+                                bucketStart.isBefore(startDate) ? startDate : bucketStart,
+                                bucketEnd.isAfter(endDate) ? endDate : bucketEnd,
+                                totalsByBucketStart.getOrDefault(bucketStart, List.of()),
+                                dictionary.getNamesById());
+                        })
+                        .toList());
+            });
+    }
+
+    private static List<CategoryTypeTotal> sumByCategoryAndType(List<DailyCategoryTotal> dailyTotals) {
+        Map<CategoryTypeKey, CategoryTypeTotal> totals = new LinkedHashMap<>();
+        for (DailyCategoryTotal dailyTotal : dailyTotals) {
+            CategoryTypeTotal total = totals.computeIfAbsent(
+                new CategoryTypeKey(dailyTotal.getCategoryId(), dailyTotal.getType()),
+                key -> new CategoryTypeTotal(dailyTotal.getCategoryId(), dailyTotal.getType(), 0L, 0L));
+            total.setAmountCents(Math.addExact(total.getAmountCents(), dailyTotal.getAmountCents()));
+            total.setTransactionCount(total.getTransactionCount() + dailyTotal.getTxCount());
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    /**
+     * Builds the summary in one pass over the totals, adding up cents and converting to amounts only for the DTOs.
+     * Totals of categories that no longer exist are left out.
+     */
+    private static PeriodSummaryDto toPeriodSummary(LocalDate startDate, LocalDate endDate,
+                                                    List<CategoryTypeTotal> categoryTypeTotals,
+                                                    Map<Long, String> categoryNames) {
+        List<CategorySummaryDto> expenseCategories = new ArrayList<>();
+        List<CategorySummaryDto> incomeCategories = new ArrayList<>();
+        MoneyAccumulator totalExpenses = new MoneyAccumulator();
+        MoneyAccumulator totalIncome = new MoneyAccumulator();
+        for (CategoryTypeTotal total : categoryTypeTotals) {
+            String categoryName = categoryNames.get(total.getCategoryId());
+            if (categoryName == null)
+                continue;
+            CategorySummaryDto categorySummaryDto = new CategorySummaryDto(total.getCategoryId(), categoryName,
+                MoneyAccumulator.toAmount(total.getAmountCents()), total.getTransactionCount());
+            if (total.getType() == TransactionType.EXPENSE) {
+                expenseCategories.add(categorySummaryDto);
+                totalExpenses.addCents(total.getAmountCents());
+            } else {
+                incomeCategories.add(categorySummaryDto);
+                totalIncome.addCents(total.getAmountCents());
+            }
         }
-        return resultMap;
+        expenseCategories.sort((e1, e2) -> e2.getAmount().compareTo(e1.getAmount()));
+        incomeCategories.sort((e1, e2) -> e2.getAmount().compareTo(e1.getAmount()));
+        PeriodSummaryDto periodSummaryDto = new PeriodSummaryDto();
+        periodSummaryDto.setStartDate(startDate);
+        periodSummaryDto.setEndDate(endDate);
+        periodSummaryDto.setExpenseCategories(expenseCategories);
+        periodSummaryDto.setIncomeCategories(incomeCategories);
+        periodSummaryDto.setTotalExpenses(totalExpenses.toAmount());
+        periodSummaryDto.setTotalIncome(totalIncome.toAmount());
+        periodSummaryDto.setSurplus(MoneyAccumulator.toAmount(
+            Math.subtractExact(totalIncome.getCents(), totalExpenses.getCents())));
+        log.debug("summary " + periodSummaryDto);
+        return periodSummaryDto;
     }
 }
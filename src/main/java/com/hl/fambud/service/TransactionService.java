@@ -1,6 +1,8 @@
 package com.hl.fambud.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hl.fambud.dto.CategorySuggestionDto;
+import com.hl.fambud.dto.ImportOptionsDto;
 import com.hl.fambud.dto.TransactionDto;
 import com.hl.fambud.mapper.BudgetMapper;
 import com.hl.fambud.model.Transaction;
@@ -12,13 +14,20 @@ import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.function.Tuples;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,6 +36,11 @@ import java.util.stream.Collectors;
 public class TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final CategoryRuleService categoryRuleService;
+    private final CategorySuggestionIndex categorySuggestionIndex;
+    private final RecurringTransactionDetector recurringTransactionDetector;
+    private final DailyRollupService dailyRollupService;
+    private final TransactionalOperator transactionalOperator;
     private final BudgetMapper budgetMapper;
     private final ObjectMapper objectMapper;
     private final Scheduler parallelScheduler = Schedulers.parallel();
@@ -36,6 +50,13 @@ public class TransactionService {
         Transaction transaction = budgetMapper.toTransaction(transactionDto);
         log.debug("createTransaction " + objectMapper.writeValueAsString(transaction));
         return transactionRepository.save(transaction)
+            .flatMap(savedTransaction -> dailyRollupService.apply(new DailyTotalsDelta().add(savedTransaction))
+                .thenReturn(savedTransaction))
+            .as(transactionalOperator::transactional)
+            .doOnNext(savedTransaction -> {
+                categorySuggestionIndex.add(savedTransaction);
+                recurringTransactionDetector.evict(savedTransaction.getBudgetId());
+            })
             .map(budgetMapper::transactionToTransactionDto);
     }
 
@@ -52,52 +73,131 @@ public class TransactionService {
     }
 
     public Mono<TransactionDto> updateTransaction(Long transactionId, @Valid TransactionDto transactionDto) {
-        return transactionRepository.findById(transactionId)
+        return transactionRepository.findByIdForUpdate(transactionId)
             .switchIfEmpty(Mono.error(new EntityNotFoundException("Transaction not found with ID " + transactionId)))
             .flatMap(retrievedTransaction -> {
                 log.debug("Transaction retrieved from DB: " + retrievedTransaction);
+                Transaction previousTransaction = retrievedTransaction.toBuilder().build();
                 budgetMapper.updateTransactionFromTransactionDto(transactionDto, retrievedTransaction);
                 log.debug("Retrieved transaction updated with new data: " + retrievedTransaction);
                 return transactionRepository.save(retrievedTransaction)
-                    .map(budgetMapper::transactionToTransactionDto);
-            });
+                    .flatMap(savedTransaction -> clearRuleSetVersion(previousTransaction, savedTransaction)
+                        .then(dailyRollupService.apply(new DailyTotalsDelta()
+                            .remove(previousTransaction)
+                            .add(savedTransaction)))
+                        .thenReturn(Tuples.of(previousTransaction, savedTransaction)));
+            })
+            .as(transactionalOperator::transactional)
+            .doOnNext(tuple -> {
+                categorySuggestionIndex.remove(tuple.getT1());
+                categorySuggestionIndex.add(tuple.getT2());
+                recurringTransactionDetector.evict(tuple.getT1().getBudgetId());
+                recurringTransactionDetector.evict(tuple.getT2().getBudgetId());
+            })
+            .map(tuple -> budgetMapper.transactionToTransactionDto(tuple.getT2()));
+    }
+
+    /**
+     * Lets the next incremental categorisation check the transaction again once the rules could match it differently.
+     */
+    private Mono<Integer> clearRuleSetVersion(Transaction previousTransaction, Transaction savedTransaction) {
+        if (Objects.equals(previousTransaction.getDescription(), savedTransaction.getDescription())
+            && Objects.equals(previousTransaction.getCategoryId(), savedTransaction.getCategoryId()))
+            return Mono.just(0);
+        return transactionRepository.clearRuleSetVersion(savedTransaction.getTransactionId());
+    }
+
+    public Mono<List<CategorySuggestionDto>> suggestCategories(Long budgetId, Long transactionId, int limit) {
+        return transactionRepository.findDescription(budgetId, transactionId)
+            .switchIfEmpty(Mono.error(new EntityNotFoundException("Transaction not found with ID " + transactionId)))
+            .flatMap(description -> categorySuggestionIndex.suggest(budgetId, description, limit));
+    }
+
+    public Mono<List<CategorySuggestionDto>> suggestCategories(Long budgetId, String description, int limit) {
+        return categorySuggestionIndex.suggest(budgetId, description, limit);
     }
 
     public Mono<Void> deleteTransaction(Long transactionId) {
-        return transactionRepository.findById(transactionId)
+        return transactionRepository.findByIdForUpdate(transactionId)
             .switchIfEmpty(Mono.error(new EntityNotFoundException("Transaction not found with ID " + transactionId)))
-            .flatMap(transaction -> transactionRepository.deleteById(transactionId))
+            .flatMap(transaction -> transactionRepository.deleteByTransactionId(transactionId)
+                // a concurrent delete got there first and already took it out of the daily totals
+                .filter(deleted -> deleted > 0)
+                .flatMap(deleted -> dailyRollupService.apply(new DailyTotalsDelta().remove(transaction))
+                    .thenReturn(transaction)))
+            .as(transactionalOperator::transactional)
+            .doOnNext(transaction -> {
+                categorySuggestionIndex.remove(transaction);
+                recurringTransactionDetector.evict(transaction.getBudgetId());
+            })
             .then();
     }
 
-    public Mono<String> startCsvImport(Long budgetId, FilePart filePart) {
+    /**
+     * Imports the transactions of a CSV file in one database transaction, skipping those already in the budget and,
+     * with the fuzzy option, near duplicates too. With categorise set, the budget's rules are applied to the new
+     * transactions before they are inserted.
+     */
+    public Mono<String> startCsvImport(Long budgetId, FilePart filePart, ImportOptionsDto importOptions) {
         String importJobId = UUID.randomUUID().toString();
         log.info("Import job {} started with status: IN_PROGRESS", importJobId);
-        return transactionRepository.findByBudgetId(budgetId)
-            .collectList()
-            .map(existingTransactions -> {
-                Set<String> uniqueTransactionIdentifiers = existingTransactions.stream()
-                    .map(TransactionUtil::buildTransactionIdentifier)
-                    .collect(Collectors.toSet());
-                log.debug("Existing transaction identifiers: " + uniqueTransactionIdentifiers);
-                return uniqueTransactionIdentifiers;
+        int dateToleranceDays = importOptions.isFuzzy() ? Math.max(0, importOptions.getDateToleranceDays()) : 0;
+        Mono<List<Transaction>> importedTransactionsMono =
+            TransactionUtil.convertToMultipartFile(Schedulers.boundedElastic(), filePart)
+                .flatMapMany(multipartFile -> TransactionUtil.parseCsvFile(Schedulers.boundedElastic(), budgetId, multipartFile))
+                .collectList();
+        Mono<UnaryOperator<Transaction>> categoryStageMono = importOptions.isCategorise()
+            ? categoryRuleService.getRuleSet(budgetId).map(ruleSet -> transaction -> {
+                ruleSet.matchCategoryId(transaction.getDescription()).ifPresent(transaction::setCategoryId);
+                return transaction;
             })
-            .flatMapMany(uniqueTransactionIdentifiers ->
-                TransactionUtil.convertToMultipartFile(Schedulers.boundedElastic(), filePart)
-                    .flatMapMany(multipartFile -> TransactionUtil.parseCsvFile(Schedulers.boundedElastic(), budgetId, multipartFile))
-                    .filter(transaction -> {
-                        String identifier = TransactionUtil.buildTransactionIdentifier(transaction);
-                        log.debug("transaction identifier " + identifier);
-                        boolean isDuplicate = uniqueTransactionIdentifiers.contains(identifier);
-                        if (!isDuplicate) {
-                            uniqueTransactionIdentifiers.add(identifier); // Add to set to avoid duplicates
-                            return true;
-                        }
-                        log.debug("Duplicate transaction skipped: " + transaction);
-                        return false;
+            : Mono.just(UnaryOperator.identity());
+        return Mono.zip(importedTransactionsMono, categoryStageMono)
+            .flatMapMany(tuple -> {
+                List<Transaction> importedTransactions = tuple.getT1();
+                if (importedTransactions.isEmpty())
+                    return Flux.empty();
+                LocalDate startDate = importedTransactions.stream().map(Transaction::getDate)
+                    .min(LocalDate::compareTo).orElseThrow().minusDays(dateToleranceDays);
+                LocalDate endDate = importedTransactions.stream().map(Transaction::getDate)
+                    .max(LocalDate::compareTo).orElseThrow().plusDays(dateToleranceDays);
+                return transactionRepository.findByBudgetIdAndDateBetween(budgetId, startDate, endDate)
+                    .collectList()
+                    .flatMapMany(existingTransactions -> {
+                        Set<String> uniqueTransactionIdentifiers = existingTransactions.stream()
+                            .map(TransactionUtil::buildTransactionIdentifier)
+                            .collect(Collectors.toSet());
+                        log.debug("Existing transaction identifiers: " + uniqueTransactionIdentifiers);
+                        NearDuplicateIndex nearDuplicateIndex = new NearDuplicateIndex(dateToleranceDays);
+                        if (importOptions.isFuzzy())
+                            existingTransactions.forEach(nearDuplicateIndex::add);
+                        return Flux.fromIterable(importedTransactions)
+                            .filter(transaction -> {
+                                String identifier = TransactionUtil.buildTransactionIdentifier(transaction);
+                                log.debug("transaction identifier " + identifier);
+                                if (!uniqueTransactionIdentifiers.add(identifier)) {
+                                    log.debug("Duplicate transaction skipped: " + transaction);
+                                    return false;
+                                }
+                                // only existing transactions are indexed, the rows of one export are taken as distinct
+                                Optional<Transaction> nearDuplicate = importOptions.isFuzzy()
+                                    ? nearDuplicateIndex.findNearDuplicate(transaction)
+                                    : Optional.empty();
+                                nearDuplicate.ifPresent(existingTransaction -> log.info("Near duplicate transaction "
+                                    + "skipped: " + transaction + " matches " + existingTransaction.getTransactionId()));
+                                return nearDuplicate.isEmpty();
+                            });
                     })
-                    .flatMap(transactionRepository::save)
-            )
+                    .map(tuple.getT2())
+                    .concatMap(transactionRepository::save)
+                    .collectList()
+                    .flatMap(savedTransactions -> dailyRollupService.apply(DailyTotalsDelta.added(savedTransactions))
+                        .thenReturn(savedTransactions))
+                    .as(transactionalOperator::transactional)
+                    .doOnNext(savedTransactions -> recurringTransactionDetector.evict(budgetId))
+                    .flatMapIterable(savedTransactions -> savedTransactions)
+                    .doOnNext(categorySuggestionIndex::add);
+            })
             .subscribeOn(Schedulers.boundedElastic())
             .then(Mono.fromRunnable(() -> log.info("Import job {} completed with status: COMPLETED", importJobId)))
             .onErrorResume(e -> {
@@ -2,6 +2,7 @@ package com.hl.fambud.service;
 
 import com.hl.fambud.model.Transaction;
 import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.util.KeywordMatcher;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
@@ -26,6 +27,8 @@ public class TransactionUtil {
     public static final List<String> TRANSFER_KEYWORDS = List.of(
         "TFR", "Transfer", "Credit to Account", "From Netwealth Supera");
 
+    private static final KeywordMatcher<String> TRANSFER_MATCHER = KeywordMatcher.of(TRANSFER_KEYWORDS);
+
     static Mono<MultipartFile> convertToMultipartFile(Scheduler parallelScheduler, FilePart filePart) {
         return DataBufferUtils.join(filePart.content())
             .map(dataBuffer -> new MultipartFile() {
@@ -110,10 +113,10 @@ public class TransactionUtil {
             String creditAmount = csvRecord.get("Credit Amount");
 
             if (!debitAmount.isEmpty()) {
-                transaction.setAmount(new BigDecimal(debitAmount));
+                transaction.setAmount(toAmount(debitAmount));
                 transaction.setType(TransactionType.EXPENSE);
             } else if (!creditAmount.isEmpty()) {
-                transaction.setAmount(new BigDecimal(creditAmount));
+                transaction.setAmount(toAmount(creditAmount));
                 transaction.setType(TransactionType.INCOME);
             }
             checkForTransfer(transaction);
@@ -125,14 +128,39 @@ public class TransactionUtil {
         }
     }
 
+    /**
+     * Rounds a bank amount to the cents the amount column stores, so the row and its daily totals agree.
+     */
+    private static BigDecimal toAmount(String amount) {
+        return new BigDecimal(amount).setScale(2, RoundingMode.HALF_UP);
+    }
+
     private static void checkForTransfer(Transaction transaction) {
-        if (TRANSFER_KEYWORDS.stream().anyMatch(keyword -> transaction.getDescription().contains(keyword)))
+        if (TRANSFER_MATCHER.matches(transaction.getDescription()))
             transaction.setType(TransactionType.MOVE);
     }
 
+    /**
+     * Reduces a bank description to its stable words, so that descriptions of the same merchant group together:
+     * upper cased, without the card, reference and date tokens that contain digits, and with single spaces.
+     */
+    static String normaliseDescription(String description) {
+        if (description == null)
+            return "";
+        StringBuilder normalised = new StringBuilder(description.length());
+        for (String token : description.trim().toUpperCase().split("\\s+")) {
+            if (token.isEmpty() || token.chars().anyMatch(Character::isDigit))
+                continue;
+            if (!normalised.isEmpty())
+                normalised.append(' ');
+            normalised.append(token);
+        }
+        return normalised.toString();
+    }
+
     static String buildTransactionIdentifier(Transaction transaction) {
         return transaction.getDescription() + "|"
-            + transaction.getAmount().setScale(2, RoundingMode.UNNECESSARY) + "|"
+            + transaction.getAmount().setScale(2, RoundingMode.HALF_UP) + "|"
             + transaction.getDate().toString();
     }
 }
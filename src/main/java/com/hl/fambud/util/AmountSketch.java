@@ -0,0 +1,114 @@
+package com.hl.fambud.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Approximate quantiles of amounts in cents within {@link #RELATIVE_ACCURACY}, from the mergeable logarithmic bucket
+ * counts of DDSketch. Instances are not thread safe.
+ */
+public final class AmountSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final TreeMap<Integer, Long> counts = new TreeMap<>();
+    private long count;
+
+    /**
+     * Returns the bucket of an amount in cents, ignoring its sign.
+     */
+    public static int bucketOf(long cents) {
+        long magnitude = Math.abs(cents);
+        return magnitude == 0 ? 0 : (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA) + 1;
+    }
+
+    /**
+     * Returns the amount in cents reported for the amounts in a bucket.
+     */
+    public static long valueOf(int bucket) {
+        return bucket == 0 ? 0 : Math.round(2 * Math.pow(GAMMA, bucket - 1) / (GAMMA + 1));
+    }
+
+    public AmountSketch add(long cents) {
+        return add(bucketOf(cents), 1);
+    }
+
+    public AmountSketch remove(long cents) {
+        return add(bucketOf(cents), -1);
+    }
+
+    /**
+     * Adds a number of amounts, or removes them when negative, from a bucket.
+     */
+    public AmountSketch add(int bucket, long bucketCount) {
+        if (bucketCount == 0)
+            return this;
+        long updated = counts.merge(bucket, bucketCount, Long::sum);
+        if (updated == 0)
+            counts.remove(bucket);
+        count += bucketCount;
+        return this;
+    }
+
+    public AmountSketch merge(AmountSketch other) {
+        other.counts.forEach(this::add);
+        return this;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count <= 0;
+    }
+
+    /**
+     * Returns the non-empty buckets and their counts, in bucket order.
+     */
+    public Map<Integer, Long> buckets() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Returns the amount in cents at the quantile, between 0 and 1, or 0 when the sketch is empty.
+     */
+    public long quantile(double quantile) {
+        if (quantile < 0 || quantile > 1)
+            throw new IllegalArgumentException("quantile must be between 0 and 1: " + quantile);
+        if (isEmpty())
+            return 0;
+        double rank = quantile * (count - 1);
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : counts.entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank)
+                return valueOf(bucket.getKey());
+        }
+        return valueOf(counts.lastKey());
+    }
+
+    /**
+     * Counts the amounts between consecutive bounds in cents, the last bin holding everything from the last bound up.
+     * Amounts are binned by the value of their bucket, so amounts within one percent of a bound may fall on either
+     * side of it.
+     */
+    public List<Long> histogram(List<Long> bounds) {
+        List<Long> bins = new ArrayList<>(Collections.nCopies(bounds.size(), 0L));
+        counts.forEach((bucket, bucketCount) -> {
+            long value = valueOf(bucket);
+            int bin = Collections.binarySearch(bounds, value);
+            bin = bin >= 0 ? bin : -bin - 2;
+            if (bin >= 0)
+                bins.set(bin, bins.get(bin) + bucketCount);
+        });
+        return bins;
+    }
+}
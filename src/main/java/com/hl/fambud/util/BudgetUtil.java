@@ -7,4 +7,6 @@ final public class BudgetUtil {
     public final static String INVALID_CATEGORY_ID = "Invalid category ID ";
 
     public final static String INVALID_TRANSACTION_ID = "Invalid transaction ID ";
+
+    public final static String INVALID_CATEGORY_RULE_ID = "Invalid category rule ID ";
 }
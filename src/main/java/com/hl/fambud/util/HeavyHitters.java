@@ -0,0 +1,135 @@
+package com.hl.fambud.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Approximate most frequent items of a stream in fixed memory, using the mergeable Space-Saving algorithm. Instances
+ * are not thread safe.
+ */
+public final class HeavyHitters<T> {
+
+    private static final Comparator<Counter<?>> BY_COUNT = Comparator.<Counter<?>>comparingLong(counter -> counter.count)
+        .thenComparingLong(counter -> counter.sequence);
+
+    private final int capacity;
+    private final Map<T, Counter<T>> counters;
+    // ordered by count so the counter to replace is always the first one
+    private final TreeSet<Counter<T>> countersByCount = new TreeSet<>(BY_COUNT);
+    private long total;
+    private long sequence;
+
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(T item) {
+        offer(item, 1);
+    }
+
+    public void offer(T item, long weight) {
+        total += weight;
+        Counter<T> counter = counters.get(item);
+        if (counter != null) {
+            increment(counter, weight);
+        } else if (counters.size() < capacity) {
+            track(item, weight, 0);
+        } else {
+            Counter<T> smallest = countersByCount.pollFirst();
+            counters.remove(smallest.item);
+            track(item, smallest.count + weight, smallest.count);
+        }
+    }
+
+    /**
+     * Returns a summary of both streams, keeping the capacity of this one. An item tracked by only one summary has the
+     * other summary's lowest count added to its count and error.
+     */
+    public HeavyHitters<T> merge(HeavyHitters<T> other) {
+        long thisFloor = floor();
+        long otherFloor = other.floor();
+        Map<T, long[]> merged = new HashMap<>();
+        counters.forEach((item, counter) -> merged.put(item, new long[]{counter.count + otherFloor, counter.error + otherFloor}));
+        other.counters.forEach((item, counter) -> {
+            long[] countAndError = merged.get(item);
+            if (countAndError == null) {
+                merged.put(item, new long[]{counter.count + thisFloor, counter.error + thisFloor});
+            } else {
+                countAndError[0] += counter.count - otherFloor;
+                countAndError[1] += counter.error - otherFloor;
+            }
+        });
+        HeavyHitters<T> result = new HeavyHitters<>(capacity);
+        result.total = total + other.total;
+        merged.entrySet().stream()
+            .sorted((e1, e2) -> Long.compare(e2.getValue()[0], e1.getValue()[0]))
+            .limit(capacity)
+            .forEach(entry -> result.track(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        return result;
+    }
+
+    /**
+     * Returns up to {@code limit} items, most frequent first.
+     */
+    public List<Entry<T>> top(int limit) {
+        List<Entry<T>> top = new ArrayList<>(Math.min(limit, counters.size()));
+        for (Counter<T> counter : countersByCount.descendingSet()) {
+            if (top.size() >= limit)
+                break;
+            top.add(new Entry<>(counter.item, counter.count, counter.error));
+        }
+        return top;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private long floor() {
+        return counters.size() < capacity ? 0 : countersByCount.first().count;
+    }
+
+    private void track(T item, long count, long error) {
+        Counter<T> counter = new Counter<>(item, count, error, sequence++);
+        counters.put(item, counter);
+        countersByCount.add(counter);
+    }
+
+    private void increment(Counter<T> counter, long weight) {
+        countersByCount.remove(counter);
+        counter.count += weight;
+        countersByCount.add(counter);
+    }
+
+    /**
+     * An item with its estimated count, which exceeds the true count by at most {@code error}.
+     */
+    public record Entry<T>(T item, long count, long error) {
+    }
+
+    private static final class Counter<T> {
+
+        private final T item;
+        private final long sequence;
+        private long count;
+        private long error;
+
+        private Counter(T item, long count, long error, long sequence) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.hl.fambud.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Case-insensitive multi-keyword matcher backed by an Aho-Corasick automaton, where the longest keyword found wins and
+ * ties go to the keyword added first. Instances are immutable and safe to share between threads.
+ */
+public final class KeywordMatcher<T> {
+
+    private static final int ROOT = 0;
+
+    private static final int NO_MATCH = -1;
+
+    // per state: sorted transition characters and their target states
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failure;
+    // per state: the preferred keyword ending at this state or at any of its failure states
+    private final int[] bestKeyword;
+    private final int[] keywordLengths;
+    private final List<T> values;
+
+    private KeywordMatcher(char[][] transitionChars, int[][] transitionTargets, int[] failure, int[] bestKeyword,
+                           int[] keywordLengths, List<T> values) {
+        this.transitionChars = transitionChars;
+        this.transitionTargets = transitionTargets;
+        this.failure = failure;
+        this.bestKeyword = bestKeyword;
+        this.keywordLengths = keywordLengths;
+        this.values = values;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Builds a matcher whose values are the keywords themselves.
+     */
+    public static KeywordMatcher<String> of(Collection<String> keywords) {
+        Builder<String> builder = builder();
+        keywords.forEach(keyword -> builder.add(keyword, keyword));
+        return builder.build();
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public List<T> values() {
+        return values;
+    }
+
+    public Optional<T> match(CharSequence text) {
+        int index = matchIndex(text);
+        return index == NO_MATCH ? Optional.empty() : Optional.of(values.get(index));
+    }
+
+    public boolean matches(CharSequence text) {
+        return matchIndex(text) != NO_MATCH;
+    }
+
+    /**
+     * Returns the insertion index of the preferred keyword found in the text, or -1 when no keyword occurs.
+     */
+    public int matchIndex(CharSequence text) {
+        if (text == null || values.isEmpty())
+            return NO_MATCH;
+        int state = ROOT;
+        int best = NO_MATCH;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = transition(state, c);
+            while (next < 0 && state != ROOT) {
+                state = failure[state];
+                next = transition(state, c);
+            }
+            state = next < 0 ? ROOT : next;
+            int candidate = bestKeyword[state];
+            if (candidate != NO_MATCH && (best == NO_MATCH || prefer(candidate, best)))
+                best = candidate;
+        }
+        return best;
+    }
+
+    private int transition(int state, char c) {
+        int position = Arrays.binarySearch(transitionChars[state], c);
+        return position < 0 ? -1 : transitionTargets[state][position];
+    }
+
+    private boolean prefer(int candidate, int current) {
+        return keywordLengths[candidate] > keywordLengths[current]
+            || (keywordLengths[candidate] == keywordLengths[current] && candidate < current);
+    }
+
+    public static final class Builder<T> {
+
+        private final List<String> keywords = new ArrayList<>();
+        private final List<T> values = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a keyword and the value returned when it is the preferred match. Blank keywords are ignored.
+         */
+        public Builder<T> add(String keyword, T value) {
+            if (keyword != null && !keyword.isBlank()) {
+                keywords.add(lowerCase(keyword));
+                values.add(value);
+            }
+            return this;
+        }
+
+        // per character, exactly as the text is folded while matching
+        private static String lowerCase(String keyword) {
+            char[] chars = keyword.toCharArray();
+            for (int i = 0; i < chars.length; i++)
+                chars[i] = Character.toLowerCase(chars[i]);
+            return new String(chars);
+        }
+
+        public KeywordMatcher<T> build() {
+            List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+            List<Integer> terminal = new ArrayList<>();
+            trie.add(new TreeMap<>());
+            terminal.add(NO_MATCH);
+            int[] keywordLengths = new int[keywords.size()];
+            for (int k = 0; k < keywords.size(); k++) {
+                String keyword = keywords.get(k);
+                keywordLengths[k] = keyword.length();
+                int state = ROOT;
+                for (int i = 0; i < keyword.length(); i++) {
+                    Integer next = trie.get(state).get(keyword.charAt(i));
+                    if (next == null) {
+                        next = trie.size();
+                        trie.add(new TreeMap<>());
+                        terminal.add(NO_MATCH);
+                        trie.get(state).put(keyword.charAt(i), next);
+                    }
+                    state = next;
+                }
+                // duplicate keywords keep the first value added
+                if (terminal.get(state) == NO_MATCH)
+                    terminal.set(state, k);
+            }
+
+            int stateCount = trie.size();
+            char[][] transitionChars = new char[stateCount][];
+            int[][] transitionTargets = new int[stateCount][];
+            for (int state = 0; state < stateCount; state++) {
+                TreeMap<Character, Integer> edges = trie.get(state);
+                transitionChars[state] = new char[edges.size()];
+                transitionTargets[state] = new int[edges.size()];
+                int i = 0;
+                for (var edge : edges.entrySet()) {
+                    transitionChars[state][i] = edge.getKey();
+                    transitionTargets[state][i] = edge.getValue();
+                    i++;
+                }
+            }
+
+            // breadth first so that failure states are always resolved before their dependants
+            int[] failure = new int[stateCount];
+            int[] bestKeyword = new int[stateCount];
+            bestKeyword[ROOT] = NO_MATCH;
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int child : transitionTargets[ROOT]) {
+                failure[child] = ROOT;
+                bestKeyword[child] = terminal.get(child);
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int i = 0; i < transitionChars[state].length; i++) {
+                    char c = transitionChars[state][i];
+                    int child = transitionTargets[state][i];
+                    int fallback = failure[state];
+                    int target = targetOf(transitionChars, transitionTargets, fallback, c);
+                    while (target < 0 && fallback != ROOT) {
+                        fallback = failure[fallback];
+                        target = targetOf(transitionChars, transitionTargets, fallback, c);
+                    }
+                    failure[child] = target < 0 ? ROOT : target;
+                    bestKeyword[child] = preferred(terminal.get(child), bestKeyword[failure[child]], keywordLengths);
+                    queue.add(child);
+                }
+            }
+            return new KeywordMatcher<>(transitionChars, transitionTargets, failure, bestKeyword, keywordLengths,
+                Collections.unmodifiableList(new ArrayList<>(values)));
+        }
+
+        private static int targetOf(char[][] transitionChars, int[][] transitionTargets, int state, char c) {
+            int position = Arrays.binarySearch(transitionChars[state], c);
+            return position < 0 ? -1 : transitionTargets[state][position];
+        }
+
+        private static int preferred(int first, int second, int[] keywordLengths) {
+            if (first == NO_MATCH)
+                return second;
+            if (second == NO_MATCH)
+                return first;
+            if (keywordLengths[first] != keywordLengths[second])
+                return keywordLengths[first] > keywordLengths[second] ? first : second;
+            return Math.min(first, second);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.hl.fambud.util;
+
+import java.util.Arrays;
+
+/**
+ * MinHash signatures of texts over their character shingles, whose equal positions estimate Jaccard similarity and
+ * whose bands key locality-sensitive hashing. Instances are immutable, and signatures are only comparable between
+ * instances created with the same arguments.
+ */
+public final class MinHash {
+
+    private final int shingleLength;
+    private final long[] seeds;
+
+    public MinHash(int signatureSize, int shingleLength, long seed) {
+        if (signatureSize <= 0 || shingleLength <= 0)
+            throw new IllegalArgumentException("signature size and shingle length must be positive");
+        this.shingleLength = shingleLength;
+        this.seeds = new long[signatureSize];
+        long state = seed;
+        for (int i = 0; i < signatureSize; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            seeds[i] = mix(state);
+        }
+    }
+
+    public int signatureSize() {
+        return seeds.length;
+    }
+
+    /**
+     * Returns the signature of the text, whose shingles are its substrings of the shingle length. A text shorter
+     * than that is a single shingle.
+     */
+    public int[] signature(CharSequence text) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        int shingleCount = Math.max(1, text.length() - shingleLength + 1);
+        for (int start = 0; start < shingleCount; start++) {
+            long shingle = 0;
+            for (int i = start; i < Math.min(start + shingleLength, text.length()); i++)
+                shingle = shingle * 31 + text.charAt(i);
+            for (int i = 0; i < seeds.length; i++) {
+                int hash = (int) (mix(shingle ^ seeds[i]) >>> 33);
+                if (hash < signature[i])
+                    signature[i] = hash;
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the texts two signatures were computed from.
+     */
+    public static double similarity(int[] signature, int[] otherSignature) {
+        int equal = 0;
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] == otherSignature[i])
+                equal++;
+        }
+        return (double) equal / signature.length;
+    }
+
+    /**
+     * Hashes each of the given number of consecutive bands of the signature, whose size must be a multiple of it.
+     */
+    public static long[] bandHashes(int[] signature, int bands) {
+        if (bands <= 0 || signature.length % bands != 0)
+            throw new IllegalArgumentException(signature.length + " hashes cannot be split into " + bands + " bands");
+        int rows = signature.length / bands;
+        long[] bandHashes = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long hash = band;
+            for (int row = band * rows; row < (band + 1) * rows; row++)
+                hash = mix(hash * 31 + signature[row]);
+            bandHashes[band] = hash;
+        }
+        return bandHashes;
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,64 @@
+package com.hl.fambud.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Sums money amounts as a {@code long} number of cents, failing rather than overflowing, and converts them from and to
+ * {@link BigDecimal} with a scale of 2. Instances are not thread safe.
+ */
+public final class MoneyAccumulator {
+
+    public static final int SCALE = 2;
+
+    private long cents;
+
+    public MoneyAccumulator() {
+    }
+
+    public MoneyAccumulator(long cents) {
+        this.cents = cents;
+    }
+
+    /**
+     * Converts an amount to cents.
+     *
+     * @throws ArithmeticException if the amount has fractions of cents or does not fit in a long
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public MoneyAccumulator add(BigDecimal amount) {
+        return addCents(toCents(amount));
+    }
+
+    /**
+     * @throws ArithmeticException if the sum overflows
+     */
+    public MoneyAccumulator addCents(long cents) {
+        this.cents = Math.addExact(this.cents, cents);
+        return this;
+    }
+
+    public MoneyAccumulator subtractCents(long cents) {
+        this.cents = Math.subtractExact(this.cents, cents);
+        return this;
+    }
+
+    public MoneyAccumulator merge(MoneyAccumulator other) {
+        return addCents(other.cents);
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public BigDecimal toAmount() {
+        return toAmount(cents);
+    }
+}
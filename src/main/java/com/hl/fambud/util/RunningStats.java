@@ -0,0 +1,119 @@
+package com.hl.fambud.util;
+
+/**
+ * Running count, mean and variance of a series of values, updated with Welford's algorithm and combined or split with
+ * Chan's parallel formula. Instances are not thread safe.
+ */
+public final class RunningStats {
+
+    private long count;
+    private double mean;
+    private double m2;
+
+    public RunningStats() {
+    }
+
+    private RunningStats(long count, double mean, double m2) {
+        set(count, mean, m2);
+    }
+
+    /**
+     * Returns statistics from their count, mean and sum of squared deviations, as persisted.
+     */
+    public static RunningStats of(long count, double mean, double m2) {
+        return new RunningStats(count, mean, m2);
+    }
+
+    public RunningStats copy() {
+        return new RunningStats(count, mean, m2);
+    }
+
+    public RunningStats add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        return this;
+    }
+
+    /**
+     * Removes a value that was added before, reversing its update.
+     */
+    public RunningStats remove(double value) {
+        if (count <= 1)
+            return set(0, 0, 0);
+        double previousMean = (count * mean - value) / (count - 1);
+        m2 -= (value - mean) * (value - previousMean);
+        mean = previousMean;
+        count--;
+        return set(count, mean, m2);
+    }
+
+    /**
+     * Adds the values of other statistics to these.
+     */
+    public RunningStats merge(RunningStats other) {
+        if (other.count == 0)
+            return this;
+        if (count == 0)
+            return set(other.count, other.mean, other.m2);
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        return set(total, mean + delta * other.count / total,
+            m2 + other.m2 + delta * delta * ((double) count * other.count / total));
+    }
+
+    /**
+     * Removes the values of other statistics, which must have been merged into these before.
+     */
+    public RunningStats subtract(RunningStats other) {
+        if (other.count == 0)
+            return this;
+        long remaining = count - other.count;
+        if (remaining <= 0)
+            return set(0, 0, 0);
+        double remainingMean = (count * mean - other.count * other.mean) / remaining;
+        double delta = other.mean - remainingMean;
+        return set(remaining, remainingMean,
+            m2 - other.m2 - delta * delta * ((double) remaining * other.count / count));
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    public double m2() {
+        return m2;
+    }
+
+    /**
+     * Returns the sample variance, or 0 for fewer than two values.
+     */
+    public double variance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * Returns how many standard deviations the value is from the mean, or 0 when the values do not vary.
+     */
+    public double zScore(double value) {
+        double standardDeviation = standardDeviation();
+        return standardDeviation == 0 ? 0 : (value - mean) / standardDeviation;
+    }
+
+    // rounding can leave a slightly negative sum of squares after removals
+    private RunningStats set(long count, double mean, double m2) {
+        this.count = count;
+        this.mean = count == 0 ? 0 : mean;
+        this.m2 = count < 2 ? 0 : Math.max(m2, 0);
+        return this;
+    }
+}
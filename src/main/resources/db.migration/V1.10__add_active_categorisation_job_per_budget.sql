@@ -0,0 +1,4 @@
+-- Set to the budget while a job is queued or running, so the database allows a single active job per budget
+ALTER TABLE categorisation_jobs ADD COLUMN active_budget_id BIGINT;
+
+ALTER TABLE categorisation_jobs ADD CONSTRAINT categorisation_jobs_active_budget_id_key UNIQUE (active_budget_id);
@@ -0,0 +1,6 @@
+-- Last time the instance running a job reported it alive, so that jobs left active by a stopped instance are failed
+ALTER TABLE categorisation_jobs ADD COLUMN heartbeat_at TIMESTAMP;
+
+UPDATE categorisation_jobs SET heartbeat_at = COALESCE(finished_at, started_at);
+
+ALTER TABLE categorisation_jobs ALTER COLUMN heartbeat_at SET NOT NULL;
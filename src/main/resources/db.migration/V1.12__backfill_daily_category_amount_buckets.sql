@@ -0,0 +1,8 @@
+-- Budgets whose amount buckets predate V1.7 and are rebuilt by the application at startup, as bucket indexes are
+-- computed by it
+CREATE TABLE daily_category_amount_bucket_backfills (
+    budget_id BIGINT PRIMARY KEY
+);
+
+INSERT INTO daily_category_amount_bucket_backfills (budget_id)
+SELECT DISTINCT budget_id FROM daily_category_totals;
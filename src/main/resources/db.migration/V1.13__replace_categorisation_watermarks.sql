@@ -0,0 +1,6 @@
+-- Version of the budget's rule set an uncategorised transaction was last checked against without a match. Replaces
+-- the per-budget watermark, which skipped transactions committed after a run had passed their id, so every
+-- uncategorised transaction is checked again by the next incremental run
+ALTER TABLE transactions ADD COLUMN rule_set_version BIGINT;
+
+DROP TABLE categorisation_watermarks;
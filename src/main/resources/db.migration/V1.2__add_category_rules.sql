@@ -0,0 +1,15 @@
+-- Keyword rules used to categorise transactions, tuned per budget
+CREATE TABLE category_rules (
+    rule_id BIGSERIAL PRIMARY KEY,
+    budget_id BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    keyword VARCHAR(200) NOT NULL
+);
+
+CREATE INDEX category_rules_budget_id_idx ON category_rules (budget_id);
+
+-- Bumped on every rule change so that compiled rule sets cached by any instance can be invalidated
+CREATE TABLE category_rule_versions (
+    budget_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
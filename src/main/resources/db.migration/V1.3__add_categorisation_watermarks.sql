@@ -0,0 +1,8 @@
+-- Highest transaction evaluated by categorisation and the rule set version it was evaluated with
+CREATE TABLE categorisation_watermarks (
+    budget_id BIGINT PRIMARY KEY,
+    last_transaction_id BIGINT NOT NULL,
+    rule_set_version BIGINT NOT NULL
+);
+
+CREATE INDEX transactions_budget_id_transaction_id_idx ON transactions (budget_id, transaction_id);
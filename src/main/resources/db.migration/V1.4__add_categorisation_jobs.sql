@@ -0,0 +1,17 @@
+-- Background categorisation runs, shared by all instances so any of them can report on or cancel a job
+CREATE TABLE categorisation_jobs (
+    job_id VARCHAR(36) PRIMARY KEY,
+    budget_id BIGINT NOT NULL,
+    full_run BOOLEAN NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    processed BIGINT NOT NULL,
+    matched BIGINT NOT NULL,
+    written BIGINT NOT NULL,
+    failed BIGINT NOT NULL,
+    error VARCHAR(500),
+    cancel_requested BOOLEAN NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX categorisation_jobs_finished_at_idx ON categorisation_jobs (finished_at);
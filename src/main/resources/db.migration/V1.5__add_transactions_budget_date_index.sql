@@ -0,0 +1,2 @@
+-- Import duplicate checks and reports read a budget's transactions by date range
+CREATE INDEX transactions_budget_id_date_idx ON transactions (budget_id, date);
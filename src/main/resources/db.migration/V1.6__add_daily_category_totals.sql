@@ -0,0 +1,17 @@
+-- Daily totals of categorised transactions, kept up to date on every write so summaries read one row per day and
+-- category instead of every transaction
+CREATE TABLE daily_category_totals (
+    budget_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    amount_cents BIGINT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (budget_id, date, category_id, type)
+);
+
+INSERT INTO daily_category_totals (budget_id, date, category_id, type, amount_cents, tx_count)
+SELECT budget_id, date, category_id, type, CAST(SUM(amount) * 100 AS BIGINT), COUNT(*)
+FROM transactions
+WHERE budget_id IS NOT NULL AND category_id IS NOT NULL
+GROUP BY budget_id, date, category_id, type;
@@ -0,0 +1,12 @@
+-- Daily counts of categorised transactions per amount bucket, the mergeable quantile sketches behind the amount
+-- distribution report. Bucket indexes are computed by the application, so existing budgets are filled by rebuilding
+-- their daily totals
+CREATE TABLE daily_category_amount_buckets (
+    budget_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    bucket INT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (budget_id, date, category_id, type, bucket)
+);
@@ -0,0 +1,17 @@
+-- Running mean and sum of squared deviations of the transaction amounts in cents per budget and category, flushed
+-- periodically from memory and used to flag unusual transactions
+CREATE TABLE category_stats (
+    budget_id BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    mean_cents DOUBLE PRECISION NOT NULL,
+    m2 DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (budget_id, category_id)
+);
+
+INSERT INTO category_stats (budget_id, category_id, tx_count, mean_cents, m2)
+SELECT budget_id, category_id, COUNT(*), CAST(AVG(amount * 100) AS DOUBLE PRECISION),
+       CAST(COALESCE(VAR_POP(amount * 100), 0) * COUNT(*) AS DOUBLE PRECISION)
+FROM transactions
+WHERE budget_id IS NOT NULL AND category_id IS NOT NULL AND type IN ('EXPENSE', 'INCOME')
+GROUP BY budget_id, category_id;
@@ -0,0 +1,18 @@
+ALTER TABLE categories ADD COLUMN monthly_limit DECIMAL(15, 2);
+
+-- Expenses in cents per budget, month and category, kept up to date by every write so that spending limits are
+-- checked without reading transactions
+CREATE TABLE category_month_spend (
+    budget_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    amount_cents BIGINT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (budget_id, month_start, category_id)
+);
+
+INSERT INTO category_month_spend (budget_id, month_start, category_id, amount_cents, tx_count)
+SELECT budget_id, CAST(DATE_TRUNC('month', date) AS DATE), category_id, SUM(amount_cents), SUM(tx_count)
+FROM daily_category_totals
+WHERE type = 'EXPENSE'
+GROUP BY budget_id, CAST(DATE_TRUNC('month', date) AS DATE), category_id;
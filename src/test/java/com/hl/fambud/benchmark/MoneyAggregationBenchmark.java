@@ -0,0 +1,112 @@
+package com.hl.fambud.benchmark;
+
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.util.MoneyAccumulator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares summing amounts per category with BigDecimal against summing cents with {@link MoneyAccumulator}. Not run by
+ * the build; run the main method after {@code mvn test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyAggregationBenchmark {
+
+    @Param({"1000", "100000"})
+    private int transactionCount;
+
+    private List<Transaction> transactions;
+
+    private long[] amountCents;
+
+    private long[] categoryIds;
+
+    private static final int CATEGORY_COUNT = 20;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        transactions = new ArrayList<>(transactionCount);
+        amountCents = new long[transactionCount];
+        categoryIds = new long[transactionCount];
+        for (int i = 0; i < transactionCount; i++) {
+            long cents = 100 + random.nextInt(50_000);
+            long categoryId = random.nextInt(CATEGORY_COUNT);
+            transactions.add(Transaction.builder()
+                .transactionId((long) i)
+                .categoryId(categoryId)
+                .amount(BigDecimal.valueOf(cents, 2))
+                .date(LocalDate.of(2024, 1, 1).plusDays(i % 365))
+                .type(TransactionType.EXPENSE)
+                .build());
+            amountCents[i] = cents;
+            categoryIds[i] = categoryId;
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalReducing() {
+        Map<Long, BigDecimal> totals = transactions.stream()
+            .collect(Collectors.groupingBy(
+                Transaction::getCategoryId,
+                Collectors.reducing(BigDecimal.ZERO, Transaction::getAmount, BigDecimal::add)));
+        return totals.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal moneyAccumulatorFromAmounts() {
+        Map<Long, MoneyAccumulator> totals = new HashMap<>();
+        for (Transaction transaction : transactions)
+            totals.computeIfAbsent(transaction.getCategoryId(), categoryId -> new MoneyAccumulator())
+                .add(transaction.getAmount());
+        MoneyAccumulator total = new MoneyAccumulator();
+        totals.values().forEach(total::merge);
+        return total.toAmount();
+    }
+
+    @Benchmark
+    public BigDecimal moneyAccumulatorFromCents() {
+        Map<Long, MoneyAccumulator> totals = new HashMap<>();
+        for (int i = 0; i < amountCents.length; i++)
+            totals.computeIfAbsent(categoryIds[i], categoryId -> new MoneyAccumulator())
+                .addCents(amountCents[i]);
+        MoneyAccumulator total = new MoneyAccumulator();
+        totals.values().forEach(total::merge);
+        return total.toAmount();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(MoneyAggregationBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
@@ -31,6 +31,7 @@ import java.time.LocalDate;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureWebTestClient
@@ -91,6 +92,39 @@ public class CategoriserIntegrationTest extends BaseIntegrationTest {
         assertPeriodSummary(summaryDto, categoryAmountMap);
     }
 
+    @Test
+    public void monthlySummaryTrend() throws Exception {
+        Map<String, BigDecimal> categoryAmountMap = new HashMap<>();
+        Long budgetId = createTestData(
+            "json/categorised-transactions.json", categoryAmountMap);
+        List<PeriodSummaryDto> monthlySummaries = webTestClient
+            .get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.BUDGET_SUMMARY_TREND_URL)
+                .queryParam("startDate", "15-01-2024")
+                .queryParam("endDate", "31-12-2024")
+                .queryParam("bucket", "MONTH")
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(PeriodSummaryDto.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(12, monthlySummaries.size());
+        assertEquals(LocalDate.of(2024, 1, 15), monthlySummaries.get(0).getStartDate());
+        assertEquals(LocalDate.of(2024, 1, 31), monthlySummaries.get(0).getEndDate());
+        assertEquals(LocalDate.of(2024, 12, 1), monthlySummaries.get(11).getStartDate());
+        PeriodSummaryDto yearSummary = categoriser.getBudgetPeriodSummary(
+            budgetId, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 12, 31)).block();
+        assertEquals(0, yearSummary.getTotalExpenses().compareTo(monthlySummaries.stream()
+            .map(PeriodSummaryDto::getTotalExpenses)
+            .reduce(BigDecimal.ZERO, BigDecimal::add)));
+        assertEquals(0, yearSummary.getTotalIncome().compareTo(monthlySummaries.stream()
+            .map(PeriodSummaryDto::getTotalIncome)
+            .reduce(BigDecimal.ZERO, BigDecimal::add)));
+    }
+
     private Long createTestData(String transactionDataFileName, Map<String, BigDecimal> categoryAmountMap) throws IOException {
         BudgetDto createdBudgetDto = TestUtil.postBudget(webTestClient, BudgetDto.builder().name("Budget").build());
         Long createdBudgetId = createdBudgetDto.getBudgetId();
@@ -126,6 +160,8 @@ public class CategoriserIntegrationTest extends BaseIntegrationTest {
                 categoryAmountMap.put(mapKey, amount);
             }
         });
+        // the transactions were saved around the services
+        assertTrue(TestUtil.rebuildDailyTotals(webTestClient, createdBudgetId).isConsistent());
         return createdBudgetId;
     }
 
@@ -2,22 +2,41 @@ package com.hl.fambud.integration;
 
 import com.hl.fambud.dto.BudgetDto;
 import com.hl.fambud.dto.CategoryDto;
+import com.hl.fambud.dto.TransactionDto;
+import com.hl.fambud.dto.reporting.CategoryLimitDto;
+import com.hl.fambud.dto.reporting.CategoryLimitsDto;
+import com.hl.fambud.model.CategoryLimitEvent;
+import com.hl.fambud.model.LimitStatus;
+import com.hl.fambud.model.TransactionType;
 import com.hl.fambud.util.TestDataGenerator;
 import com.hl.fambud.util.TestUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
 import org.springframework.http.MediaType;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureWebTestClient
 @Slf4j
 public class CategoryIntegrationTest extends BaseIntegrationTest {
 
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
     @Test
     public void crud() {
         // create
@@ -42,6 +61,78 @@ public class CategoryIntegrationTest extends BaseIntegrationTest {
             .isNotFound();
     }
 
+    @Test
+    public void limits() {
+        List<CategoryLimitEvent> events = new CopyOnWriteArrayList<>();
+        ApplicationListener<PayloadApplicationEvent<CategoryLimitEvent>> listener =
+            event -> events.add(event.getPayload());
+        applicationContext.addApplicationListener(listener);
+        try {
+            BudgetDto budgetDto = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+            long budgetId = budgetDto.getBudgetId();
+            CategoryDto categoryDto = TestDataGenerator.getCategoryDto(budgetId);
+            categoryDto.setMonthlyLimit(new BigDecimal("-1.00"));
+            webTestClient.post()
+                .uri(TestDataGenerator.CATEGORY_BASE_URL, budgetId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(categoryDto)
+                .exchange()
+                .expectStatus()
+                .isBadRequest();
+            categoryDto.setMonthlyLimit(new BigDecimal("100.00"));
+            long categoryId = TestUtil.postCategory(webTestClient, budgetId, categoryDto).getCategoryId();
+
+            postExpense(budgetId, categoryId, "50.00", TransactionType.EXPENSE);
+            postExpense(budgetId, categoryId, "500.00", TransactionType.INCOME);
+            assertLimit(budgetId, "50.00", "50.00", LimitStatus.UNDER);
+            assertTrue(events.isEmpty());
+
+            postExpense(budgetId, categoryId, "35.00", TransactionType.EXPENSE);
+            TransactionDto transactionDto = postExpense(budgetId, categoryId, "10.00", TransactionType.EXPENSE);
+            assertLimit(budgetId, "95.00", "5.00", LimitStatus.APPROACHING);
+            transactionDto.setAmount(new BigDecimal("30.00"));
+            TestUtil.putTransaction(webTestClient, budgetId, transactionDto);
+            assertLimit(budgetId, "115.00", "-15.00", LimitStatus.EXCEEDED);
+            assertEquals(List.of(LimitStatus.APPROACHING, LimitStatus.EXCEEDED),
+                events.stream().map(CategoryLimitEvent::getStatus).toList());
+            assertEquals(categoryId, events.get(1).getCategoryId());
+            assertEquals(0, new BigDecimal("115.00").compareTo(events.get(1).getSpent()));
+
+            // going back under the limit is not an event
+            TestUtil.deleteTransaction(webTestClient, budgetId, transactionDto);
+            assertLimit(budgetId, "85.00", "15.00", LimitStatus.APPROACHING);
+            assertEquals(2, events.size());
+            assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+        } finally {
+            applicationContext.removeApplicationListener(listener);
+        }
+    }
+
+    private TransactionDto postExpense(long budgetId, long categoryId, String amount, TransactionType type) {
+        TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        transactionDto.setAmount(new BigDecimal(amount));
+        transactionDto.setType(type);
+        return TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+    }
+
+    private void assertLimit(long budgetId, String spent, String remaining, LimitStatus status) {
+        CategoryLimitsDto limits = webTestClient.get()
+            .uri(TestDataGenerator.CATEGORY_LIMITS_URL, budgetId)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CategoryLimitsDto.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(LocalDate.now().withDayOfMonth(1), limits.getStartDate());
+        assertEquals(1, limits.getCategories().size());
+        CategoryLimitDto limit = limits.getCategories().get(0);
+        assertEquals("Insurance", limit.getCategoryName());
+        assertEquals(0, new BigDecimal(spent).compareTo(limit.getSpent()));
+        assertEquals(0, new BigDecimal(remaining).compareTo(limit.getRemaining()));
+        assertEquals(status, limit.getStatus());
+    }
+
     private CategoryDto get(Long budgetId, Long categoryId) {
         return webTestClient
             .get()
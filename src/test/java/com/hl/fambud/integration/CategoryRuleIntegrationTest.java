@@ -0,0 +1,398 @@
+package com.hl.fambud.integration;
+
+import com.hl.fambud.dto.BudgetDto;
+import com.hl.fambud.dto.CategorisationJobDto;
+import com.hl.fambud.dto.CategorisationSimulationDto;
+import com.hl.fambud.dto.CategoryDto;
+import com.hl.fambud.dto.CategoryRuleDto;
+import com.hl.fambud.dto.DescriptionCountDto;
+import com.hl.fambud.dto.TransactionDto;
+import com.hl.fambud.model.CategorisationJobStatus;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.repository.CategorisationJobRepository;
+import com.hl.fambud.repository.TransactionRepository;
+import com.hl.fambud.service.CategorisationJobService;
+import com.hl.fambud.service.CategoryRuleService;
+import com.hl.fambud.util.TestDataGenerator;
+import com.hl.fambud.util.TestUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.hl.fambud.util.TestDataGenerator.CATEGORISATION_JOB_URL;
+import static com.hl.fambud.util.TestDataGenerator.CATEGORISATION_SIMULATION_URL;
+import static com.hl.fambud.util.TestDataGenerator.CATEGORY_RULE_BASE_URL;
+import static com.hl.fambud.util.TestDataGenerator.CATEGORY_RULE_ID_URL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+@Slf4j
+public class CategoryRuleIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private CategorisationJobRepository categorisationJobRepository;
+
+    @Autowired
+    private CategorisationJobService categorisationJobService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private CategoryRuleService categoryRuleService;
+
+    @Test
+    public void crud() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        // create
+        CategoryRuleDto createdRuleDto = TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(categoryId).keyword("NRMA").build());
+        assertNotNull(createdRuleDto.getRuleId());
+        assertEquals(budgetId, createdRuleDto.getBudgetId());
+        // read
+        List<CategoryRuleDto> rules = webTestClient.get()
+            .uri(CATEGORY_RULE_BASE_URL, budgetId)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(CategoryRuleDto.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(List.of(createdRuleDto), rules);
+        // update
+        createdRuleDto.setKeyword("Allianz");
+        CategoryRuleDto updatedRuleDto = webTestClient.put()
+            .uri(CATEGORY_RULE_ID_URL, budgetId, createdRuleDto.getRuleId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(createdRuleDto)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CategoryRuleDto.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals("Allianz", updatedRuleDto.getKeyword());
+        // delete
+        webTestClient.delete()
+            .uri(CATEGORY_RULE_ID_URL, budgetId, createdRuleDto.getRuleId())
+            .exchange()
+            .expectStatus()
+            .isNoContent();
+        webTestClient.get()
+            .uri(CATEGORY_RULE_ID_URL, budgetId, createdRuleDto.getRuleId())
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
+    @Test
+    public void ruleOfAnotherBudget() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        CategoryRuleDto ruleDto = TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(categoryId).keyword("NRMA").build());
+        long otherBudgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+
+        webTestClient.get()
+            .uri(CATEGORY_RULE_ID_URL, otherBudgetId, ruleDto.getRuleId())
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+        webTestClient.put()
+            .uri(CATEGORY_RULE_ID_URL, otherBudgetId, ruleDto.getRuleId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(ruleDto)
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+        webTestClient.delete()
+            .uri(CATEGORY_RULE_ID_URL, otherBudgetId, ruleDto.getRuleId())
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+        assertEquals(ruleDto, webTestClient.get()
+            .uri(CATEGORY_RULE_ID_URL, budgetId, ruleDto.getRuleId())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CategoryRuleDto.class)
+            .returnResult()
+            .getResponseBody());
+    }
+
+    @Test
+    public void seedRulesOnce() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        ClassPathResource mappingFile = new ClassPathResource("category-mapping-2.csv");
+
+        assertEquals(1L, categoryRuleService.seedRules(budgetId, mappingFile).block());
+        assertNull(categoryRuleService.seedRules(budgetId, mappingFile).block());
+        List<CategoryRuleDto> rules = categoryRuleService.getAllRulesForBudget(budgetId).collectList().block();
+        assertEquals(1, rules.size());
+        assertEquals("NRMA", rules.get(0).getKeyword());
+    }
+
+    @Test
+    public void ruleForUnknownCategory() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        webTestClient.post()
+            .uri(CATEGORY_RULE_BASE_URL, budgetId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(CategoryRuleDto.builder().categoryId(Long.MAX_VALUE).keyword("NRMA").build())
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
+    @Test
+    public void categoriseWithRules() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        TransactionDto matchingTransactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        matchingTransactionDto.setCategoryId(null);
+        matchingTransactionDto.setDescription("PAYMENT BY AUTHORITY TO NRMA INSURANCE");
+        long matchingTransactionId =
+            TestUtil.postTransaction(webTestClient, budgetId, matchingTransactionDto).getTransactionId();
+        TransactionDto otherTransactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        otherTransactionDto.setCategoryId(null);
+        long otherTransactionId =
+            TestUtil.postTransaction(webTestClient, budgetId, otherTransactionDto).getTransactionId();
+        TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(categoryId).keyword("nrma").build());
+
+        CategorisationJobDto jobDto = TestUtil.categorise(webTestClient, budgetId, false);
+        assertEquals(CategorisationJobStatus.COMPLETED, jobDto.getStatus());
+        assertTrue(jobDto.getProcessed() >= 2);
+        assertEquals(1, jobDto.getMatched());
+        assertEquals(1, jobDto.getWritten());
+        assertEquals(0, jobDto.getFailed());
+
+        assertEquals(categoryId,
+            TestUtil.getTransaction(webTestClient, budgetId, matchingTransactionId).getCategoryId());
+        assertNull(TestUtil.getTransaction(webTestClient, budgetId, otherTransactionId).getCategoryId());
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+    }
+
+    @Test
+    public void incrementalCategorisationKeepsAssignedCategories() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long manualCategoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        CategoryDto ruleCategoryDto = TestDataGenerator.getCategoryDto(budgetId);
+        ruleCategoryDto.setName("Car");
+        long ruleCategoryId = TestUtil.postCategory(webTestClient, budgetId, ruleCategoryDto).getCategoryId();
+        TransactionDto manualTransactionDto = TestDataGenerator.getTransactionDto(budgetId, manualCategoryId);
+        manualTransactionDto.setDescription("NRMA ROADSIDE ASSISTANCE");
+        long manualTransactionId =
+            TestUtil.postTransaction(webTestClient, budgetId, manualTransactionDto).getTransactionId();
+        TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(ruleCategoryId).keyword("nrma").build());
+
+        categorise(budgetId, false);
+        assertEquals(manualCategoryId,
+            TestUtil.getTransaction(webTestClient, budgetId, manualTransactionId).getCategoryId());
+
+        TransactionDto newTransactionDto = TestDataGenerator.getTransactionDto(budgetId, manualCategoryId);
+        newTransactionDto.setCategoryId(null);
+        newTransactionDto.setDescription("NRMA INSURANCE");
+        long newTransactionId = TestUtil.postTransaction(webTestClient, budgetId, newTransactionDto).getTransactionId();
+        categorise(budgetId, false);
+        assertEquals(ruleCategoryId,
+            TestUtil.getTransaction(webTestClient, budgetId, newTransactionId).getCategoryId());
+        assertEquals(manualCategoryId,
+            TestUtil.getTransaction(webTestClient, budgetId, manualTransactionId).getCategoryId());
+
+        categorise(budgetId, true);
+        assertEquals(ruleCategoryId,
+            TestUtil.getTransaction(webTestClient, budgetId, manualTransactionId).getCategoryId());
+    }
+
+    @Test
+    public void incrementalCategorisationChecksTransactionsCommittedLate() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        TransactionDto lateTransactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        lateTransactionDto.setDescription("NRMA INSURANCE");
+        long lateTransactionId =
+            TestUtil.postTransaction(webTestClient, budgetId, lateTransactionDto).getTransactionId();
+        TransactionDto otherTransactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        otherTransactionDto.setCategoryId(null);
+        TestUtil.postTransaction(webTestClient, budgetId, otherTransactionDto);
+        TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(categoryId).keyword("nrma").build());
+        categorise(budgetId, false);
+
+        // an uncategorised transaction with a lower id than those already checked, as when committed after the run
+        Transaction lateTransaction = transactionRepository.findById(lateTransactionId).block();
+        lateTransaction.setCategoryId(null);
+        transactionRepository.save(lateTransaction).block();
+        categorise(budgetId, false);
+
+        assertEquals(categoryId, TestUtil.getTransaction(webTestClient, budgetId, lateTransactionId).getCategoryId());
+    }
+
+    @Test
+    public void incrementalCategorisationRechecksEditedTransactions() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        transactionDto.setCategoryId(null);
+        transactionDto.setDescription("WOOLWORTHS 1767 CARINGBAH");
+        TransactionDto createdTransactionDto = TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+        TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(categoryId).keyword("nrma").build());
+        categorise(budgetId, false);
+        assertNull(TestUtil.getTransaction(
+            webTestClient, budgetId, createdTransactionDto.getTransactionId()).getCategoryId());
+
+        createdTransactionDto.setDescription("NRMA INSURANCE");
+        TestUtil.putTransaction(webTestClient, budgetId, createdTransactionDto);
+        categorise(budgetId, false);
+
+        assertEquals(categoryId, TestUtil.getTransaction(
+            webTestClient, budgetId, createdTransactionDto.getTransactionId()).getCategoryId());
+    }
+
+    @Test
+    public void simulateCategorisation() {
+        long budgetId = TestUtil.postBudget(webTestClient, BudgetDto.builder().name("Budget").build()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        for (String description : List.of("NRMA INSURANCE 1234", "WOOLWORTHS 1767 CARINGBAH", "WOOLWORTHS 0042 CARINGBAH")) {
+            TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+            transactionDto.setCategoryId(null);
+            transactionDto.setDescription(description);
+            TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+        }
+        TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(categoryId).keyword("nrma").build());
+
+        CategorisationSimulationDto simulationDto = webTestClient.get()
+            .uri(CATEGORISATION_SIMULATION_URL, budgetId)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CategorisationSimulationDto.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(3, simulationDto.getProcessed());
+        assertEquals(1, simulationDto.getMatched());
+        assertEquals(1, simulationDto.getNewlyCategorised());
+        assertEquals(1, simulationDto.getRuleHits().get(0).getHits());
+        assertEquals(new DescriptionCountDto("WOOLWORTHS CARINGBAH", 2L, 0L), simulationDto.getTopUnmatched().get(0));
+
+        // a proposed rule is previewed without being saved or applied
+        simulationDto = webTestClient.post()
+            .uri(CATEGORISATION_SIMULATION_URL, budgetId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(CategoryRuleDto.builder().categoryId(categoryId).keyword("woolworths").build()))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CategorisationSimulationDto.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(2, simulationDto.getChanged());
+        assertEquals(List.of(new DescriptionCountDto("NRMA INSURANCE", 1L, 0L)), simulationDto.getTopUnmatched());
+        assertEquals(1, webTestClient.get()
+            .uri(CATEGORY_RULE_BASE_URL, budgetId)
+            .exchange()
+            .expectBodyList(CategoryRuleDto.class)
+            .returnResult()
+            .getResponseBody()
+            .size());
+    }
+
+    @Test
+    public void singleActiveCategorisationJobPerBudget() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        // a job queued by another instance
+        String activeJobId = UUID.randomUUID().toString();
+        assertEquals(1, categorisationJobRepository.insertJob(activeJobId, budgetId, false, LocalDateTime.now())
+            .block());
+        assertEquals(0, categorisationJobRepository.insertJob(UUID.randomUUID().toString(), budgetId, true,
+            LocalDateTime.now()).block());
+
+        CategorisationJobDto jobDto = webTestClient.put()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.TRANSACTION_CATEGORIES_URL)
+                .queryParam("full", true)
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isAccepted()
+            .expectBody(CategorisationJobDto.class)
+            .returnResult()
+            .getResponseBody();
+        assertEquals(activeJobId, jobDto.getJobId());
+        assertEquals(CategorisationJobStatus.QUEUED, jobDto.getStatus());
+
+        categorisationJobRepository.finishJob(activeJobId, CategorisationJobStatus.COMPLETED.name(), 0L, 0L, 0L, 0L,
+            null, LocalDateTime.now()).block();
+        CategorisationJobDto nextJobDto = TestUtil.categorise(webTestClient, budgetId, true);
+        assertNotEquals(activeJobId, nextJobDto.getJobId());
+        assertEquals(CategorisationJobStatus.COMPLETED, nextJobDto.getStatus());
+    }
+
+    @Test
+    public void abandonedCategorisationJobIsFailed() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        // a job left queued by a stopped instance, and one another instance still reports alive
+        String abandonedJobId = UUID.randomUUID().toString();
+        categorisationJobRepository.insertJob(abandonedJobId, budgetId, false, LocalDateTime.now().minusHours(1))
+            .block();
+        long otherBudgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        String aliveJobId = UUID.randomUUID().toString();
+        categorisationJobRepository.insertJob(aliveJobId, otherBudgetId, false, LocalDateTime.now()).block();
+
+        categorisationJobService.sweepJobs().block();
+
+        CategorisationJobDto abandonedJobDto = TestUtil.getCategorisationJob(webTestClient, budgetId, abandonedJobId);
+        assertEquals(CategorisationJobStatus.FAILED, abandonedJobDto.getStatus());
+        assertNotNull(abandonedJobDto.getError());
+        assertNotNull(abandonedJobDto.getFinishedAt());
+        assertEquals(CategorisationJobStatus.QUEUED,
+            TestUtil.getCategorisationJob(webTestClient, otherBudgetId, aliveJobId).getStatus());
+        assertEquals(CategorisationJobStatus.COMPLETED, TestUtil.categorise(webTestClient, budgetId, false).getStatus());
+        categorisationJobRepository.finishJob(aliveJobId, CategorisationJobStatus.CANCELLED.name(), 0L, 0L, 0L, 0L,
+            null, LocalDateTime.now()).block();
+    }
+
+    @Test
+    public void unknownCategorisationJob() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        webTestClient.get()
+            .uri(CATEGORISATION_JOB_URL, budgetId, "unknown")
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+        webTestClient.delete()
+            .uri(CATEGORISATION_JOB_URL, budgetId, "unknown")
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
+    private void categorise(long budgetId, boolean full) {
+        assertEquals(CategorisationJobStatus.COMPLETED, TestUtil.categorise(webTestClient, budgetId, full).getStatus());
+    }
+}
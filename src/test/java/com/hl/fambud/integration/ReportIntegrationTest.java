@@ -0,0 +1,434 @@
+package com.hl.fambud.integration;
+
+import com.hl.fambud.dto.BudgetDto;
+import com.hl.fambud.dto.CategoryDto;
+import com.hl.fambud.dto.TransactionDto;
+import com.hl.fambud.dto.TransactorDto;
+import com.hl.fambud.dto.reporting.AmountDistributionDto;
+import com.hl.fambud.dto.reporting.AmountHistogramBinDto;
+import com.hl.fambud.dto.reporting.AnomalyDto;
+import com.hl.fambud.dto.reporting.BudgetCategoryAmountDto;
+import com.hl.fambud.dto.reporting.BudgetSubtotalDto;
+import com.hl.fambud.dto.reporting.CashFlowDayDto;
+import com.hl.fambud.dto.reporting.CashFlowDto;
+import com.hl.fambud.dto.reporting.CategoryAmountDistributionDto;
+import com.hl.fambud.dto.reporting.CategoryForecastDto;
+import com.hl.fambud.dto.reporting.ConsolidatedCategoryDto;
+import com.hl.fambud.dto.reporting.ConsolidatedSummaryDto;
+import com.hl.fambud.dto.reporting.CrossTabReportDto;
+import com.hl.fambud.dto.reporting.MerchantSpendDto;
+import com.hl.fambud.dto.reporting.MonthForecastDto;
+import com.hl.fambud.dto.reporting.ReportLabelDto;
+import com.hl.fambud.dto.reporting.TopMerchantsDto;
+import com.hl.fambud.model.CategoryStats;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.repository.CategoryStatsRepository;
+import com.hl.fambud.service.CategoryStatsTable;
+import com.hl.fambud.util.AmountSketch;
+import com.hl.fambud.util.TestDataGenerator;
+import com.hl.fambud.util.TestUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+public class ReportIntegrationTest extends BaseIntegrationTest {
+
+    private final static LocalDate MAY = LocalDate.of(2024, 5, 1);
+
+    @Autowired
+    private CategoryStatsTable categoryStatsTable;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Test
+    public void transactorCategoryCrossTab() {
+        BudgetDto budgetDto = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        long budgetId = budgetDto.getBudgetId();
+        long groceriesId = categoryId(budgetDto, "Groceries");
+        long utilitiesId = categoryId(budgetDto, "Utilities");
+        long johnId = transactorId(budgetDto, "John");
+        long janeId = transactorId(budgetDto, "Jane");
+        postTransaction(budgetId, johnId, groceriesId, "100.00", TransactionType.EXPENSE);
+        postTransaction(budgetId, johnId, groceriesId, "20.50", TransactionType.EXPENSE);
+        postTransaction(budgetId, janeId, utilitiesId, "80.00", TransactionType.EXPENSE);
+        postTransaction(budgetId, janeId, null, "5.00", TransactionType.EXPENSE);
+        postTransaction(budgetId, janeId, groceriesId, "1000.00", TransactionType.INCOME);
+
+        CrossTabReportDto report = webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.TRANSACTOR_CATEGORY_REPORT_URL)
+                .queryParam("startDate", "01-05-2024")
+                .queryParam("endDate", "31-05-2024")
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CrossTabReportDto.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(List.of("Jane Smith", "John Doe"), report.getRows().stream().map(ReportLabelDto::getName).toList());
+        assertEquals(List.of("Groceries", "Utilities", "Uncategorised"),
+            report.getColumns().stream().map(ReportLabelDto::getName).toList());
+        assertNull(report.getColumns().get(2).getId());
+        assertAmounts(List.of("0.00", "80.00", "5.00"), report.getAmounts().get(0));
+        assertAmounts(List.of("120.50", "0.00", "0.00"), report.getAmounts().get(1));
+        assertEquals(List.of(0L, 1L, 1L), report.getCounts().get(0));
+        assertEquals(List.of(2L, 0L, 0L), report.getCounts().get(1));
+        assertAmounts(List.of("85.00", "120.50"), report.getRowAmounts());
+        assertAmounts(List.of("120.50", "80.00", "5.00"), report.getColumnAmounts());
+        assertEquals(0, new BigDecimal("205.50").compareTo(report.getTotalAmount()));
+        assertEquals(4L, report.getTotalCount());
+    }
+
+    @Test
+    public void topMerchants() {
+        BudgetDto budgetDto = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        long budgetId = budgetDto.getBudgetId();
+        long johnId = transactorId(budgetDto, "John");
+        postTransaction(budgetId, johnId, null, "30.00", TransactionType.EXPENSE, "WOOLWORTHS 1767 CARINGBAH");
+        postTransaction(budgetId, johnId, null, "25.00", TransactionType.EXPENSE, "WOOLWORTHS 2040 CARINGBAH");
+        postTransaction(budgetId, johnId, null, "10.00", TransactionType.EXPENSE, "Woolworths caringbah");
+        postTransaction(budgetId, johnId, null, "200.00", TransactionType.EXPENSE, "QANTAS AIRWAYS");
+        postTransaction(budgetId, johnId, null, "4.50", TransactionType.EXPENSE, "CAFE 12");
+        postTransaction(budgetId, johnId, null, "5000.00", TransactionType.INCOME, "SALARY");
+
+        for (boolean exact : List.of(true, false)) {
+            TopMerchantsDto report = getTopMerchants(budgetId, 2, exact);
+            assertEquals(exact, report.isExact());
+            assertEquals(5L, report.getTransactionCount());
+            assertEquals(0, new BigDecimal("269.50").compareTo(report.getTotalAmount()));
+            assertEquals(List.of("QANTAS AIRWAYS", "WOOLWORTHS CARINGBAH"),
+                report.getBySpend().stream().map(MerchantSpendDto::getMerchant).toList());
+            assertAmounts(List.of("200.00", "65.00"),
+                report.getBySpend().stream().map(MerchantSpendDto::getAmount).toList());
+            assertAmounts(List.of("0.00", "0.00"),
+                report.getBySpend().stream().map(MerchantSpendDto::getMaxOverAmount).toList());
+            assertEquals("WOOLWORTHS CARINGBAH", report.getByFrequency().get(0).getDescription());
+            assertEquals(3L, report.getByFrequency().get(0).getCount());
+            assertEquals(0L, report.getByFrequency().get(0).getMaxOverCount());
+        }
+    }
+
+    private TopMerchantsDto getTopMerchants(long budgetId, int limit, boolean exact) {
+        return webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.TOP_MERCHANTS_REPORT_URL)
+                .queryParam("startDate", "01-05-2024")
+                .queryParam("endDate", "31-05-2024")
+                .queryParam("limit", limit)
+                .queryParam("exact", exact)
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(TopMerchantsDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    @Test
+    public void amountDistribution() {
+        BudgetDto budgetDto = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        long budgetId = budgetDto.getBudgetId();
+        long groceriesId = categoryId(budgetDto, "Groceries");
+        long utilitiesId = categoryId(budgetDto, "Utilities");
+        long johnId = transactorId(budgetDto, "John");
+        TransactionDto largest = null;
+        for (int amount = 15; amount <= 105; amount += 10)
+            largest = postTransaction(budgetId, johnId, groceriesId, amount + ".00", TransactionType.EXPENSE);
+        postTransaction(budgetId, johnId, utilitiesId, "80.00", TransactionType.EXPENSE);
+        postTransaction(budgetId, johnId, groceriesId, "1000.00", TransactionType.INCOME);
+        largest.setAmount(new BigDecimal("1500.00"));
+        TestUtil.putTransaction(webTestClient, budgetId, largest);
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+
+        AmountDistributionDto distribution = getAmountDistribution(budgetId);
+        assertEquals(List.of("Groceries", "Utilities"),
+            distribution.getCategories().stream().map(CategoryAmountDistributionDto::getName).toList());
+        CategoryAmountDistributionDto groceries = distribution.getCategories().get(0);
+        assertEquals(10L, groceries.getTransactionCount());
+        assertWithinAccuracy("55.00", groceries.getP50());
+        assertWithinAccuracy("95.00", groceries.getP90());
+        assertWithinAccuracy("95.00", groceries.getP99());
+        assertEquals(List.of(0L, 1L, 3L, 5L, 0L, 0L, 0L, 1L),
+            groceries.getHistogram().stream().map(AmountHistogramBinDto::getCount).toList());
+        assertWithinAccuracy("80.00", distribution.getCategories().get(1).getP50());
+
+        assertTrue(TestUtil.rebuildDailyTotals(webTestClient, budgetId).isConsistent());
+        assertEquals(distribution, getAmountDistribution(budgetId));
+    }
+
+    @Test
+    public void consolidatedSummary() {
+        BudgetDto personal = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        BudgetDto joint = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        postTransaction(personal.getBudgetId(), transactorId(personal, "John"), categoryId(personal, "Groceries"),
+            "100.00", TransactionType.EXPENSE);
+        postTransaction(personal.getBudgetId(), transactorId(personal, "John"), categoryId(personal, "Utilities"),
+            "80.00", TransactionType.EXPENSE);
+        postTransaction(joint.getBudgetId(), transactorId(joint, "Jane"), categoryId(joint, "Groceries"),
+            "20.50", TransactionType.EXPENSE);
+        postTransaction(joint.getBudgetId(), transactorId(joint, "Jane"), categoryId(joint, "Groceries"),
+            "1000.00", TransactionType.INCOME);
+
+        ConsolidatedSummaryDto summary = webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.CONSOLIDATED_SUMMARY_URL)
+                .queryParam("budgetIds", personal.getBudgetId(), joint.getBudgetId())
+                .queryParam("startDate", "01-05-2024")
+                .queryParam("endDate", "31-05-2024")
+                .build())
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(ConsolidatedSummaryDto.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(List.of("Groceries", "Utilities"),
+            summary.getExpenseCategories().stream().map(ConsolidatedCategoryDto::getCategoryName).toList());
+        ConsolidatedCategoryDto groceries = summary.getExpenseCategories().get(0);
+        assertAmounts(List.of("120.50"), List.of(groceries.getAmount()));
+        assertEquals(2L, groceries.getTransactionCount());
+        assertEquals(List.of(personal.getBudgetId(), joint.getBudgetId()),
+            groceries.getBudgets().stream().map(BudgetCategoryAmountDto::getBudgetId).toList());
+        assertAmounts(List.of("200.50", "1000.00", "799.50"),
+            List.of(summary.getTotalExpenses(), summary.getTotalIncome(), summary.getSurplus()));
+        assertAmounts(List.of("180.00", "20.50"),
+            summary.getBudgets().stream().map(BudgetSubtotalDto::getTotalExpenses).toList());
+
+        webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.CONSOLIDATED_SUMMARY_URL)
+                .queryParam("budgetIds", personal.getBudgetId(), Long.MAX_VALUE)
+                .queryParam("startDate", "01-05-2024")
+                .queryParam("endDate", "31-05-2024")
+                .build())
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
+    @Test
+    public void cashFlow() {
+        BudgetDto budgetDto = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        long budgetId = budgetDto.getBudgetId();
+        postDatedTransaction(budgetId, "2024-05-02", "1000.00", TransactionType.INCOME);
+        postDatedTransaction(budgetId, "2024-05-02", "100.00", TransactionType.EXPENSE);
+        postDatedTransaction(budgetId, "2024-05-05", "50.25", TransactionType.EXPENSE);
+        postDatedTransaction(budgetId, "2024-05-05", "500.00", TransactionType.MOVE);
+        postDatedTransaction(budgetId, "2024-05-10", "300.00", TransactionType.MOVE);
+        postDatedTransaction(budgetId, "2024-06-01", "10.00", TransactionType.EXPENSE);
+
+        CashFlowDto cashFlow = webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.CASH_FLOW_REPORT_URL)
+                .queryParam("startDate", "01-05-2024")
+                .queryParam("endDate", "31-05-2024")
+                .queryParam("openingBalance", "200.00")
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CashFlowDto.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(List.of(LocalDate.of(2024, 5, 2), LocalDate.of(2024, 5, 5)),
+            cashFlow.getDays().stream().map(CashFlowDayDto::getDate).toList());
+        assertAmounts(List.of("900.00", "-50.25"),
+            cashFlow.getDays().stream().map(CashFlowDayDto::getNetFlow).toList());
+        assertAmounts(List.of("1100.00", "1049.75"),
+            cashFlow.getDays().stream().map(CashFlowDayDto::getBalance).toList());
+        assertAmounts(List.of("200.00", "1049.75", "1000.00", "150.25", "849.75"),
+            List.of(cashFlow.getOpeningBalance(), cashFlow.getClosingBalance(), cashFlow.getTotalIncome(),
+                cashFlow.getTotalExpenses(), cashFlow.getNetFlow()));
+    }
+
+    @Test
+    public void anomalies() {
+        BudgetDto budgetDto = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        long budgetId = budgetDto.getBudgetId();
+        long groceriesId = categoryId(budgetDto, "Groceries");
+        long johnId = transactorId(budgetDto, "John");
+        for (int i = 0; i < 19; i++)
+            postTransaction(budgetId, johnId, groceriesId, (40 + i % 10) + ".00", TransactionType.EXPENSE);
+        TransactionDto outlier = postTransaction(budgetId, johnId, groceriesId, "400.00", TransactionType.EXPENSE);
+
+        List<AnomalyDto> anomalies = getAnomalies(budgetId);
+        assertEquals(1, anomalies.size());
+        assertEquals(outlier.getTransactionId(), anomalies.get(0).getTransactionId());
+        assertEquals("Groceries", anomalies.get(0).getCategoryName());
+        assertEquals(20L, anomalies.get(0).getCategoryTransactionCount());
+        assertTrue(anomalies.get(0).getZScore().compareTo(BigDecimal.valueOf(3)) > 0);
+
+        categoryStatsTable.flush().block();
+        CategoryStats groceries = categoryStatsRepository.findByBudgetId(budgetId)
+            .filter(stats -> stats.getCategoryId() == groceriesId)
+            .blockFirst();
+        assertEquals(20L, groceries.getTxCount());
+        assertEquals(6205.0, groceries.getMeanCents(), 1e-6);
+
+        // moving the outlier to another category leaves groceries without anomalies
+        outlier.setCategoryId(categoryId(budgetDto, "Utilities"));
+        TestUtil.putTransaction(webTestClient, budgetId, outlier);
+        assertEquals(List.of(), getAnomalies(budgetId));
+    }
+
+    private List<AnomalyDto> getAnomalies(long budgetId) {
+        return webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.ANOMALIES_REPORT_URL)
+                .queryParam("startDate", "01-05-2024")
+                .queryParam("endDate", "31-05-2024")
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBodyList(AnomalyDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    @Test
+    public void monthForecast() {
+        BudgetDto budgetDto = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto());
+        long budgetId = budgetDto.getBudgetId();
+        long groceriesId = categoryId(budgetDto, "Groceries");
+        long utilitiesId = categoryId(budgetDto, "Utilities");
+        // before the history window
+        postDatedExpense(budgetId, groceriesId, "2023-01-10", "999.00", "Market");
+        for (String month : List.of("2024-03", "2024-04")) {
+            postDatedExpense(budgetId, groceriesId, month + "-05", "100.00", "Market");
+            postDatedExpense(budgetId, groceriesId, month + "-25", "200.00", "Market");
+        }
+        postDatedExpense(budgetId, groceriesId, "2024-05-05", "100.00", "Market");
+        postDatedExpense(budgetId, groceriesId, "2024-05-20", "500.00", "Market");
+        // a weekly subscription started last month
+        for (String date : List.of("2024-04-24", "2024-05-01", "2024-05-08", "2024-05-15"))
+            postDatedExpense(budgetId, utilitiesId, date, "15.00", "Gym");
+
+        MonthForecastDto forecast = webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.FORECAST_REPORT_URL)
+                .queryParam("asOfDate", "15-05-2024")
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(MonthForecastDto.class)
+            .returnResult()
+            .getResponseBody();
+
+        assertEquals(LocalDate.of(2024, 5, 31), forecast.getEndDate());
+        assertEquals(LocalDate.of(2024, 3, 1), forecast.getHistoryStartDate());
+        assertEquals(2, forecast.getHistoryMonths());
+        assertAmounts(List.of("145.00", "215.00", "360.00"),
+            List.of(forecast.getMonthToDate(), forecast.getProjectedRemaining(), forecast.getProjectedTotal()));
+        assertEquals(List.of(groceriesId, utilitiesId),
+            forecast.getCategories().stream().map(CategoryForecastDto::getCategoryId).toList());
+        CategoryForecastDto groceries = forecast.getCategories().get(0);
+        assertEquals("Groceries", groceries.getCategoryName());
+        assertAmounts(List.of("100.00", "200.00", "0.00", "300.00"), List.of(groceries.getMonthToDate(),
+            groceries.getHistoricalRemaining(), groceries.getRecurringRemaining(), groceries.getProjectedTotal()));
+        // the subscription's history is too short, so the payment still due sets the projection
+        CategoryForecastDto utilities = forecast.getCategories().get(1);
+        assertAmounts(List.of("45.00", "7.50", "15.00", "15.00", "60.00"), List.of(utilities.getMonthToDate(),
+            utilities.getHistoricalRemaining(), utilities.getRecurringRemaining(), utilities.getProjectedRemaining(),
+            utilities.getProjectedTotal()));
+        assertEquals(1, forecast.getUpcomingRecurring().size());
+        assertEquals(utilitiesId, forecast.getUpcomingRecurring().get(0).getCategoryId());
+        assertEquals(LocalDate.of(2024, 5, 22), forecast.getUpcomingRecurring().get(0).getNextExpectedDate());
+    }
+
+    private void postDatedTransaction(long budgetId, String date, String amount, TransactionType type) {
+        TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, 0L);
+        transactionDto.setCategoryId(null);
+        transactionDto.setDate(LocalDate.parse(date));
+        transactionDto.setAmount(new BigDecimal(amount));
+        transactionDto.setType(type);
+        TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+    }
+
+    private void postDatedExpense(long budgetId, long categoryId, String date, String amount, String description) {
+        TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        transactionDto.setDate(LocalDate.parse(date));
+        transactionDto.setAmount(new BigDecimal(amount));
+        transactionDto.setDescription(description);
+        TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+    }
+
+    private AmountDistributionDto getAmountDistribution(long budgetId) {
+        return webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.AMOUNT_DISTRIBUTION_REPORT_URL)
+                .queryParam("startDate", "01-05-2024")
+                .queryParam("endDate", "31-05-2024")
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(AmountDistributionDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    private static void assertWithinAccuracy(String expected, BigDecimal actual) {
+        BigDecimal expectedAmount = new BigDecimal(expected);
+        assertTrue(expectedAmount.subtract(actual).abs().compareTo(expectedAmount.multiply(
+            BigDecimal.valueOf(AmountSketch.RELATIVE_ACCURACY))) <= 0, expected + " but was " + actual);
+    }
+
+    private TransactionDto postTransaction(long budgetId, long transactorId, Long categoryId, String amount,
+                                           TransactionType type) {
+        return postTransaction(budgetId, transactorId, categoryId, amount, type, null);
+    }
+
+    private TransactionDto postTransaction(long budgetId, long transactorId, Long categoryId, String amount,
+                                           TransactionType type, String description) {
+        TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, 0L);
+        if (description != null)
+            transactionDto.setDescription(description);
+        transactionDto.setTransactorId(transactorId);
+        transactionDto.setCategoryId(categoryId);
+        transactionDto.setAmount(new BigDecimal(amount));
+        transactionDto.setDate(MAY.plusDays(transactorId % 28));
+        transactionDto.setType(type);
+        return TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+    }
+
+    private static void assertAmounts(List<String> expected, List<BigDecimal> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertEquals(0, new BigDecimal(expected.get(i)).compareTo(actual.get(i)), "index " + i);
+    }
+
+    private static long categoryId(BudgetDto budgetDto, String name) {
+        return budgetDto.getCategories().stream()
+            .filter(categoryDto -> categoryDto.getName().equals(name))
+            .map(CategoryDto::getCategoryId)
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static long transactorId(BudgetDto budgetDto, String firstName) {
+        return budgetDto.getTransactors().stream()
+            .filter(transactorDto -> transactorDto.getFirstName().equals(firstName))
+            .map(TransactorDto::getTransactorId)
+            .findFirst()
+            .orElseThrow();
+    }
+}
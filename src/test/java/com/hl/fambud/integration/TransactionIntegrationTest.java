@@ -1,10 +1,19 @@
 package com.hl.fambud.integration;
 
+import com.hl.fambud.dto.BudgetDto;
+import com.hl.fambud.dto.CategoryDto;
+import com.hl.fambud.dto.CategoryRuleDto;
 import com.hl.fambud.dto.TransactionDto;
+import com.hl.fambud.dto.reporting.CategoryComparisonDto;
+import com.hl.fambud.dto.reporting.PeriodComparisonDto;
+import com.hl.fambud.dto.reporting.PeriodSummaryDto;
 import com.hl.fambud.model.TransactionType;
 import com.hl.fambud.repository.TransactionRepository;
+import com.hl.fambud.service.DailyRollupService;
+import com.hl.fambud.service.TransactionService;
 import com.hl.fambud.util.TestDataGenerator;
 import com.hl.fambud.util.TestUtil;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -14,15 +23,25 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 
 import static com.hl.fambud.util.TestDataGenerator.TRANSACTION_CATEGORIES_URL;
+import static com.hl.fambud.util.TestDataGenerator.TRANSACTION_CATEGORY_SUGGESTIONS_URL;
 import static com.hl.fambud.util.TestDataGenerator.TRANSACTION_ID_URL;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @AutoConfigureWebTestClient
@@ -32,6 +51,15 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private DailyRollupService dailyRollupService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
     @Test
     public void crud() {
         // create
@@ -41,6 +69,7 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
         TransactionDto createdTransactionDto =
             TestUtil.postTransaction(webTestClient, budgetId, TestDataGenerator.getTransactionDto(budgetId, categoryId));
         assertTransaction(createdTransactionDto);
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
         // read
         TransactionDto retrievedTransactionDto =
             TestUtil.getTransaction(webTestClient, budgetId, createdTransactionDto.getTransactionId());
@@ -52,8 +81,10 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
             TestUtil.putTransaction(webTestClient, budgetId, retrievedTransactionDto);
         assertEquals("Updated Description", updatedTransactionDto.getDescription());
         assertEquals(0, updatedTransactionDto.getAmount().compareTo(BigDecimal.valueOf(100.00)));
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
         // delete
         TestUtil.deleteTransaction(webTestClient, budgetId, retrievedTransactionDto);
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
         webTestClient.get()
             .uri(TRANSACTION_ID_URL,
                 budgetId, retrievedTransactionDto.getTransactionId())
@@ -62,6 +93,118 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
             .isNotFound();
     }
 
+    @Test
+    public void concurrentDeletesRemoveTheDailyTotalsOnce() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        TestUtil.postTransaction(webTestClient, budgetId, TestDataGenerator.getTransactionDto(budgetId, categoryId));
+        TransactionDto transactionDto =
+            TestUtil.postTransaction(webTestClient, budgetId, TestDataGenerator.getTransactionDto(budgetId, categoryId));
+
+        Mono<Boolean> delete = transactionService.deleteTransaction(transactionDto.getTransactionId())
+            .thenReturn(true)
+            .onErrorResume(EntityNotFoundException.class, exception -> Mono.just(false));
+        List<Boolean> deleted = Flux.merge(delete.subscribeOn(Schedulers.parallel()),
+                delete.subscribeOn(Schedulers.parallel()))
+            .collectList()
+            .block();
+
+        assertEquals(1, deleted.stream().filter(Boolean::booleanValue).count());
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+    }
+
+    @Test
+    public void amountBucketsAreBackfilled() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        TestUtil.postTransaction(webTestClient, budgetId, TestDataGenerator.getTransactionDto(budgetId, categoryId));
+        // a budget whose transactions were written before amount buckets were kept
+        databaseClient.sql("DELETE FROM daily_category_amount_buckets WHERE budget_id = :budgetId")
+            .bind("budgetId", budgetId)
+            .then()
+            .block();
+        databaseClient.sql("INSERT INTO daily_category_amount_bucket_backfills (budget_id) VALUES (:budgetId)")
+            .bind("budgetId", budgetId)
+            .then()
+            .block();
+        assertFalse(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+
+        dailyRollupService.backfillAmountBuckets().block();
+
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+        assertEquals(0, databaseClient.sql("SELECT COUNT(*) FROM daily_category_amount_bucket_backfills")
+            .map(row -> row.get(0, Long.class))
+            .one()
+            .block());
+    }
+
+    @Test
+    public void periodSummaryFollowsTransactionDate() {
+        long budgetId = TestUtil.postBudget(webTestClient, BudgetDto.builder().name("Budget").build()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        transactionDto.setDate(LocalDate.of(2024, 3, 10));
+        TransactionDto createdTransactionDto = TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(
+            TestUtil.getPeriodSummary(webTestClient, budgetId, "01-03-2024", "31-03-2024").getTotalExpenses()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(
+            TestUtil.getPeriodSummary(webTestClient, budgetId, "01-04-2024", "30-04-2024").getTotalExpenses()));
+
+        // moving the transaction evicts the cached summaries of both months
+        createdTransactionDto.setDate(LocalDate.of(2024, 4, 10));
+        TestUtil.putTransaction(webTestClient, budgetId, createdTransactionDto);
+        assertEquals(0, BigDecimal.ZERO.compareTo(
+            TestUtil.getPeriodSummary(webTestClient, budgetId, "01-03-2024", "31-03-2024").getTotalExpenses()));
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(
+            TestUtil.getPeriodSummary(webTestClient, budgetId, "01-04-2024", "30-04-2024").getTotalExpenses()));
+    }
+
+    @Test
+    public void periodSummaryComparison() {
+        long budgetId = TestUtil.postBudget(webTestClient, BudgetDto.builder().name("Budget").build()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        for (String[] dateAndAmount : new String[][]{
+            {"2024-03-10", "50"}, {"2024-02-29", "25"}, {"2024-01-31", "1000"}, {"2023-03-31", "100"}}) {
+            TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+            transactionDto.setDate(LocalDate.parse(dateAndAmount[0]));
+            transactionDto.setAmount(new BigDecimal(dateAndAmount[1]));
+            TestUtil.postTransaction(webTestClient, budgetId, transactionDto);
+        }
+
+        PeriodSummaryDto summary = TestUtil.getPeriodSummary(webTestClient, budgetId, "01-03-2024", "31-03-2024", true);
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(summary.getTotalExpenses()));
+        PeriodComparisonDto comparison = summary.getComparison();
+        assertEquals(LocalDate.of(2024, 2, 1), comparison.getPreviousPeriod().getStartDate());
+        assertEquals(LocalDate.of(2024, 2, 29), comparison.getPreviousPeriod().getEndDate());
+        assertEquals(0, BigDecimal.valueOf(25).compareTo(comparison.getPreviousPeriod().getTotalExpenses()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(comparison.getLastYear().getTotalExpenses()));
+        assertEquals(1, comparison.getCategories().size());
+        CategoryComparisonDto category = comparison.getCategories().get(0);
+        assertEquals(categoryId, category.getCategoryId());
+        assertEquals(0, BigDecimal.valueOf(25).compareTo(category.getPreviousPeriodChange()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(category.getPreviousPeriodChangePercent()));
+        assertEquals(0, BigDecimal.valueOf(-50).compareTo(category.getLastYearChange()));
+        assertEquals(0, BigDecimal.valueOf(-50).compareTo(category.getLastYearChangePercent()));
+        assertNull(TestUtil.getPeriodSummary(webTestClient, budgetId, "01-03-2024", "31-03-2024").getComparison());
+
+        // periods longer than a year overlap the same period last year
+        summary = TestUtil.getPeriodSummary(webTestClient, budgetId, "01-01-2023", "31-03-2024", true);
+        assertEquals(0, BigDecimal.valueOf(1175).compareTo(summary.getTotalExpenses()));
+        assertEquals(LocalDate.of(2021, 10, 1), summary.getComparison().getPreviousPeriod().getStartDate());
+        assertEquals(0, BigDecimal.ZERO.compareTo(summary.getComparison().getPreviousPeriod().getTotalExpenses()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(summary.getComparison().getLastYear().getTotalExpenses()));
+        assertNull(summary.getComparison().getCategories().get(0).getPreviousPeriodChangePercent());
+
+        // periods that are not whole months are compared with the same number of days before them
+        summary = TestUtil.getPeriodSummary(webTestClient, budgetId, "11-03-2024", "20-03-2024", true);
+        assertEquals(LocalDate.of(2024, 3, 1), summary.getComparison().getPreviousPeriod().getStartDate());
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(summary.getComparison().getPreviousPeriod().getTotalExpenses()));
+    }
+
     private void assertTransaction(TransactionDto transactionDto) {
         assertNotNull(transactionDto.getTransactionId());
         assertNotNull(transactionDto.getBudgetId());
@@ -105,6 +248,97 @@ public class TransactionIntegrationTest extends BaseIntegrationTest {
             .verifyComplete();
     }
 
+    @Test
+    public void importTransactionsCsvWithCategories() {
+        long budgetId = TestUtil.postBudget(webTestClient, BudgetDto.builder().name("Budget").build()).getBudgetId();
+        CategoryDto groceriesDto = TestDataGenerator.getCategoryDto(budgetId);
+        groceriesDto.setName("Groceries");
+        long groceriesId = TestUtil.postCategory(webTestClient, budgetId, groceriesDto).getCategoryId();
+        TestUtil.postCategoryRule(webTestClient, budgetId,
+            CategoryRuleDto.builder().categoryId(groceriesId).keyword("woolworths").build());
+
+        TestUtil.importTransactions(webTestClient, budgetId, "standard-format-transactions-10.csv", true);
+
+        StepVerifier.create(transactionRepository.findByBudgetId(budgetId).collectList())
+            .assertNext(transactions -> {
+                assertEquals(9, transactions.size());
+                transactions.forEach(transaction -> assertEquals(
+                    transaction.getDescription().contains("WOOLWORTHS") ? groceriesId : null,
+                    transaction.getCategoryId()));
+            })
+            .verifyComplete();
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+    }
+
+    @Test
+    public void importTransactionsCsvSkipsNearDuplicates() {
+        long budgetId = TestUtil.postBudget(webTestClient, BudgetDto.builder().name("Budget").build()).getBudgetId();
+        TestUtil.importTransactions(webTestClient, budgetId, "standard-format-transactions-10.csv", false);
+        long importedCount = transactionRepository.findByBudgetId(budgetId).count().block();
+
+        TestUtil.importTransactions(webTestClient, budgetId, "reworded-format-transactions-4.csv", false, true);
+
+        StepVerifier.create(transactionRepository.findByBudgetId(budgetId).collectList())
+            .assertNext(transactions -> {
+                assertEquals(importedCount + 1, transactions.size());
+                assertTrue(transactions.stream()
+                    .anyMatch(transaction -> transaction.getDescription().contains("ALDI STORES")));
+            })
+            .verifyComplete();
+    }
+
+    @Test
+    public void createWithSubCentAmount() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        TransactionDto transactionDto = TestDataGenerator.getTransactionDto(budgetId, categoryId);
+        transactionDto.setAmount(new BigDecimal("12.345"));
+        webTestClient
+            .post()
+            .uri(TestDataGenerator.TRANSACTION_BASE_URL, budgetId)
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(transactionDto)
+            .exchange()
+            .expectStatus()
+            .isBadRequest();
+    }
+
+    @Test
+    public void importTransactionsCsvRoundsSubCentAmounts() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long existingCount = transactionRepository.findByBudgetId(budgetId).count().block();
+        TestUtil.importTransactions(webTestClient, budgetId, "sub-cent-transactions-2.csv", false);
+        StepVerifier.create(transactionRepository.findByBudgetId(budgetId).collectList())
+            .assertNext(transactions -> {
+                assertEquals(existingCount + 2, transactions.size());
+                assertTrue(transactions.stream()
+                    .anyMatch(transaction -> transaction.getAmount().compareTo(new BigDecimal("45.13")) == 0));
+            })
+            .verifyComplete();
+        assertTrue(TestUtil.verifyDailyTotals(webTestClient, budgetId).isConsistent());
+    }
+
+    @Test
+    public void suggestCategoriesForTransactionOfAnotherBudget() {
+        long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long otherBudgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
+        long categoryId = TestUtil.postCategory(
+            webTestClient, budgetId, TestDataGenerator.getCategoryDto(budgetId)).getCategoryId();
+        long transactionId = TestUtil.postTransaction(
+            webTestClient, budgetId, TestDataGenerator.getTransactionDto(budgetId, categoryId)).getTransactionId();
+        webTestClient.get()
+            .uri(TRANSACTION_CATEGORY_SUGGESTIONS_URL, budgetId, transactionId)
+            .exchange()
+            .expectStatus()
+            .isOk();
+        webTestClient.get()
+            .uri(TRANSACTION_CATEGORY_SUGGESTIONS_URL, otherBudgetId, transactionId)
+            .exchange()
+            .expectStatus()
+            .isNotFound();
+    }
+
     @Test
     public void updateWithInvalidBudgetId() {
         long budgetId = TestUtil.postBudget(webTestClient, TestDataGenerator.getBudgetDto()).getBudgetId();
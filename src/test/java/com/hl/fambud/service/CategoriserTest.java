@@ -7,8 +7,8 @@ import com.hl.fambud.dto.CategoryDto;
 import com.hl.fambud.mapper.BudgetMapper;
 import com.hl.fambud.mapper.BudgetMapperImpl;
 import com.hl.fambud.model.Category;
+import com.hl.fambud.model.CategoryRule;
 import com.hl.fambud.model.Transaction;
-import com.hl.fambud.repository.CategoryRepository;
 import com.hl.fambud.repository.TransactionRepository;
 import com.hl.fambud.util.TestDataGenerator;
 import lombok.extern.slf4j.Slf4j;
@@ -19,8 +19,27 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 @Slf4j
@@ -32,7 +51,19 @@ public class CategoriserTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryDictionaryCache categoryDictionaryCache;
+
+    @Mock
+    private CategoryRuleService categoryRuleService;
+
+    @Mock
+    private TransactionalOperator transactionalOperator;
+
+    @Mock
+    private CategorySuggestionIndex categorySuggestionIndex;
+
+    @Mock
+    private DailyRollupService dailyRollupService;
 
     @InjectMocks
     private TransactionCategoriser categoriser;
@@ -51,10 +82,70 @@ public class CategoriserTest {
         List<CategoryDto> categoryDtoList = TestDataGenerator.getCategoryDtosFromJsonFile();
         BudgetMapper budgetMapper = new BudgetMapperImpl();
         List<Category> categoryList = budgetMapper.categoryDtoListToCategoryList(categoryDtoList);
-        System.out.println("categories: " + categoryList);
+        Map<String, Long> categoryIds = categoryList.stream()
+            .collect(Collectors.toMap(Category::getName, Category::getCategoryId));
         ClassPathResource transactionFileResource = new ClassPathResource("json/saved-transactions.json");
         List<Transaction> transactionList = objectMapper.readValue(transactionFileResource.getFile(),
             new TypeReference<List<Transaction>>() {});
-        categoriser.categorise(BUDGET_ID).subscribe();
+        List<CategoryRule> rules = List.of(
+            CategoryRule.builder().ruleId(1L).budgetId(BUDGET_ID).keyword("woolworths")
+                .categoryId(categoryIds.get("Groceries")).build(),
+            CategoryRule.builder().ruleId(2L).budgetId(BUDGET_ID).keyword("TRANSPORTFORNSW")
+                .categoryId(categoryIds.get("Public Transport")).build());
+        when(categoryRuleService.getRuleSet(BUDGET_ID))
+            .thenReturn(Mono.just(new CategoryRuleSet(BUDGET_ID, 1L, rules)));
+        when(transactionRepository.findUncategorisedNotChecked(BUDGET_ID, 1L))
+            .thenReturn(Flux.fromIterable(transactionList));
+        Set<Long> checkedIds = new HashSet<>();
+        when(transactionRepository.updateRuleSetVersion(eq(1L), any())).thenAnswer(invocation -> {
+            Collection<Long> transactionIds = invocation.getArgument(1);
+            checkedIds.addAll(transactionIds);
+            return Mono.just(transactionIds.size());
+        });
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(dailyRollupService.apply(any())).thenReturn(Mono.empty());
+        when(transactionRepository.findByIdsForUpdate(any())).thenAnswer(invocation -> {
+            Collection<Long> transactionIds = invocation.getArgument(0);
+            return Flux.fromIterable(transactionList)
+                .filter(transaction -> transactionIds.contains(transaction.getTransactionId()));
+        });
+        Map<Long, Set<Long>> updatedIdsByCategoryId = new HashMap<>();
+        when(transactionRepository.updateCategoryId(any(), any())).thenAnswer(invocation -> {
+            Collection<Long> transactionIds = invocation.getArgument(1);
+            assertTrue(transactionIds.size() <= TransactionCategoriser.WRITE_CHUNK_SIZE);
+            updatedIdsByCategoryId.computeIfAbsent(invocation.getArgument(0), key -> new HashSet<>())
+                .addAll(transactionIds);
+            return Mono.just(transactionIds.size());
+        });
+
+        StepVerifier.create(categoriser.categorise(BUDGET_ID)).verifyComplete();
+
+        Map<Long, Set<Long>> expectedIdsByCategoryId = new HashMap<>();
+        Set<Long> expectedCheckedIds = new HashSet<>();
+        Set<String> expectedChunkCategories = new HashSet<>();
+        for (int i = 0; i < transactionList.size(); i++) {
+            Transaction transaction = transactionList.get(i);
+            String description = transaction.getDescription().toLowerCase();
+            Long expectedCategoryId = description.contains("woolworths") ? categoryIds.get("Groceries")
+                : description.contains("transportfornsw") ? categoryIds.get("Public Transport") : null;
+            if (expectedCategoryId != null) {
+                expectedIdsByCategoryId.computeIfAbsent(expectedCategoryId, key -> new HashSet<>())
+                    .add(transaction.getTransactionId());
+                expectedChunkCategories.add(i / TransactionCategoriser.WRITE_CHUNK_SIZE + "|" + expectedCategoryId);
+            } else if (transaction.getCategoryId() == null)
+                expectedCheckedIds.add(transaction.getTransactionId());
+        }
+        assertEquals(2, expectedIdsByCategoryId.size());
+        assertEquals(expectedIdsByCategoryId, updatedIdsByCategoryId);
+        // one statement per category in each chunk, and one database transaction per chunk
+        verify(transactionRepository, times(expectedChunkCategories.size())).updateCategoryId(any(), any());
+        int chunks = (transactionList.size() + TransactionCategoriser.WRITE_CHUNK_SIZE - 1)
+            / TransactionCategoriser.WRITE_CHUNK_SIZE;
+        assertTrue(chunks > 1);
+        verify(transactionalOperator, times(chunks)).transactional(any(Mono.class));
+        verify(dailyRollupService, times(chunks)).apply(any());
+        // transactions no rule matches are not read again until the rules change
+        assertFalse(expectedCheckedIds.isEmpty());
+        assertEquals(expectedCheckedIds, checkedIds);
     }
 }
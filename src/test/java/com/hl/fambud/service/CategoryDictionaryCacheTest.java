@@ -0,0 +1,86 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.model.Category;
+import com.hl.fambud.repository.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CategoryDictionaryCacheTest {
+
+    private final static Long BUDGET_ID = 5L;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private CategoryDictionaryCache categoryDictionaryCache;
+
+    @BeforeEach
+    void init() {
+        categoryDictionaryCache = new CategoryDictionaryCache(categoryRepository, 2, Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void loadsOnceAndLooksUpBothWays() {
+        when(categoryRepository.findByBudgetId(BUDGET_ID)).thenReturn(Flux.just(
+            category(1L, BUDGET_ID, "Groceries"), category(2L, BUDGET_ID, "Dining")));
+
+        CategoryDictionary dictionary = categoryDictionaryCache.getDictionary(BUDGET_ID).block();
+        assertEquals(Optional.of("Groceries"), dictionary.getName(1L));
+        assertEquals(Optional.of(2L), dictionary.getId(" dining "));
+        assertEquals(Optional.empty(), dictionary.getId("Taxi"));
+
+        categoryDictionaryCache.getDictionary(BUDGET_ID, List.of(1L, 2L)).block();
+        verify(categoryRepository, times(1)).findByBudgetId(BUDGET_ID);
+    }
+
+    @Test
+    public void reloadsForMissingCategoryAndAfterInvalidation() {
+        when(categoryRepository.findByBudgetId(BUDGET_ID))
+            .thenReturn(Flux.just(category(1L, BUDGET_ID, "Groceries")))
+            .thenReturn(Flux.just(category(1L, BUDGET_ID, "Groceries"), category(3L, BUDGET_ID, "Taxi")))
+            .thenReturn(Flux.just(category(3L, BUDGET_ID, "Taxi")));
+
+        categoryDictionaryCache.getDictionary(BUDGET_ID).block();
+        CategoryDictionary dictionary = categoryDictionaryCache.getDictionary(BUDGET_ID, List.of(3L)).block();
+        assertEquals(Optional.of("Taxi"), dictionary.getName(3L));
+
+        categoryDictionaryCache.invalidate(BUDGET_ID);
+        assertEquals(1, categoryDictionaryCache.getDictionary(BUDGET_ID).block().size());
+        verify(categoryRepository, times(3)).findByBudgetId(BUDGET_ID);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedBudget() {
+        for (long budgetId = 1; budgetId <= 3; budgetId++)
+            when(categoryRepository.findByBudgetId(budgetId))
+                .thenReturn(Flux.just(category(budgetId * 10, budgetId, "Groceries")));
+
+        categoryDictionaryCache.getDictionary(1L).block();
+        categoryDictionaryCache.getDictionary(2L).block();
+        categoryDictionaryCache.getDictionary(1L).block();
+        categoryDictionaryCache.getDictionary(3L).block();
+        categoryDictionaryCache.getDictionary(1L).block();
+        categoryDictionaryCache.getDictionary(2L).block();
+
+        verify(categoryRepository, times(1)).findByBudgetId(1L);
+        verify(categoryRepository, times(2)).findByBudgetId(2L);
+    }
+
+    private static Category category(Long categoryId, Long budgetId, String name) {
+        return Category.builder().categoryId(categoryId).budgetId(budgetId).name(name).build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.CategorySuggestionDto;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.repository.TransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CategorySuggestionIndexTest {
+
+    private final static Long BUDGET_ID = 7L;
+    private final static Long GROCERIES = 1L;
+    private final static Long CAR = 2L;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @InjectMocks
+    private CategorySuggestionIndex categorySuggestionIndex;
+
+    @Test
+    public void tokenise() {
+        assertEquals(Set.of("debit", "card", "purchase", "woolworths", "caringbah", "aus"),
+            CategorySuggestionIndex.tokenise("DEBIT CARD PURCHASE WOOLWORTHS      1767 CARINGBAH    AUS"));
+        assertEquals(Set.of("netflix", "com"), CategorySuggestionIndex.tokenise("Netflix.com 4521XX"));
+        assertTrue(CategorySuggestionIndex.tokenise(null).isEmpty());
+    }
+
+    @Test
+    public void suggestFromCategorisedTransactions() {
+        when(transactionRepository.findByBudgetIdAndCategoryIdIsNotNull(BUDGET_ID)).thenReturn(Flux.just(
+            transaction(1L, "WOOLWORTHS CARINGBAH", GROCERIES),
+            transaction(2L, "WOOLWORTHS MIRANDA", GROCERIES),
+            transaction(3L, "CALTEX CARINGBAH", CAR)));
+
+        List<CategorySuggestionDto> suggestions =
+            categorySuggestionIndex.suggest(BUDGET_ID, "Woolworths Sutherland", 5).block();
+        assertEquals(List.of(new CategorySuggestionDto(GROCERIES, 1.0)), suggestions);
+
+        suggestions = categorySuggestionIndex.suggest(BUDGET_ID, "CALTEX CARINGBAH", 5).block();
+        assertEquals(2, suggestions.size());
+        assertEquals(CAR, suggestions.get(0).getCategoryId());
+        assertEquals(1.0, suggestions.stream().mapToDouble(CategorySuggestionDto::getScore).sum(), 1e-9);
+
+        assertTrue(categorySuggestionIndex.suggest(BUDGET_ID, "unknown merchant", 5).block().isEmpty());
+        // the index is built once and then served from memory
+        verify(transactionRepository, times(1)).findByBudgetIdAndCategoryIdIsNotNull(BUDGET_ID);
+    }
+
+    @Test
+    public void loadedIndexFollowsChanges() {
+        when(transactionRepository.findByBudgetIdAndCategoryIdIsNotNull(BUDGET_ID))
+            .thenReturn(Flux.just(transaction(1L, "AMPOL KIRRAWEE", CAR)));
+        assertEquals(CAR, categorySuggestionIndex.suggest(BUDGET_ID, "Ampol", 1).block().get(0).getCategoryId());
+
+        Transaction recategorised = transaction(1L, "AMPOL KIRRAWEE", CAR);
+        categorySuggestionIndex.remove(recategorised);
+        recategorised.setCategoryId(GROCERIES);
+        categorySuggestionIndex.add(recategorised);
+        assertEquals(List.of(new CategorySuggestionDto(GROCERIES, 1.0)),
+            categorySuggestionIndex.suggest(BUDGET_ID, "Ampol", 5).block());
+
+        // uncategorised transactions carry no evidence
+        categorySuggestionIndex.add(transaction(2L, "AMPOL SUTHERLAND", null));
+        assertEquals(1, categorySuggestionIndex.suggest(BUDGET_ID, "Ampol", 5).block().size());
+    }
+
+    private static Transaction transaction(Long transactionId, String description, Long categoryId) {
+        return Transaction.builder()
+            .transactionId(transactionId)
+            .budgetId(BUDGET_ID)
+            .description(description)
+            .categoryId(categoryId)
+            .build();
+    }
+}
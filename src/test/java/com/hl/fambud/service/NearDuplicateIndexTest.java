@@ -0,0 +1,51 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NearDuplicateIndexTest {
+
+    private static final LocalDate DATE = LocalDate.of(2024, 10, 31);
+
+    @Test
+    public void findsRewordedTransactionWithinTolerance() {
+        Transaction existing = transaction(1L, "DEBIT CARD PURCHASE WOOLWORTHS      1767 CARINGBAH    AUS", "36.50", DATE);
+        NearDuplicateIndex index = new NearDuplicateIndex(2);
+        index.add(existing);
+        index.add(transaction(2L, "DEBIT CARD PURCHASE ALDI STORES KIRRAWEE AUS", "36.50", DATE));
+
+        assertEquals(Optional.of(existing), index.findNearDuplicate(
+            transaction(null, "Debit Card Purchase Woolworths 1767 Caringbah AU", "36.5", DATE.plusDays(2))));
+    }
+
+    @Test
+    public void ignoresOtherAmountsDatesAndDescriptions() {
+        NearDuplicateIndex index = new NearDuplicateIndex(2);
+        index.add(transaction(1L, "DEBIT CARD PURCHASE WOOLWORTHS 1767 CARINGBAH AUS", "36.50", DATE));
+
+        assertTrue(index.findNearDuplicate(
+            transaction(null, "DEBIT CARD PURCHASE WOOLWORTHS 1767 CARINGBAH AUS", "36.51", DATE)).isEmpty());
+        assertTrue(index.findNearDuplicate(
+            transaction(null, "DEBIT CARD PURCHASE WOOLWORTHS 1767 CARINGBAH AUS", "36.50", DATE.minusDays(3))).isEmpty());
+        assertTrue(index.findNearDuplicate(
+            transaction(null, "PAYMENT BY AUTHORITY TO NRMA INSURANCE", "36.50", DATE)).isEmpty());
+    }
+
+    private static Transaction transaction(Long transactionId, String description, String amount, LocalDate date) {
+        return Transaction.builder()
+            .transactionId(transactionId)
+            .description(description)
+            .amount(new BigDecimal(amount))
+            .date(date)
+            .type(TransactionType.EXPENSE)
+            .build();
+    }
+}
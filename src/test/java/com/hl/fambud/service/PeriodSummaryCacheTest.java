@@ -0,0 +1,78 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.PeriodSummaryDto;
+import com.hl.fambud.dto.reporting.SummaryCacheStatsDto;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PeriodSummaryCacheTest {
+
+    private final static LocalDate JANUARY = LocalDate.of(2024, 1, 1);
+    private final static LocalDate FEBRUARY = LocalDate.of(2024, 2, 1);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void invalidatesOnlyRangesContainingTheDate() {
+        PeriodSummaryCache cache = new PeriodSummaryCache(10, Duration.ofMinutes(1));
+        get(cache, 1L, JANUARY);
+        get(cache, 1L, FEBRUARY);
+        get(cache, 2L, JANUARY);
+        get(cache, 1L, JANUARY);
+        assertEquals(3, loads.get());
+
+        cache.invalidate(1L, List.of(JANUARY.plusDays(14)));
+        get(cache, 1L, JANUARY);
+        get(cache, 1L, FEBRUARY);
+        get(cache, 2L, JANUARY);
+        assertEquals(4, loads.get());
+
+        SummaryCacheStatsDto stats = cache.getStats();
+        assertEquals(3, stats.getHits());
+        assertEquals(4, stats.getMisses());
+        assertEquals(1, stats.getInvalidations());
+        assertEquals(3, stats.getSize());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedRange() {
+        PeriodSummaryCache cache = new PeriodSummaryCache(2, Duration.ofMinutes(1));
+        get(cache, 1L, JANUARY);
+        get(cache, 1L, FEBRUARY);
+        get(cache, 1L, JANUARY);
+        get(cache, 1L, JANUARY.plusMonths(2));
+        get(cache, 1L, JANUARY);
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void doesNotCacheSummaryComputedAcrossInvalidation() {
+        PeriodSummaryCache cache = new PeriodSummaryCache(10, Duration.ofMinutes(1));
+        cache.get(1L, JANUARY, JANUARY.plusMonths(1).minusDays(1), () -> {
+            cache.invalidate(1L, List.of(FEBRUARY));
+            return summary();
+        }).block();
+        get(cache, 1L, JANUARY);
+        assertEquals(2, loads.get());
+    }
+
+    private void get(PeriodSummaryCache cache, Long budgetId, LocalDate month) {
+        cache.get(budgetId, month, month.plusMonths(1).minusDays(1), this::summary).block();
+    }
+
+    private Mono<PeriodSummaryDto> summary() {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return PeriodSummaryDto.builder().totalExpenses(BigDecimal.ONE).build();
+        });
+    }
+}
@@ -0,0 +1,122 @@
+package com.hl.fambud.service;
+
+import com.hl.fambud.dto.reporting.RecurringTransactionDto;
+import com.hl.fambud.model.RecurrencePeriod;
+import com.hl.fambud.model.Transaction;
+import com.hl.fambud.model.TransactionType;
+import com.hl.fambud.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RecurringTransactionDetectorTest {
+
+    private final static Long BUDGET_ID = 3L;
+    private final static LocalDate START = LocalDate.of(2024, 1, 15);
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private RecurringTransactionDetector recurringTransactionDetector;
+
+    @BeforeEach
+    void init() {
+        recurringTransactionDetector = new RecurringTransactionDetector(transactionRepository, Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void detectsPeriodsAndRebuildsEvictedHistory() {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int month = 0; month < 6; month++) {
+            // weekends move the debit by a day or two
+            transactions.add(transaction(transactions.size() + 1, "NETFLIX.COM 4521 SYDNEY", "22.99",
+                START.plusMonths(month).plusDays(month % 3), TransactionType.EXPENSE));
+            transactions.add(transaction(transactions.size() + 1, "SALARY ACME PTY LTD 0042", "4200.00",
+                START.plusWeeks(2L * month), TransactionType.INCOME));
+            transactions.add(transaction(transactions.size() + 1, "WOOLWORTHS CARINGBAH", "80.00",
+                START.plusDays(month * month), TransactionType.EXPENSE));
+        }
+        when(transactionRepository.findByBudgetId(BUDGET_ID)).thenReturn(Flux.fromIterable(transactions));
+
+        List<RecurringTransactionDto> recurringTransactions =
+            recurringTransactionDetector.findRecurringTransactions(BUDGET_ID).block();
+
+        assertEquals(2, recurringTransactions.size());
+        // income first
+        RecurringTransactionDto salary = recurringTransactions.get(0);
+        assertEquals(TransactionType.INCOME, salary.getType());
+        assertEquals(RecurrencePeriod.FORTNIGHTLY, salary.getPeriod());
+        RecurringTransactionDto netflix = recurringTransactions.get(1);
+        assertEquals("NETFLIX.COM SYDNEY", netflix.getMerchant());
+        assertEquals(RecurrencePeriod.MONTHLY, netflix.getPeriod());
+        assertEquals(new BigDecimal("22.99"), netflix.getTypicalAmount());
+        assertEquals(LocalDate.of(2024, 7, 17), netflix.getNextExpectedDate());
+
+        // cached until a write evicts the budget, whatever the ids of the transactions it wrote
+        transactions.add(0, transaction(0, "NETFLIX.COM 4521 SYDNEY", "24.99", LocalDate.of(2024, 7, 15),
+            TransactionType.EXPENSE));
+        assertEquals(6, recurringTransactionDetector.findRecurringTransactions(BUDGET_ID).block().get(1)
+            .getOccurrences());
+        recurringTransactionDetector.evict(BUDGET_ID);
+        netflix = recurringTransactionDetector.findRecurringTransactions(BUDGET_ID).block().get(1);
+        assertEquals(7, netflix.getOccurrences());
+        assertEquals(LocalDate.of(2024, 8, 15), netflix.getNextExpectedDate());
+        verify(transactionRepository, times(2)).findByBudgetId(BUDGET_ID);
+    }
+
+    @Test
+    public void rebuildsExpiredHistory() {
+        recurringTransactionDetector = new RecurringTransactionDetector(transactionRepository, Duration.ofMillis(-1));
+        List<Transaction> transactions = new ArrayList<>();
+        for (int month = 0; month < 3; month++)
+            transactions.add(transaction(month + 1, "NETFLIX.COM 4521 SYDNEY", "22.99", START.plusMonths(month),
+                TransactionType.EXPENSE));
+        when(transactionRepository.findByBudgetId(BUDGET_ID)).thenReturn(Flux.fromIterable(transactions));
+
+        recurringTransactionDetector.findRecurringTransactions(BUDGET_ID).block();
+        // the history expired, so it is rebuilt rather than served from the cache
+        assertEquals(3, recurringTransactionDetector.findRecurringTransactions(BUDGET_ID).block().get(0)
+            .getOccurrences());
+        verify(transactionRepository, times(2)).findByBudgetId(BUDGET_ID);
+    }
+
+    @Test
+    public void historyKeepsMostRecentOccurrencesInDateOrder() {
+        RecurringTransactionDetector.MerchantHistory history = new RecurringTransactionDetector.MerchantHistory();
+        for (int week = RecurringTransactionDetector.MerchantHistory.MAX_OCCURRENCES + 5; week >= 0; week--)
+            history.add(transaction(week, "GYM", "15.00", START.plusWeeks(week), TransactionType.EXPENSE));
+        assertEquals(RecurrencePeriod.WEEKLY, history.detectPeriod());
+        RecurringTransactionDto gym = history.toDto(
+            new RecurringTransactionDetector.MerchantKey(TransactionType.EXPENSE, "GYM"), RecurrencePeriod.WEEKLY);
+        assertEquals(RecurringTransactionDetector.MerchantHistory.MAX_OCCURRENCES + 6, gym.getOccurrences());
+        assertTrue(gym.getLastDate().isEqual(START.plusWeeks(RecurringTransactionDetector.MerchantHistory.MAX_OCCURRENCES + 5)));
+    }
+
+    private static Transaction transaction(long transactionId, String description, String amount, LocalDate date,
+                                           TransactionType type) {
+        return Transaction.builder()
+            .transactionId(transactionId)
+            .budgetId(BUDGET_ID)
+            .description(description)
+            .amount(new BigDecimal(amount))
+            .date(date)
+            .type(type)
+            .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.hl.fambud.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AmountSketchTest {
+
+    @Test
+    public void quantilesAreWithinRelativeAccuracy() {
+        AmountSketch sketch = new AmountSketch();
+        for (long cents = 1; cents <= 100_000; cents++)
+            sketch.add(cents);
+        assertEquals(100_000, sketch.count());
+        assertWithinAccuracy(50_000, sketch.quantile(0.5));
+        assertWithinAccuracy(90_000, sketch.quantile(0.9));
+        assertWithinAccuracy(99_000, sketch.quantile(0.99));
+        assertEquals(1, sketch.quantile(0));
+        assertTrue(sketch.buckets().size() < 600);
+    }
+
+    @Test
+    public void mergedSketchEqualsSketchOfAllAmounts() {
+        AmountSketch all = new AmountSketch();
+        AmountSketch first = new AmountSketch();
+        AmountSketch second = new AmountSketch();
+        for (long cents = 0; cents < 5000; cents += 7) {
+            all.add(cents);
+            (cents % 2 == 0 ? first : second).add(cents);
+        }
+        assertEquals(all.buckets(), first.merge(second).buckets());
+        assertEquals(all.quantile(0.9), first.quantile(0.9));
+    }
+
+    @Test
+    public void removedAmountsLeaveNoBuckets() {
+        AmountSketch sketch = new AmountSketch().add(-2500).add(4000).add(0);
+        sketch.remove(2500).remove(0);
+        assertEquals(1, sketch.count());
+        assertEquals(1, sketch.buckets().size());
+        assertWithinAccuracy(4000, sketch.quantile(0.5));
+        assertEquals(List.of(0L, 0L, 1L), sketch.histogram(List.of(0L, 1000L, 2000L)));
+        assertEquals(0, new AmountSketch().quantile(0.99));
+    }
+
+    private static void assertWithinAccuracy(long expected, long actual) {
+        assertTrue(Math.abs(expected - actual) <= Math.ceil(expected * AmountSketch.RELATIVE_ACCURACY),
+            expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,57 @@
+package com.hl.fambud.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeavyHittersTest {
+
+    @Test
+    public void exactWhileWithinCapacity() {
+        HeavyHitters<String> heavyHitters = new HeavyHitters<>(10);
+        List.of("coles", "aldi", "coles", "netflix", "coles", "aldi").forEach(heavyHitters::offer);
+        assertEquals(List.of(
+                new HeavyHitters.Entry<>("coles", 3, 0),
+                new HeavyHitters.Entry<>("aldi", 2, 0)),
+            heavyHitters.top(2));
+        assertEquals(6, heavyHitters.total());
+    }
+
+    @Test
+    public void frequentItemsSurviveEviction() {
+        HeavyHitters<String> heavyHitters = new HeavyHitters<>(5);
+        for (int i = 0; i < 1000; i++) {
+            heavyHitters.offer("woolworths");
+            if (i % 2 == 0)
+                heavyHitters.offer("ampol");
+            heavyHitters.offer("once " + i);
+        }
+        assertEquals(5, heavyHitters.size());
+        List<HeavyHitters.Entry<String>> top = heavyHitters.top(2);
+        assertEquals("woolworths", top.get(0).item());
+        assertEquals("ampol", top.get(1).item());
+        for (HeavyHitters.Entry<String> entry : top) {
+            long trueCount = entry.item().equals("woolworths") ? 1000 : 500;
+            assertTrue(entry.count() >= trueCount);
+            assertTrue(entry.count() - entry.error() <= trueCount);
+        }
+    }
+
+    @Test
+    public void mergeAddsCounts() {
+        HeavyHitters<String> first = new HeavyHitters<>(3);
+        HeavyHitters<String> second = new HeavyHitters<>(3);
+        List.of("coles", "coles", "aldi").forEach(first::offer);
+        List.of("coles", "netflix", "netflix", "netflix").forEach(second::offer);
+        HeavyHitters<String> merged = first.merge(second);
+        assertEquals(7, merged.total());
+        List<HeavyHitters.Entry<String>> top = merged.top(3);
+        assertTrue(top.subList(0, 2).containsAll(List.of(
+            new HeavyHitters.Entry<>("coles", 3, 0),
+            new HeavyHitters.Entry<>("netflix", 3, 0))));
+        assertEquals(new HeavyHitters.Entry<>("aldi", 1, 0), top.get(2));
+    }
+}
@@ -0,0 +1,63 @@
+package com.hl.fambud.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeywordMatcherTest {
+
+    @Test
+    public void matchIgnoresCase() {
+        KeywordMatcher<String> matcher = KeywordMatcher.<String>builder()
+            .add("woolworths", "Groceries")
+            .add("NETFLIX", "Streaming")
+            .build();
+        assertEquals(Optional.of("Groceries"),
+            matcher.match("DEBIT CARD PURCHASE WOOLWORTHS      1767 CARINGBAH    AUS"));
+        assertEquals(Optional.of("Streaming"), matcher.match("Netflix.com Sydney"));
+        assertEquals(Optional.empty(), matcher.match("SHIRE DOCTORS AND DEN"));
+    }
+
+    @Test
+    public void longestKeywordWins() {
+        KeywordMatcher<String> matcher = KeywordMatcher.<String>builder()
+            .add("uber", "Taxi")
+            .add("uber eats", "Dining")
+            .build();
+        assertEquals(Optional.of("Dining"), matcher.match("UBER EATS SYDNEY"));
+        assertEquals(Optional.of("Taxi"), matcher.match("UBER TRIP SYDNEY"));
+    }
+
+    @Test
+    public void firstAddedWinsForEqualLength() {
+        KeywordMatcher<String> matcher = KeywordMatcher.<String>builder()
+            .add("shell", "Car")
+            .add("coles", "Groceries")
+            .add("shell", "Household")
+            .build();
+        assertEquals(Optional.of("Car"), matcher.match("COLES EXPRESS SHELL"));
+        assertEquals(0, matcher.matchIndex("shell coles"));
+    }
+
+    @Test
+    public void overlappingKeywordsAreFoundThroughFailureLinks() {
+        KeywordMatcher<String> matcher = KeywordMatcher.of(List.of("he", "she", "hers", "his"));
+        assertEquals(Optional.of("hers"), matcher.match("ushers"));
+        assertEquals(Optional.of("his"), matcher.match("this"));
+        assertTrue(matcher.matches("SHE"));
+        assertFalse(matcher.matches("hx"));
+        assertFalse(matcher.matches(null));
+    }
+
+    @Test
+    public void emptyMatcherNeverMatches() {
+        KeywordMatcher<String> matcher = KeywordMatcher.<String>builder().add(" ", "blank").build();
+        assertEquals(0, matcher.size());
+        assertFalse(matcher.matches("anything"));
+    }
+}
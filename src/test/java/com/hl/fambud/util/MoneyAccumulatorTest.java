@@ -0,0 +1,28 @@
+package com.hl.fambud.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MoneyAccumulatorTest {
+
+    @Test
+    public void sumsInCents() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+            .add(new BigDecimal("36.5"))
+            .add(new BigDecimal("7.14"))
+            .add(new BigDecimal("100"));
+        assertEquals(14364, accumulator.getCents());
+        assertEquals(new BigDecimal("143.64"), accumulator.toAmount());
+        assertEquals(new BigDecimal("0.00"), new MoneyAccumulator().toAmount());
+    }
+
+    @Test
+    public void rejectsFractionsOfCentsAndOverflow() {
+        assertThrows(ArithmeticException.class, () -> MoneyAccumulator.toCents(new BigDecimal("0.001")));
+        assertThrows(ArithmeticException.class, () -> new MoneyAccumulator(Long.MAX_VALUE).addCents(1));
+    }
+}
@@ -0,0 +1,59 @@
+package com.hl.fambud.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.DoubleStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RunningStatsTest {
+
+    private static final double[] VALUES = {4500, 5220, 4810, 61000, 4999, 5100, 4700, 5350};
+
+    @Test
+    public void matchesTwoPassStatistics() {
+        RunningStats stats = new RunningStats();
+        DoubleStream.of(VALUES).forEach(stats::add);
+        double mean = DoubleStream.of(VALUES).average().orElseThrow();
+        double variance = DoubleStream.of(VALUES).map(value -> (value - mean) * (value - mean)).sum()
+            / (VALUES.length - 1);
+        assertEquals(VALUES.length, stats.count());
+        assertEquals(mean, stats.mean(), 1e-9);
+        assertEquals(variance, stats.variance(), 1e-6);
+        assertEquals((61000 - mean) / Math.sqrt(variance), stats.zScore(61000), 1e-9);
+    }
+
+    @Test
+    public void mergeAndSubtractCombineSeries() {
+        RunningStats all = new RunningStats();
+        RunningStats first = new RunningStats();
+        RunningStats second = new RunningStats();
+        for (int i = 0; i < VALUES.length; i++) {
+            all.add(VALUES[i]);
+            (i < 3 ? first : second).add(VALUES[i]);
+        }
+        RunningStats merged = first.copy().merge(second);
+        assertEquals(all.count(), merged.count());
+        assertEquals(all.mean(), merged.mean(), 1e-9);
+        assertEquals(all.m2(), merged.m2(), 1e-3);
+
+        RunningStats remaining = merged.subtract(second);
+        assertEquals(first.count(), remaining.count());
+        assertEquals(first.mean(), remaining.mean(), 1e-9);
+        assertEquals(first.m2(), remaining.m2(), 1e-3);
+    }
+
+    @Test
+    public void removeReversesAdd() {
+        RunningStats stats = new RunningStats().add(4500).add(5220);
+        RunningStats expected = stats.copy();
+        stats.add(61000).remove(61000);
+        assertEquals(expected.count(), stats.count());
+        assertEquals(expected.mean(), stats.mean(), 1e-9);
+        assertEquals(expected.m2(), stats.m2(), 1e-3);
+        stats.remove(5220).remove(4500);
+        assertEquals(0, stats.count());
+        assertEquals(0, stats.variance());
+        assertEquals(0, stats.zScore(100));
+    }
+}
@@ -24,11 +24,29 @@ public class TestDataGenerator {
     public final static String BUDGET_BASE_URL = "/api/budgets";
     public final static String BUDGET_ID_URL = BUDGET_BASE_URL + "/{budgetId}";
     public final static String BUDGET_SUMMARY_URL = BUDGET_ID_URL + "/summaries";
+    public final static String BUDGET_SUMMARY_TREND_URL = BUDGET_SUMMARY_URL + "/trend";
+    public final static String CONSOLIDATED_SUMMARY_URL = BUDGET_BASE_URL + "/summaries/consolidated";
+    public final static String DAILY_TOTALS_REBUILD_URL = BUDGET_ID_URL + "/daily-totals/rebuild";
+    public final static String DAILY_TOTALS_VERIFICATION_URL = BUDGET_ID_URL + "/daily-totals/verification";
+    public final static String REPORT_BASE_URL = BUDGET_ID_URL + "/reports";
+    public final static String TRANSACTOR_CATEGORY_REPORT_URL = REPORT_BASE_URL + "/transactors-by-category";
+    public final static String TOP_MERCHANTS_REPORT_URL = REPORT_BASE_URL + "/top-merchants";
+    public final static String AMOUNT_DISTRIBUTION_REPORT_URL = REPORT_BASE_URL + "/amount-distribution";
+    public final static String CASH_FLOW_REPORT_URL = REPORT_BASE_URL + "/cash-flow";
+    public final static String ANOMALIES_REPORT_URL = REPORT_BASE_URL + "/anomalies";
+    public final static String FORECAST_REPORT_URL = REPORT_BASE_URL + "/forecast";
     public final static String CATEGORY_BASE_URL = BUDGET_ID_URL + "/categories";
     public final static String CATEGORY_ID_URL = CATEGORY_BASE_URL + "/{categoryId}";
+    public final static String CATEGORY_LIMITS_URL = CATEGORY_BASE_URL + "/limits";
+    public final static String CATEGORY_RULE_BASE_URL = CATEGORY_BASE_URL + "/rules";
+    public final static String CATEGORY_RULE_ID_URL = CATEGORY_RULE_BASE_URL + "/{ruleId}";
     public final static String TRANSACTION_BASE_URL = BUDGET_ID_URL + "/transactions";
     public final static String TRANSACTION_ID_URL = TRANSACTION_BASE_URL + "/{transactionId}";
+    public final static String TRANSACTION_CATEGORY_SUGGESTIONS_URL = TRANSACTION_ID_URL + "/category-suggestions";
     public final static String TRANSACTION_CATEGORIES_URL = TRANSACTION_BASE_URL + "/categories";
+    public final static String CATEGORISATION_JOB_URL = TRANSACTION_CATEGORIES_URL + "/jobs/{jobId}";
+    public final static String CATEGORISATION_SIMULATION_URL = TRANSACTION_CATEGORIES_URL + "/simulation";
+    public final static String TRANSACTION_IMPORT_URL = TRANSACTION_BASE_URL + "/import";
     private static final Logger LOG = LoggerFactory.getLogger(TestDataGenerator.class);
 
     public static BudgetDto getBudgetDto() {
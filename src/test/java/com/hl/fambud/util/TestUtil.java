@@ -3,10 +3,17 @@ package com.hl.fambud.util;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.hl.fambud.dto.BudgetDto;
+import com.hl.fambud.dto.CategorisationJobDto;
 import com.hl.fambud.dto.CategoryDto;
+import com.hl.fambud.dto.CategoryRuleDto;
 import com.hl.fambud.dto.TransactionDto;
+import com.hl.fambud.dto.reporting.PeriodSummaryDto;
+import com.hl.fambud.dto.reporting.RollupVerificationDto;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
 
 import static com.hl.fambud.util.TestDataGenerator.TRANSACTION_BASE_URL;
 import static com.hl.fambud.util.TestDataGenerator.TRANSACTION_ID_URL;
@@ -52,6 +59,22 @@ public class TestUtil {
             .getResponseBody();
     }
 
+    public static CategoryRuleDto postCategoryRule(WebTestClient webTestClient, Long budgetId, CategoryRuleDto categoryRuleDto) {
+        categoryRuleDto.setRuleId(null);
+        return webTestClient
+            .post()
+            .uri(TestDataGenerator.CATEGORY_RULE_BASE_URL, budgetId)
+            .header("Authorization", "Bearer test-token")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(categoryRuleDto)
+            .exchange()
+            .expectStatus()
+            .isCreated()
+            .expectBody(CategoryRuleDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
     public static TransactionDto postTransaction(WebTestClient webTestClient, Long budgetId, TransactionDto transactionDto) {
         transactionDto.setTransactionId(null);
         return webTestClient
@@ -104,4 +127,114 @@ public class TestUtil {
             .expectStatus()
             .isNoContent();
     }
+
+    public static String importTransactions(
+        WebTestClient webTestClient, Long budgetId, String csvFileName, boolean categorise) {
+        return importTransactions(webTestClient, budgetId, csvFileName, categorise, false);
+    }
+
+    public static String importTransactions(
+        WebTestClient webTestClient, Long budgetId, String csvFileName, boolean categorise, boolean fuzzy) {
+        MultipartBodyBuilder bodyBuilder = new MultipartBodyBuilder();
+        bodyBuilder.part("file", new ClassPathResource(csvFileName))
+            .header("Content-Disposition", "form-data; name=file; filename=" + csvFileName)
+            .contentType(MediaType.TEXT_PLAIN);
+        return webTestClient.post()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.TRANSACTION_IMPORT_URL)
+                .queryParam("categorise", categorise)
+                .queryParam("fuzzy", fuzzy)
+                .build(budgetId))
+            .header("Authorization", "Bearer test-token")
+            .contentType(MediaType.MULTIPART_FORM_DATA)
+            .body(BodyInserters.fromMultipartData(bodyBuilder.build()))
+            .exchange()
+            .expectStatus()
+            .isAccepted()
+            .expectBody(String.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    /**
+     * Starts a categorisation job and waits for it to finish.
+     */
+    public static CategorisationJobDto categorise(WebTestClient webTestClient, Long budgetId, boolean full) {
+        CategorisationJobDto jobDto = webTestClient.put()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.TRANSACTION_CATEGORIES_URL)
+                .queryParam("full", full)
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isAccepted()
+            .expectBody(CategorisationJobDto.class)
+            .returnResult()
+            .getResponseBody();
+        for (int attempt = 0; attempt < 100 && !jobDto.getStatus().isFinished(); attempt++) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            jobDto = getCategorisationJob(webTestClient, budgetId, jobDto.getJobId());
+        }
+        return jobDto;
+    }
+
+    public static CategorisationJobDto getCategorisationJob(WebTestClient webTestClient, Long budgetId, String jobId) {
+        return webTestClient.get()
+            .uri(TestDataGenerator.CATEGORISATION_JOB_URL, budgetId, jobId)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(CategorisationJobDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    public static RollupVerificationDto verifyDailyTotals(WebTestClient webTestClient, Long budgetId) {
+        return webTestClient.get()
+            .uri(TestDataGenerator.DAILY_TOTALS_VERIFICATION_URL, budgetId)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(RollupVerificationDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    public static RollupVerificationDto rebuildDailyTotals(WebTestClient webTestClient, Long budgetId) {
+        return webTestClient.post()
+            .uri(TestDataGenerator.DAILY_TOTALS_REBUILD_URL, budgetId)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(RollupVerificationDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
+
+    public static PeriodSummaryDto getPeriodSummary(
+        WebTestClient webTestClient, Long budgetId, String startDate, String endDate) {
+        return getPeriodSummary(webTestClient, budgetId, startDate, endDate, false);
+    }
+
+    public static PeriodSummaryDto getPeriodSummary(
+        WebTestClient webTestClient, Long budgetId, String startDate, String endDate, boolean compare) {
+        return webTestClient.get()
+            .uri(uriBuilder -> uriBuilder
+                .path(TestDataGenerator.BUDGET_SUMMARY_URL)
+                .queryParam("startDate", startDate)
+                .queryParam("endDate", endDate)
+                .queryParam("compare", compare)
+                .build(budgetId))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(PeriodSummaryDto.class)
+            .returnResult()
+            .getResponseBody();
+    }
 }
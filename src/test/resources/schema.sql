@@ -8,7 +8,8 @@ CREATE TABLE budgets (
 CREATE TABLE categories (
     category_id BIGSERIAL PRIMARY KEY,
     budget_id BIGINT,
-    name VARCHAR(255) NOT NULL
+    name VARCHAR(255) NOT NULL,
+    monthly_limit DECIMAL(15, 2)
 );
 
 -- Table for Transactors
@@ -29,5 +30,85 @@ CREATE TABLE transactions (
     description VARCHAR(500) NOT NULL,
     amount DECIMAL(15, 2) NOT NULL,
     date DATE NOT NULL,
-    type VARCHAR(50) NOT NULL CHECK (type IN ('INCOME', 'EXPENSE', 'MOVE'))
+    type VARCHAR(50) NOT NULL CHECK (type IN ('INCOME', 'EXPENSE', 'MOVE')),
+    rule_set_version BIGINT
+);
+
+-- Table for Category Rules
+CREATE TABLE category_rules (
+    rule_id BIGSERIAL PRIMARY KEY,
+    budget_id BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    keyword VARCHAR(200) NOT NULL
+);
+
+-- Table for Category Rule Versions
+CREATE TABLE category_rule_versions (
+    budget_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL
+);
+
+-- Table for Categorisation Jobs
+CREATE TABLE categorisation_jobs (
+    job_id VARCHAR(36) PRIMARY KEY,
+    budget_id BIGINT NOT NULL,
+    full_run BOOLEAN NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    processed BIGINT NOT NULL,
+    matched BIGINT NOT NULL,
+    written BIGINT NOT NULL,
+    failed BIGINT NOT NULL,
+    error VARCHAR(500),
+    cancel_requested BOOLEAN NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    active_budget_id BIGINT UNIQUE,
+    heartbeat_at TIMESTAMP NOT NULL
+);
+
+-- Table for Daily Category Totals
+CREATE TABLE daily_category_totals (
+    budget_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    amount_cents BIGINT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (budget_id, date, category_id, type)
+);
+
+-- Table for Daily Category Amount Buckets
+CREATE TABLE daily_category_amount_buckets (
+    budget_id BIGINT NOT NULL,
+    date DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    bucket INT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (budget_id, date, category_id, type, bucket)
+);
+
+-- Table for Daily Category Amount Bucket Backfills
+CREATE TABLE daily_category_amount_bucket_backfills (
+    budget_id BIGINT PRIMARY KEY
+);
+
+-- Table for Category Stats
+CREATE TABLE category_stats (
+    budget_id BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    mean_cents DOUBLE PRECISION NOT NULL,
+    m2 DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (budget_id, category_id)
+);
+
+-- Table for Category Month Spend
+CREATE TABLE category_month_spend (
+    budget_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    category_id BIGINT NOT NULL,
+    amount_cents BIGINT NOT NULL,
+    tx_count BIGINT NOT NULL,
+    PRIMARY KEY (budget_id, month_start, category_id)
 );